@@ -0,0 +1,176 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dictionary of account names. Each name is registered once and gets a dense int id, so transactions
+ * store an int instead of a string reference, balances live in a {@code long[]} (cents) indexed by id and
+ * a balance update is a single array write. The alphabetical display order is kept pre-sorted and only
+ * recomputed when an account is created.
+ *
+ * <p>Dictionnaire des noms de compte. Chaque nom est enregistré une seule fois et reçoit un identifiant
+ * int dense : les transactions stockent un int au lieu d'une référence de chaîne, les soldes vivent dans
+ * un {@code long[]} (centimes) indexé par identifiant et une mise à jour de solde est une simple écriture
+ * dans le tableau. L'ordre d'affichage alphabétique est conservé pré-trié et n'est recalculé qu'à la
+ * création d'un compte.</p>
+ *
+ * <p>Thread-safe: transactions may be created while loading off the EDT, and names are read
+ * without locking by parallel exports. / Thread-safe : des transactions peuvent être créées pendant un
+ * chargement hors de l'EDT, et les noms sont lus sans verrou par les exportations parallèles.</p>
+ */
+final class AccountRegistry {
+
+    /**
+     * The registry shared by all transactions of the application.
+     *
+     * <p>Le registre partagé par toutes les transactions de l'application.</p>
+     */
+    static final AccountRegistry SHARED = new AccountRegistry();
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private volatile String[] names = new String[8]; // Name by id / Nom par identifiant
+    private volatile int[] displayOrder = new int[0]; // Ids sorted by name / Identifiants triés par nom
+    private long[] balances = new long[8]; // Balance in cents by id / Solde en centimes par identifiant
+    private int count;
+
+    /**
+     * Returns the id of an account, registering it with a zero balance if it is new.
+     *
+     * <p>Retourne l'identifiant d'un compte, en l'enregistrant avec un solde nul s'il est nouveau.</p>
+     *
+     * @param name The account name. / Le nom du compte.
+     * @return The account id. / L'identifiant du compte.
+     */
+    public synchronized int register(String name) {
+        Integer existing = ids.get(name);
+        if (existing != null) {
+            return existing;
+        }
+        int id = count++;
+        String[] grown = names;
+        if (id == grown.length) {
+            grown = Arrays.copyOf(grown, id * 2);
+            balances = Arrays.copyOf(balances, id * 2);
+        }
+        grown[id] = name;
+        names = grown; // Volatile write publishes the new name / L'écriture volatile publie le nouveau nom
+        ids.put(name, id);
+        updateDisplayOrder();
+        return id;
+    }
+
+    /**
+     * Returns the id of an account without registering it.
+     *
+     * <p>Retourne l'identifiant d'un compte sans l'enregistrer.</p>
+     *
+     * @param name The account name. / Le nom du compte.
+     * @return The account id, or -1 if unknown. / L'identifiant du compte, ou -1 s'il est inconnu.
+     */
+    public synchronized int find(String name) {
+        Integer id = ids.get(name);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Returns the name of an account.
+     *
+     * <p>Retourne le nom d'un compte.</p>
+     *
+     * @param id The account id. / L'identifiant du compte.
+     * @return The account name. / Le nom du compte.
+     */
+    public String name(int id) {
+        return names[id];
+    }
+
+    /**
+     * Returns the account ids sorted by name. The array is shared and must not be modified.
+     *
+     * <p>Retourne les identifiants des comptes triés par nom. Le tableau est partagé et ne doit pas être modifié.</p>
+     *
+     * @return The ids in display order. / Les identifiants dans l'ordre d'affichage.
+     */
+    public int[] displayOrder() {
+        return displayOrder;
+    }
+
+    /**
+     * Returns the account names sorted alphabetically, e.g. for a combo box.
+     *
+     * <p>Retourne les noms des comptes triés par ordre alphabétique, par ex. pour une liste déroulante.</p>
+     *
+     * @return A new array of names. / Un nouveau tableau de noms.
+     */
+    public String[] displayNames() {
+        int[] order = displayOrder;
+        String[] current = names;
+        String[] sorted = new String[order.length];
+        for (int i = 0; i < order.length; i++) {
+            sorted[i] = current[order[i]];
+        }
+        return sorted;
+    }
+
+    /**
+     * Returns the balance of an account.
+     *
+     * <p>Retourne le solde d'un compte.</p>
+     *
+     * @param id The account id. / L'identifiant du compte.
+     * @return The balance in cents. / Le solde en centimes.
+     */
+    public synchronized long balance(int id) {
+        return balances[id];
+    }
+
+    /**
+     * Adds a signed amount to the balance of an account.
+     *
+     * <p>Ajoute un montant signé au solde d'un compte.</p>
+     *
+     * @param id The account id. / L'identifiant du compte.
+     * @param deltaCents The amount to add in cents, negative for a debit. / Le montant à ajouter en centimes, négatif pour un débit.
+     */
+    public synchronized void addToBalance(int id, long deltaCents) {
+        balances[id] += deltaCents;
+    }
+
+    /**
+     * Returns the sum of all balances.
+     *
+     * <p>Retourne la somme de tous les soldes.</p>
+     *
+     * @return The global balance in cents. / Le solde global en centimes.
+     */
+    public synchronized long totalBalance() {
+        long total = 0;
+        for (int id = 0; id < count; id++) {
+            total += balances[id];
+        }
+        return total;
+    }
+
+    /**
+     * Resets every balance to zero, before they are recomputed from the transactions.
+     *
+     * <p>Remet tous les soldes à zéro, avant qu'ils soient recalculés à partir des transactions.</p>
+     */
+    public synchronized void clearBalances() {
+        Arrays.fill(balances, 0, count, 0L);
+    }
+
+    private void updateDisplayOrder() {
+        Integer[] order = new Integer[count];
+        for (int id = 0; id < count; id++) {
+            order[id] = id;
+        }
+        String[] current = names;
+        Arrays.sort(order, (a, b) -> current[a].compareTo(current[b]));
+        int[] sorted = new int[count];
+        for (int i = 0; i < count; i++) {
+            sorted[i] = order[i];
+        }
+        displayOrder = sorted;
+    }
+}
@@ -0,0 +1,109 @@
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Crash-safe file replacement. A file is written to a temporary sibling, forced to the storage device
+ * and moved over the primary atomically, so a crash leaves either the old or the new content, never a
+ * mix; the directory is then forced too, so that the move itself survives a power loss. Backups are
+ * hard links to the previous version (a copy made with {@code transferTo} where links are not
+ * supported), which is possible because a primary is never modified in place.
+ *
+ * <p>Remplacement de fichiers résistant aux arrêts brutaux. Un fichier est écrit dans un fichier
+ * temporaire voisin, forcé sur le support de stockage puis déplacé de façon atomique sur le fichier
+ * principal : un arrêt brutal laisse l'ancien ou le nouveau contenu, jamais un mélange ; le répertoire
+ * est ensuite forcé lui aussi, pour que le déplacement lui-même survive à une coupure de courant. Les
+ * sauvegardes sont des liens physiques vers la version précédente (une copie faite avec
+ * {@code transferTo} là où les liens ne sont pas pris en charge), ce qui est possible car un fichier
+ * principal n'est jamais modifié sur place.</p>
+ */
+final class AtomicFiles {
+
+    private static final String TEMPORARY_EXTENSION = ".tmp";
+
+    /**
+     * Writes the content of a file.
+     *
+     * <p>Écrit le contenu d'un fichier.</p>
+     */
+    interface Content {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private AtomicFiles() {
+    }
+
+    /**
+     * Replaces a file atomically with new content.
+     *
+     * <p>Remplace un fichier de façon atomique par un nouveau contenu.</p>
+     *
+     * @param file The file to replace or create. / Le fichier à remplacer ou créer.
+     * @param content The writer of the new content, given a buffered stream. / Le rédacteur du nouveau contenu, qui reçoit un flux tamponné.
+     * @throws IOException If the content cannot be written; the file is then unchanged. / Si le contenu ne peut pas être écrit ; le fichier est alors inchangé.
+     */
+    static void write(Path file, Content content) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + TEMPORARY_EXTENSION);
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16);
+            content.writeTo(out);
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory(file.toAbsolutePath().getParent());
+    }
+
+    /**
+     * Forces the entries of a directory to the storage device, so that a file created, renamed or moved
+     * into it is still there after a power loss. Not possible on Windows, where the rename is durable
+     * once it returns.
+     *
+     * <p>Force les entrées d'un répertoire sur le support de stockage, pour qu'un fichier créé, renommé ou
+     * déplacé dedans y soit encore après une coupure de courant. Impossible sous Windows, où le renommage
+     * est durable dès qu'il se termine.</p>
+     *
+     * @param directory The directory. / Le répertoire.
+     */
+    static void forceDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Directories cannot be opened on Windows / Les répertoires ne peuvent pas être ouverts sous Windows
+        }
+    }
+
+    /**
+     * Keeps the current version of a file as its backup, replacing the previous backup.
+     *
+     * <p>Conserve la version actuelle d'un fichier comme sauvegarde, en remplaçant la sauvegarde précédente.</p>
+     *
+     * @param file The file, which may not exist. / Le fichier, qui peut ne pas exister.
+     * @param backup The backup file. / Le fichier de sauvegarde.
+     * @throws IOException If the backup cannot be made. / Si la sauvegarde ne peut pas être faite.
+     */
+    static void backup(Path file, Path backup) throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        Files.deleteIfExists(backup);
+        try {
+            Files.createLink(backup, file); // Shares the data, nothing is copied / Partage les données, rien n'est copié
+        } catch (UnsupportedOperationException | FileSystemException e) {
+            try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ);
+                 FileChannel out = FileChannel.open(backup, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                long size = in.size();
+                for (long position = 0; position < size; ) { // Zero-copy where the OS supports it / Sans copie là où le système le permet
+                    position += in.transferTo(position, size - position, out);
+                }
+            }
+        }
+    }
+}
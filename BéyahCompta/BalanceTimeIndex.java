@@ -0,0 +1,142 @@
+import java.util.Arrays;
+
+/**
+ * Per-account Fenwick (binary indexed) trees of the net flow of the transactions, keyed by epoch day, so
+ * that the flow of an account up to a date, and thus its balance on that date, is known in O(log days)
+ * without replaying the history. A transaction is a point update of its day in O(log days) as well.
+ * Every tree covers the same range of days, which doubles (in O(days)) when a date falls outside of it.
+ * Accounts are the ids of the {@link AccountRegistry}. Not thread-safe: the {@link Ledger} guards it.
+ *
+ * <p>Arbres de Fenwick (arbres binaires indexés) par compte du flux net des transactions, indexés par
+ * jour epoch : le flux d'un compte jusqu'à une date, et donc son solde à cette date, est connu en
+ * O(log jours) sans rejouer l'historique. Une transaction est une mise à jour ponctuelle de son jour, en
+ * O(log jours) également. Tous les arbres couvrent la même plage de jours, qui double (en O(jours))
+ * lorsqu'une date en sort. Les comptes sont les identifiants de l'{@link AccountRegistry}. Non
+ * thread-safe : le {@link Ledger} le protège.</p>
+ */
+final class BalanceTimeIndex {
+
+    private static final int INITIAL_DAYS = 1024; // A little less than three years / Un peu moins de trois ans
+
+    private long[][] trees = new long[0][]; // By account id, 1-based Fenwick arrays / Par identifiant de compte, tableaux de Fenwick indexés à partir de 1
+    private long firstDay; // Epoch day of position 1 / Jour epoch de la position 1
+    private int days; // Days covered by every tree / Jours couverts par chaque arbre
+
+    /**
+     * Drops every flow.
+     *
+     * <p>Supprime tous les flux.</p>
+     */
+    public void clear() {
+        trees = new long[0][];
+        days = 0;
+    }
+
+    /**
+     * Adds a flow to an account on a day.
+     *
+     * <p>Ajoute un flux à un compte un jour donné.</p>
+     *
+     * @param accountId The account. / Le compte.
+     * @param epochDay The day. / Le jour.
+     * @param deltaCents Credits are positive, debits negative. / Les crédits sont positifs, les débits négatifs.
+     */
+    public void add(int accountId, long epochDay, long deltaCents) {
+        if (deltaCents == 0) {
+            return;
+        }
+        cover(epochDay);
+        if (accountId >= trees.length) {
+            trees = Arrays.copyOf(trees, Math.max(accountId + 1, trees.length * 2));
+        }
+        long[] tree = trees[accountId];
+        if (tree == null) {
+            tree = trees[accountId] = new long[days + 1];
+        }
+        for (int i = (int) (epochDay - firstDay) + 1; i <= days; i += i & -i) {
+            tree[i] += deltaCents;
+        }
+    }
+
+    /**
+     * Returns the net flow of an account up to a day, included.
+     *
+     * <p>Retourne le flux net d'un compte jusqu'à un jour, inclus.</p>
+     *
+     * @param accountId The account. / Le compte.
+     * @param epochDay The last day. / Le dernier jour.
+     * @return The sum of the flows, in cents. / La somme des flux, en centimes.
+     */
+    public long flowUpTo(int accountId, long epochDay) {
+        if (accountId < 0 || accountId >= trees.length || trees[accountId] == null || epochDay < firstDay) {
+            return 0;
+        }
+        long[] tree = trees[accountId];
+        long sum = 0;
+        for (int i = (int) Math.min(epochDay - firstDay + 1, days); i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the net flow of an account over all days.
+     *
+     * <p>Retourne le flux net d'un compte sur tous les jours.</p>
+     *
+     * @param accountId The account. / Le compte.
+     * @return The sum of the flows, in cents. / La somme des flux, en centimes.
+     */
+    public long totalFlow(int accountId) {
+        return flowUpTo(accountId, firstDay + days - 1);
+    }
+
+    /**
+     * Widens the range of every tree so that it holds a day.
+     *
+     * <p>Élargit la plage de chaque arbre pour qu'elle contienne un jour.</p>
+     */
+    private void cover(long epochDay) {
+        if (days == 0) {
+            firstDay = epochDay - INITIAL_DAYS / 2;
+            days = INITIAL_DAYS;
+            return;
+        }
+        long end = firstDay + days;
+        if (epochDay >= firstDay && epochDay < end) {
+            return;
+        }
+        long from = Math.min(firstDay, epochDay);
+        long to = Math.max(end, epochDay + 1);
+        int grown = days;
+        while (grown < to - from) {
+            grown *= 2;
+        }
+        grown = Math.max(grown, days * 2); // Amortized / Amorti
+        long newFirstDay = epochDay < firstDay ? to - grown : from; // Room on the side that grew / De la place du côté qui a grandi
+        int shift = (int) (firstDay - newFirstDay);
+        for (int a = 0; a < trees.length; a++) {
+            long[] tree = trees[a];
+            if (tree == null) {
+                continue;
+            }
+            for (int i = days; i > 0; i--) { // Back to the flow of each day / Retour au flux de chaque jour
+                int parent = i + (i & -i);
+                if (parent <= days) {
+                    tree[parent] -= tree[i];
+                }
+            }
+            long[] widened = new long[grown + 1];
+            System.arraycopy(tree, 1, widened, shift + 1, days);
+            for (int i = 1; i <= grown; i++) { // Linear build / Construction linéaire
+                int parent = i + (i & -i);
+                if (parent <= grown) {
+                    widened[parent] += widened[i];
+                }
+            }
+            trees[a] = widened;
+        }
+        firstDay = newFirstDay;
+        days = grown;
+    }
+}
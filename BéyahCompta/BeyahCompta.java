@@ -1,25 +1,38 @@
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.table.AbstractTableModel;
 import java.awt.*;
 import java.awt.event.ActionEvent; // Import ActionEvent
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.awt.image.BufferedImage;
 import java.io.*;
-import java.text.NumberFormat;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 /**
@@ -38,10 +51,21 @@ public class BeyahCompta extends JFrame { // JFrame already implements Serializa
 
     // --- Application Constants / Constantes de l'application ---
     private static final String APP_TITLE = "BéyahCompta - Gestion Financière Épurée";
-    private static final String DATA_DIR_NAME = "BeyahComptaData";
-    private static final String TRANSACTIONS_FILE_SER = "transactions.ser";
-    private static final String BALANCES_AND_BUDGETS_FILE_SER = "data.ser"; // Combines account balances and budgets
-    private static final String BACKUP_EXTENSION = ".bak";
+    private static final int RESIDENT_MONTHS = 2; // Months loaded at startup, the current one included / Mois chargés au démarrage, le mois en cours compris
+    private static final int LOADING_PAGE_SIZE = 10_000; // Rows shown at a time while loading / Lignes affichées à la fois pendant le chargement
+    private static final int AUTOSAVE_DELAY_MS = 3000; // Quiet period before an automatic save / Période calme avant une sauvegarde automatique
+    private static final int COMPACTION_RATIO_PERCENT = 25; // Journal size, in percent of the segments, that forces a save / Taille du journal, en pourcentage des segments, qui force une sauvegarde
+    private static final long COMPACTION_MIN_BYTES = 256 * 1024; // Below this the quiet period is always awaited / En dessous, la période calme est toujours attendue
+    private static final String API_PORT_PROPERTY = "beyahcompta.api.port"; // Starts the local HTTP API when set / Démarre l'API HTTP locale si définie
+
+    // Data files, also read by BeyahComptaCli / Fichiers de données, aussi lus par BeyahComptaCli
+    static final String DATA_DIR_NAME = "BeyahComptaData";
+    static final String TRANSACTIONS_FILE_SER = "transactions.ser"; // Legacy format, migrated on load / Ancien format, migré au chargement
+    static final String TRANSACTIONS_FILE_BIN = "transactions.bin"; // Single snapshot, migrated to segments on load / Instantané unique, migré en segments au chargement
+    static final String SEGMENTS_DIR = "segments"; // One file per month / Un fichier par mois
+    static final String BALANCES_AND_BUDGETS_FILE_SER = "data.ser"; // Combines account balances and budgets
+    static final String BACKUP_EXTENSION = ".bak";
+    static final String JOURNAL_FILE = "journal.log"; // Write-ahead log of mutations since the last save
 
     // Default accounts / Comptes par défaut
     private static final String DEFAULT_ACCOUNT_CASH = "Caisse";
@@ -73,6 +97,8 @@ public class BeyahCompta extends JFrame { // JFrame already implements Serializa
     private static final String BUTTON_EDIT = "Modifier";
     private static final String BUTTON_DELETE = "Supprimer";
     private static final String BUTTON_EXPORT_CSV = "Exporter CSV";
+    private static final String BUTTON_IMPORT_CSV = "Importer CSV";
+    private static final String BUTTON_LOAD_HISTORY = "Charger l'historique";
     private static final String REPORT_HEADER_TITLE = "Résumé des Comptes et Budgets";
     private static final String REPORT_TOTAL_CREDIT_TITLE = "Total des Crédits:";
     private static final String REPORT_TOTAL_DEBIT_TITLE = "Total des Débits:";
@@ -80,6 +106,10 @@ public class BeyahCompta extends JFrame { // JFrame already implements Serializa
     private static final String REPORT_BUDGET_SUMMARY_TITLE = "Résumé Budgétaire par Catégorie";
     private static final String REPORT_EXPENSE_PIE_CHART_TITLE = "Dépenses par Catégorie";
     private static final String BUTTON_MANAGE_BUDGETS = "Gérer les Budgets";
+    private static final String REPORT_BALANCE_HISTORY_TITLE = "Solde à une Date";
+    private static final String LABEL_FROM = "Du:";
+    private static final String LABEL_TO = "Au:";
+    private static final String BUTTON_COMPUTE_BALANCE = "Calculer";
 
     // Error/Warning Messages / Messages d'erreur/avertissement
     private static final String MSG_WARNING_EMPTY_FIELDS = "Veuillez remplir tous les champs.";
@@ -92,19 +122,33 @@ public class BeyahCompta extends JFrame { // JFrame already implements Serializa
     private static final String MSG_SUCCESS_TRANSACTION_DELETED = "Transaction supprimée.";
     private static final String MSG_SUCCESS_EXPORT = "Transactions exportées avec succès vers ";
     private static final String MSG_ERROR_EXPORT = "Erreur lors de l'exportation: ";
+    private static final String MSG_EXPORT_IN_PROGRESS = "Exportation des transactions en cours...";
+    private static final String MSG_EXPORT_CANCELLED = "Exportation annulée.";
+    private static final String MSG_SUCCESS_IMPORT = " transaction(s) importée(s) depuis ";
+    private static final String MSG_WARNING_IMPORT_REJECTED = " ligne(s) ignorée(s). Première erreur : ";
+    private static final String MSG_ERROR_IMPORT = "Erreur lors de l'importation: ";
     private static final String MSG_SUCCESS_BUDGET_UPDATED = "Budgets mis à jour avec succès.";
     private static final String MSG_WARNING_BUDGET_POSITIVE = "Le budget doit être positif ou nul.";
     private static final String MSG_ERROR_INVALID_BUDGET_AMOUNT = "Montant de budget invalide. Veuillez entrer un nombre valide.";
+    private static final String MSG_ERROR_INVALID_DATE = "Date invalide. Veuillez entrer une date au format JJ/MM/AAAA.";
+    private static final String MSG_WARNING_DATE_ORDER = "La date de début doit précéder la date de fin.";
     private static final String MSG_NO_EXPENSE_DATA = "Aucune dépense enregistrée.";
+    private static final String MSG_LOADING = "Chargement des données...";
+    private static final String MSG_ERROR_LOAD = "Erreur lors du chargement des données, les modifications ne seront pas sauvegardées: ";
+    private static final String MSG_ERROR_MONTH_UNAVAILABLE = "Le mois concerné n'a pas pu être chargé, la modification est annulée: ";
+    private static final String MSG_WARNING_JOURNAL_SKIPPED = " modification(s) du journal n'ont pas pu être rejouées : leurs mois sont illisibles. Le journal est conservé pour le prochain démarrage.";
 
 
     // --- UI Components / Composants de l'interface utilisateur ---
     private JTable transactionsTable;
-    private DefaultTableModel tableModel;
+    private TransactionTableModel tableModel;
     private JLabel soldeGlobalLabel;
     private JComboBox<String> filterTypeComboBox;
     private JComboBox<String> filterCategoryComboBox;
     private JTextField searchField;
+    private JButton loadHistoryButton;
+    private final List<JComponent> ledgerControls = new ArrayList<>(); // Disabled until the ledger is loaded / Désactivés jusqu'au chargement du grand livre
+    private boolean ledgerLoaded; // Set on the EDT once loading succeeded / Défini sur l'EDT une fois le chargement réussi
 
     // Report-related components / Composants liés aux rapports
     private JLabel totalDebitLabel;
@@ -112,6 +156,11 @@ public class BeyahCompta extends JFrame { // JFrame already implements Serializa
     private JPanel accountBalancesPanel;
     private JPanel budgetSummaryPanel;
     private PieChartPanel pieChartPanel; // Direct reference for robustness
+    private JComboBox<String> balanceHistoryAccountComboBox;
+    private JTextField balanceHistoryFromField;
+    private JTextField balanceHistoryToField;
+    private JLabel balanceHistoryResultLabel;
+    private final List<DependentView> dependentViews = new ArrayList<>(); // Views and the changes they depend on / Vues et les changements dont elles dépendent
 
     // Transaction input fields / Champs de saisie de transaction
     private JTextField descriptionField;
@@ -121,16 +170,45 @@ public class BeyahCompta extends JFrame { // JFrame already implements Serializa
     private JComboBox<String> accountComboBox;
 
     // --- Application Data / Données de l'application ---
-    private List<Transaction> transactions;
-    private Map<String, Double> accountBalances;
-    private Map<TransactionCategory, Double> budgets; // Using enum for keys
+    // Rows, indexes, totals, balances and budgets: written on the EDT, read from any thread through snapshots
+    // Lignes, index, totaux, soldes et budgets : écrits sur l'EDT, lus depuis n'importe quel thread au moyen d'instantanés
+    private final Ledger ledger;
+    private final AccountRegistry accounts = AccountRegistry.SHARED; // Account names, balances changed by the ledger / Noms des comptes, soldes modifiés par le grand livre
+
+    // Background query pipeline for the table / Pipeline de requêtes en arrière-plan pour le tableau
+    private final ExecutorService queryExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "BeyahCompta-query");
+        t.setDaemon(true);
+        return t;
+    });
+    private Future<?> pendingQuery; // In-flight table query, EDT only / Requête du tableau en cours, EDT uniquement
+    private long queryGeneration; // Incremented for each submitted query, EDT only / Incrémenté à chaque requête soumise, EDT uniquement
+    private LedgerJournal journal; // Null if the journal could not be opened / Null si le journal n'a pas pu être ouvert
+    private int skippedJournalRecords; // Replayed records whose month could not be read, kept in the journal / Enregistrements rejoués dont le mois n'a pas pu être lu, gardés dans le journal
+
+    // Debounced autosave: a burst of mutations leads to a single save, written in the background
+    // Sauvegarde automatique différée : une rafale de mutations conduit à une seule sauvegarde, écrite en arrière-plan
+    private final Timer autosaveTimer = new Timer(AUTOSAVE_DELAY_MS, _e -> autosave());
+    private final ExecutorService saveExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "BeyahCompta-save");
+        t.setDaemon(true);
+        return t;
+    });
+    private Future<?> pendingSave; // In-flight autosave, EDT only / Sauvegarde automatique en cours, EDT uniquement
+
+    private LedgerApi api; // Optional HTTP API, served from ledger snapshots / API HTTP optionnelle, servie depuis des instantanés du grand livre
+    private final LedgerStore store; // Monthly segments, older months stay on disk until needed / Segments mensuels, les mois anciens restent sur disque jusqu'à leur utilisation
+    private SwingWorker<?, ?> historyLoader; // Months being read in the background, EDT only / Mois en cours de lecture en arrière-plan, EDT uniquement
 
     // File paths for persistence / Chemins de fichiers pour la persistance
     private final String dataDirPath;
     private final String transactionsFileSer;
+    private final String transactionsFileBin;
+    private final String transactionsFileBinBackup;
     private final String balancesAndBudgetsFileSer;
     private final String transactionsFileSerBackup;
     private final String balancesAndBudgetsFileSerBackup;
+    private final String journalFile;
 
 
     // --- UI Colors and Fonts (Material Design inspired) / Couleurs et polices de l'interface (inspirées du Material Design) ---
@@ -152,41 +230,42 @@ public class BeyahCompta extends JFrame { // JFrame already implements Serializa
 
     /**
      * Constructor for the BeyahCompta application.
-     * Initializes UI, loads data, and sets up event listeners.
+     * Initializes UI, sets up event listeners and starts loading the data in the background:
+     * the window shows up at once, whatever the size of the ledger.
      *
      * <p>Constructeur de l'application BeyahCompta.
-     * Initialise l'interface utilisateur, charge les données et configure les écouteurs d'événements.</p>
+     * Initialise l'interface utilisateur, configure les écouteurs d'événements et lance le chargement
+     * des données en arrière-plan : la fenêtre s'affiche aussitôt, quelle que soit la taille du grand livre.</p>
      */
     public BeyahCompta() {
         // Initialize file paths for persistence / Initialisation des chemins de fichiers pour la persistance
         String userHome = System.getProperty("user.home");
         this.dataDirPath = userHome + File.separator + DATA_DIR_NAME;
         this.transactionsFileSer = this.dataDirPath + File.separator + TRANSACTIONS_FILE_SER;
+        this.transactionsFileBin = this.dataDirPath + File.separator + TRANSACTIONS_FILE_BIN;
+        this.transactionsFileBinBackup = this.transactionsFileBin + BACKUP_EXTENSION;
         this.balancesAndBudgetsFileSer = this.dataDirPath + File.separator + BALANCES_AND_BUDGETS_FILE_SER;
         this.transactionsFileSerBackup = this.transactionsFileSer + BACKUP_EXTENSION;
         this.balancesAndBudgetsFileSerBackup = this.balancesAndBudgetsFileSer + BACKUP_EXTENSION;
+        this.journalFile = this.dataDirPath + File.separator + JOURNAL_FILE;
+        this.store = new LedgerStore(Paths.get(this.dataDirPath, SEGMENTS_DIR));
+
+        autosaveTimer.setRepeats(false); // Restarted by each mutation / Relancé par chaque mutation
 
         // Create data directory if it doesn't exist / Créer le répertoire de données s'il n'existe pas
         new File(this.dataDirPath).mkdirs();
 
-        this.transactions = new ArrayList<>();
-        this.accountBalances = new HashMap<>();
-        this.budgets = new HashMap<>();
+        this.ledger = new Ledger(store);
 
         // Initialize default account balances if no balance file exists
         // Initialiser les soldes des comptes par défaut si aucun fichier de solde n'existe
-        this.accountBalances.put(DEFAULT_ACCOUNT_CASH, 0.0);
-        this.accountBalances.put(DEFAULT_ACCOUNT_BANK, 0.0);
-        this.accountBalances.put(DEFAULT_ACCOUNT_SAVINGS, 0.0);
+        this.accounts.register(DEFAULT_ACCOUNT_CASH);
+        this.accounts.register(DEFAULT_ACCOUNT_BANK);
+        this.accounts.register(DEFAULT_ACCOUNT_SAVINGS);
 
         // Initialize default budgets for each category
         // Initialiser les budgets par défaut pour chaque catégorie
-        Arrays.stream(TransactionCategory.values())
-              .filter(cat -> cat != TransactionCategory.SALAIRE) // Salary is an income, not typically budgeted
-              .forEach(cat -> this.budgets.putIfAbsent(cat, 0.0));
-
-        // Load persistent data at startup / Charger les données persistantes au démarrage
-        loadData();
+        this.ledger.putBudgetsIfAbsent(EnumSet.complementOf(EnumSet.of(TransactionCategory.SALAIRE))); // Salary is an income, not typically budgeted
 
         setTitle(APP_TITLE);
         setSize(1200, 800);
@@ -229,7 +308,7 @@ public class BeyahCompta extends JFrame { // JFrame already implements Serializa
         appTitleLabel.setForeground(Color.WHITE);
         topPanel.add(appTitleLabel, BorderLayout.WEST);
 
-        soldeGlobalLabel = new JLabel("Solde Global: " + formatCurrency(getGlobalBalance()));
+        soldeGlobalLabel = new JLabel(MSG_LOADING);
         soldeGlobalLabel.setFont(HEADER_FONT.deriveFont(Font.BOLD, 30));
         soldeGlobalLabel.setForeground(Color.WHITE);
         soldeGlobalLabel.setHorizontalAlignment(SwingConstants.RIGHT);
@@ -254,18 +333,140 @@ public class BeyahCompta extends JFrame { // JFrame already implements Serializa
         tabbedPane.addTab(TAB_TRANSACTIONS, createTransactionsPanel());
         tabbedPane.addTab(TAB_REPORTS, createReportsPanel());
 
-        updateUI(null); // Initialize display. Pass null for the ActionEvent since it's an initial call.
+        // Declare what each view depends on / Déclarer ce dont dépend chaque vue
+        registerView(this::updateTableDisplay, UiChange.LEDGER, UiChange.FILTER);
+        registerView(this::updateLoadHistoryButton, UiChange.LEDGER);
+        registerView(this::updateGlobalBalanceLabel, UiChange.BALANCES);
+        registerView(this::updateAccountBalancesDisplay, UiChange.BALANCES);
+        registerView(this::updateReportSummary, UiChange.LEDGER);
+        registerView(this::updateBudgetSummaryUI, UiChange.LEDGER, UiChange.BUDGETS);
+        registerView(this::updatePieChartData, UiChange.LEDGER);
+        registerView(this::updateBalanceHistoryAccounts, UiChange.BALANCES);
+
+        setLedgerControlsEnabled(false); // Until the ledger is loaded / Jusqu'au chargement du grand livre
 
         // Save data when the application closes / Sauvegarder les données à la fermeture de l'application
         addWindowListener(new WindowAdapter() {
             @Override
             public void windowClosing(WindowEvent _e) { // Use _ for unused parameter / Utiliser _ pour le paramètre non utilisé
-                saveData();
+                autosaveTimer.stop();
+                if (api != null) {
+                    api.close();
+                }
+                if (ledgerLoaded) { // A partial ledger must not overwrite the files / Un grand livre partiel ne doit pas écraser les fichiers
+                    saveData();
+                }
+                closeJournal();
             }
         });
 
         // Make the JFrame visible / Rendre la JFrame visible
         setVisible(true); // <--- Ligne ajoutée
+
+        // Load persistent data at startup / Charger les données persistantes au démarrage
+        loadLedgerInBackground();
+    }
+
+    /**
+     * Loads the ledger on a background thread while the window is already shown. The loaded rows are
+     * displayed page by page while the search index is built; the journal is then replayed on the same
+     * thread, since the ledger is neither shown whole nor editable yet, and every view is refreshed on the EDT.
+     *
+     * <p>Charge le grand livre sur un thread d'arrière-plan alors que la fenêtre est déjà affichée. Les
+     * lignes chargées sont affichées page par page pendant la construction de l'index de recherche ; le
+     * journal est ensuite rejoué sur le même thread, puisque le grand livre n'est encore ni affiché en
+     * entier ni modifiable, et toutes les vues sont rafraîchies sur l'EDT.</p>
+     */
+    private void loadLedgerInBackground() {
+        List<Transaction> loadedRows = new ArrayList<>(); // Pages received so far, EDT only / Pages reçues jusqu'ici, EDT uniquement
+        List<Transaction> loadedView = Collections.unmodifiableList(loadedRows);
+        new SwingWorker<LedgerJournal, List<Transaction>>() {
+            private boolean finished; // Pages may still be delivered after done() / Des pages peuvent encore arriver après done()
+
+            @Override
+            protected LedgerJournal doInBackground() {
+                // This thread writes the ledger until done() / Ce thread écrit le grand livre jusqu'à done()
+                loadData();
+                Ledger.Rows loaded = ledger.snapshot();
+                for (int from = 0; from < loaded.size(); from += LOADING_PAGE_SIZE) {
+                    publish(loaded.subList(from, Math.min(from + LOADING_PAGE_SIZE, loaded.size())));
+                }
+                ledger.rebuildIndexes(); // The replay finds rows by ID / Le rejeu trouve les lignes par ID
+                return openJournal(); // Replay the mutations made since the last save / Rejouer les mutations faites depuis la dernière sauvegarde
+            }
+
+            @Override
+            protected void process(List<List<Transaction>> pages) {
+                if (finished) {
+                    return;
+                }
+                for (List<Transaction> page : pages) {
+                    loadedRows.addAll(page);
+                }
+                tableModel.showPrefix(loadedView, loadedRows.size()); // Only the new page is announced / Seule la nouvelle page est annoncée
+                soldeGlobalLabel.setText(MSG_LOADING + " " + loadedRows.size() + " transactions");
+            }
+
+            @Override
+            protected void done() {
+                finished = true;
+                try {
+                    journal = get();
+                } catch (ExecutionException ex) {
+                    System.err.println("Erreur lors du chargement des données: " + ex.getCause().getMessage());
+                    ex.getCause().printStackTrace();
+                    soldeGlobalLabel.setText("Erreur de chargement");
+                    JOptionPane.showMessageDialog(BeyahCompta.this, MSG_ERROR_LOAD + ex.getCause().getMessage(), "Erreur", JOptionPane.ERROR_MESSAGE);
+                    return;
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (skippedJournalRecords > 0) {
+                    JOptionPane.showMessageDialog(BeyahCompta.this, skippedJournalRecords + MSG_WARNING_JOURNAL_SKIPPED, "Avertissement", JOptionPane.WARNING_MESSAGE);
+                }
+                ledgerLoaded = true;
+                accountComboBox.setModel(new DefaultComboBoxModel<>(accounts.displayNames())); // Loaded accounts / Comptes chargés
+                setLedgerControlsEnabled(true);
+                updateUI(EnumSet.allOf(UiChange.class)); // Initialize display / Initialiser l'affichage
+                if (journalNeedsCompaction()) { // Fold a long replay into the segments right away / Intégrer sans attendre un long rejeu aux segments
+                    autosave();
+                }
+                startApi();
+            }
+        }.execute();
+    }
+
+    /**
+     * Starts the local HTTP API if the {@value #API_PORT_PROPERTY} system property gives a port.
+     *
+     * <p>Démarre l'API HTTP locale si la propriété système {@value #API_PORT_PROPERTY} donne un port.</p>
+     */
+    private void startApi() {
+        String port = System.getProperty(API_PORT_PROPERTY);
+        if (port == null) {
+            return;
+        }
+        try {
+            api = LedgerApi.start(Integer.parseInt(port.trim()), ledger);
+            System.out.println("API disponible sur http://127.0.0.1:" + api.getPort() + "/api/");
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Impossible de démarrer l'API sur le port " + port + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Enables or disables the controls that read or change the ledger.
+     *
+     * <p>Active ou désactive les contrôles qui lisent ou modifient le grand livre.</p>
+     *
+     * @param enabled True to enable them. / Vrai pour les activer.
+     */
+    private void setLedgerControlsEnabled(boolean enabled) {
+        for (JComponent control : ledgerControls) {
+            control.setEnabled(enabled);
+        }
     }
 
     /**
@@ -350,7 +551,7 @@ public class BeyahCompta extends JFrame { // JFrame already implements Serializa
 
         // Account / Compte
         gbc.gridy++;
-        addLabeledComponent(inputPanel, LABEL_ACCOUNT, accountComboBox = new JComboBox<>(accountBalances.keySet().toArray(new String[0])), gbc);
+        addLabeledComponent(inputPanel, LABEL_ACCOUNT, accountComboBox = new JComboBox<>(accounts.displayNames()), gbc);
 
         // Transaction Type / Type de transaction
         gbc.gridy++;
@@ -387,6 +588,7 @@ public class BeyahCompta extends JFrame { // JFrame already implements Serializa
 
         // Action Listener for Add Transaction Button / Écouteur d'action pour le bouton Ajouter Transaction
         addTransactionButton.addActionListener(this::onAddTransaction);
+        ledgerControls.add(addTransactionButton);
 
         return inputPanel;
     }
@@ -435,16 +637,22 @@ public class BeyahCompta extends JFrame { // JFrame already implements Serializa
         }
 
         try {
-            double montant = Double.parseDouble(montantText);
+            long montant = LedgerFormat.parseCents(montantText); // Exact, in cents / Exact, en centimes
             if (montant <= 0) {
                 JOptionPane.showMessageDialog(this, MSG_WARNING_POSITIVE_AMOUNT, "Erreur de saisie", JOptionPane.WARNING_MESSAGE);
                 return;
             }
 
             Transaction newTransaction = new Transaction(account, type, category, description, montant);
-            transactions.add(newTransaction);
-            updateAccountBalance(account, type, montant);
-            updateUI(null); // Call updateUI with a null ActionEvent
+            if (!markMonthChangedOrWarn(newTransaction.getDate())) {
+                return;
+            }
+            ledger.add(newTransaction);
+            if (journal != null) {
+                journal.recordAdd(newTransaction);
+            }
+            scheduleAutosave();
+            updateUI(EnumSet.of(UiChange.LEDGER, UiChange.BALANCES));
             clearTransactionFields();
 
         } catch (NumberFormatException ex) {
@@ -509,6 +717,16 @@ public class BeyahCompta extends JFrame { // JFrame already implements Serializa
         applyFilterButton.setCursor(new Cursor(Cursor.HAND_CURSOR));
         applyHoverEffect(applyFilterButton, SECONDARY_COLOR, SECONDARY_COLOR.brighter());
         filterPanel.add(applyFilterButton);
+
+        loadHistoryButton = new JButton(BUTTON_LOAD_HISTORY);
+        loadHistoryButton.setFont(LABEL_FONT);
+        loadHistoryButton.setForeground(Color.WHITE);
+        loadHistoryButton.setFocusPainted(false);
+        loadHistoryButton.setBorder(BorderFactory.createEmptyBorder(10, 20, 10, 20));
+        loadHistoryButton.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        Color loadHistoryButtonColor = new Color(127, 140, 141); // Same grey as import / Même gris que l'importation
+        applyHoverEffect(loadHistoryButton, loadHistoryButtonColor, loadHistoryButtonColor.brighter());
+        filterPanel.add(loadHistoryButton);
         topTablePanel.add(filterPanel, BorderLayout.WEST);
 
         JPanel searchPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 15, 8));
@@ -532,20 +750,8 @@ public class BeyahCompta extends JFrame { // JFrame already implements Serializa
 
 
         // Transactions Table / Tableau des transactions
-        String[] columnNames = {"ID", "Date", "Compte", "Type", "Catégorie", "Description", "Montant"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-            // Ensure proper column class for sorting and rendering / Assurer une classe de colonne appropriée pour le tri et le rendu
-            @Override
-            public Class<?> getColumnClass(int columnIndex) {
-                return columnIndex == 0 ? Long.class : // ID
-                       columnIndex == 6 ? Double.class : // Montant
-                       Object.class;
-            }
-        };
+        String[] columnNames = {"ID", "Date", "Compte", "Type", "Catégorie", "Description", "Montant", "Solde après"};
+        tableModel = new TransactionTableModel(columnNames);
         transactionsTable = new JTable(tableModel);
         transactionsTable.setFont(DATA_FONT);
         transactionsTable.setRowHeight(30);
@@ -561,9 +767,8 @@ public class BeyahCompta extends JFrame { // JFrame already implements Serializa
             @Override
             public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
                 Component c = super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
-                // Cast to String, then to Enum for type check / Convertir en String, puis en Enum pour la vérification de type
-                String typeString = (String) table.getModel().getValueAt(row, 3);
-                TransactionType type = TransactionType.fromString(typeString);
+                // Read the enum straight from the model row / Lire l'énumération directement depuis la ligne du modèle
+                TransactionType type = tableModel.getTransactionAt(row).getType();
                 if (type == TransactionType.CREDIT) {
                     c.setForeground(ACCENT_COLOR_POSITIVE);
                 } else {
@@ -574,6 +779,23 @@ public class BeyahCompta extends JFrame { // JFrame already implements Serializa
                 return c;
             }
         });
+        // Balance of the account after the transaction, in date order / Solde du compte après la transaction, dans l'ordre des dates
+        transactionsTable.getColumnModel().getColumn(7).setCellRenderer(new DefaultTableCellRenderer() {
+            @Override
+            protected void setValue(Object value) {
+                long balance = (Long) value;
+                setText(formatCurrency(balance));
+                setForeground(balance < 0 ? ACCENT_COLOR_NEGATIVE : TEXT_COLOR_DARK);
+            }
+
+            @Override
+            public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
+                Component c = super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+                setHorizontalAlignment(SwingConstants.RIGHT);
+                setFont(MONETARY_FONT);
+                return c;
+            }
+        });
         // Adjust ID column width / Ajuster la largeur de la colonne ID
         transactionsTable.getColumnModel().getColumn(0).setMaxWidth(50);
         transactionsTable.getColumnModel().getColumn(0).setPreferredWidth(50);
@@ -610,6 +832,16 @@ public class BeyahCompta extends JFrame { // JFrame already implements Serializa
         applyHoverEffect(deleteButton, ACCENT_COLOR_NEGATIVE, ACCENT_COLOR_NEGATIVE.brighter());
         transactionActionsPanel.add(deleteButton);
 
+        JButton importButton = new JButton(BUTTON_IMPORT_CSV);
+        importButton.setFont(LABEL_FONT);
+        importButton.setForeground(Color.WHITE);
+        importButton.setFocusPainted(false);
+        importButton.setBorder(BorderFactory.createEmptyBorder(12, 25, 12, 25));
+        importButton.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        Color importButtonColor = new Color(127, 140, 141); // Custom dark grey for import / Gris foncé personnalisé pour importer
+        applyHoverEffect(importButton, importButtonColor, importButtonColor.brighter());
+        transactionActionsPanel.add(importButton);
+
         JButton exportButton = new JButton(BUTTON_EXPORT_CSV);
         exportButton.setFont(LABEL_FONT);
         exportButton.setForeground(Color.WHITE);
@@ -621,12 +853,17 @@ public class BeyahCompta extends JFrame { // JFrame already implements Serializa
         transactionActionsPanel.add(exportButton);
 
         // Action Listeners for management buttons / Écouteurs d'action pour les boutons de gestion
-        applyFilterButton.addActionListener(this::updateUI);
-        searchButton.addActionListener(this::updateUI);
-        searchField.addActionListener(this::updateUI);
+        applyFilterButton.addActionListener(_e -> updateUI(EnumSet.of(UiChange.FILTER)));
+        searchButton.addActionListener(_e -> updateUI(EnumSet.of(UiChange.FILTER)));
+        searchField.addActionListener(_e -> updateUI(EnumSet.of(UiChange.FILTER)));
+        loadHistoryButton.addActionListener(_e -> loadHistory(store.getUnloadedSummaries()));
+        loadHistoryButton.setVisible(false); // Shown once the ledger is loaded, if needed / Affiché une fois le grand livre chargé, si nécessaire
+        ledgerControls.addAll(Arrays.asList(applyFilterButton, searchButton, searchField, loadHistoryButton,
+                editButton, deleteButton, importButton, exportButton));
 
         editButton.addActionListener(this::editTransaction);
         deleteButton.addActionListener(this::deleteSelectedTransaction);
+        importButton.addActionListener(this::importTransactionsFromCSV);
         exportButton.addActionListener(this::exportTransactionsToCSV);
 
         return displayPanel;
@@ -669,7 +906,7 @@ public class BeyahCompta extends JFrame { // JFrame already implements Serializa
         totalCreditTitle.setForeground(TEXT_COLOR_DARK);
         totalSummary.add(totalCreditTitle);
 
-        totalCreditLabel = new JLabel(formatCurrency(0.0), SwingConstants.CENTER);
+        totalCreditLabel = new JLabel(formatCurrency(0), SwingConstants.CENTER);
         totalCreditLabel.setFont(MONETARY_FONT.deriveFont(Font.BOLD, 26));
         totalCreditLabel.setForeground(ACCENT_COLOR_POSITIVE);
         totalSummary.add(totalCreditLabel);
@@ -679,7 +916,7 @@ public class BeyahCompta extends JFrame { // JFrame already implements Serializa
         totalDebitTitle.setForeground(TEXT_COLOR_DARK);
         totalSummary.add(totalDebitTitle);
 
-        totalDebitLabel = new JLabel(formatCurrency(0.0), SwingConstants.CENTER);
+        totalDebitLabel = new JLabel(formatCurrency(0), SwingConstants.CENTER);
         totalDebitLabel.setFont(MONETARY_FONT.deriveFont(Font.BOLD, 26));
         totalDebitLabel.setForeground(ACCENT_COLOR_NEGATIVE);
         totalSummary.add(totalDebitLabel);
@@ -740,26 +977,147 @@ public class BeyahCompta extends JFrame { // JFrame already implements Serializa
         mainReportContent.add(pieChartPanel);
 
         panel.add(mainReportContent, BorderLayout.CENTER);
+        panel.add(createBalanceHistoryPanel(), BorderLayout.SOUTH);
 
         manageBudgetsButton.addActionListener(this::showBudgetManagementDialog);
+        ledgerControls.add(manageBudgetsButton);
 
         return panel;
     }
 
+    /**
+     * Creates the panel that gives the balance of an account at a date and its net flow over a period,
+     * read from the balance history of the ledger.
+     *
+     * <p>Crée le panneau qui donne le solde d'un compte à une date et son flux net sur une période, lus
+     * dans l'historique des soldes du grand livre.</p>
+     */
+    private JPanel createBalanceHistoryPanel() {
+        JPanel historyPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 12, 5));
+        historyPanel.setBackground(PANEL_BACKGROUND_COLOR);
+        historyPanel.setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createTitledBorder(BorderFactory.createLineBorder(new Color(220, 220, 220)), REPORT_BALANCE_HISTORY_TITLE,
+                        javax.swing.border.TitledBorder.LEFT, javax.swing.border.TitledBorder.TOP, SUBHEADER_FONT, TEXT_COLOR_DARK),
+                new EmptyBorder(5, 10, 5, 10)
+        ));
+
+        LocalDate today = LocalDate.now();
+        balanceHistoryAccountComboBox = new JComboBox<>(accounts.displayNames());
+        balanceHistoryFromField = new JTextField(LedgerFormat.formatDate(today.withDayOfMonth(1)), 9); // Start of the month / Début du mois
+        balanceHistoryToField = new JTextField(LedgerFormat.formatDate(today), 9);
+        addBalanceHistoryField(historyPanel, LABEL_ACCOUNT, balanceHistoryAccountComboBox);
+        addBalanceHistoryField(historyPanel, LABEL_FROM, balanceHistoryFromField);
+        addBalanceHistoryField(historyPanel, LABEL_TO, balanceHistoryToField);
+
+        JButton computeButton = new JButton(BUTTON_COMPUTE_BALANCE);
+        computeButton.setFont(LABEL_FONT);
+        computeButton.setForeground(Color.WHITE);
+        computeButton.setFocusPainted(false);
+        computeButton.setBorder(BorderFactory.createEmptyBorder(8, 20, 8, 20));
+        computeButton.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        applyHoverEffect(computeButton, SECONDARY_COLOR, SECONDARY_COLOR.darker());
+        computeButton.addActionListener(_e -> computeBalanceHistory());
+        historyPanel.add(computeButton);
+        ledgerControls.add(computeButton);
+
+        balanceHistoryResultLabel = new JLabel(" ");
+        balanceHistoryResultLabel.setFont(MONETARY_FONT);
+        balanceHistoryResultLabel.setForeground(TEXT_COLOR_DARK);
+        historyPanel.add(balanceHistoryResultLabel);
+        return historyPanel;
+    }
+
+    private void addBalanceHistoryField(JPanel panel, String labelText, JComponent field) {
+        JLabel label = new JLabel(labelText);
+        label.setFont(LABEL_FONT);
+        label.setForeground(TEXT_COLOR_DARK);
+        panel.add(label);
+        field.setFont(DATA_FONT);
+        panel.add(field);
+    }
+
+    /**
+     * Computes the balance of the chosen account at the end date and its net flow over the period, in the
+     * background since a month still on disk may have to be read.
+     *
+     * <p>Calcule le solde du compte choisi à la date de fin et son flux net sur la période, en arrière-plan
+     * car un mois encore sur disque peut devoir être lu.</p>
+     */
+    private void computeBalanceHistory() {
+        String account = (String) balanceHistoryAccountComboBox.getSelectedItem();
+        LocalDate from;
+        LocalDate to;
+        try {
+            from = LedgerFormat.parseDate(balanceHistoryFromField.getText());
+            to = LedgerFormat.parseDate(balanceHistoryToField.getText());
+        } catch (DateTimeParseException ex) {
+            JOptionPane.showMessageDialog(this, MSG_ERROR_INVALID_DATE, "Erreur de saisie", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        if (account == null) {
+            JOptionPane.showMessageDialog(this, MSG_WARNING_EMPTY_FIELDS, "Erreur de saisie", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        if (to.isBefore(from)) {
+            JOptionPane.showMessageDialog(this, MSG_WARNING_DATE_ORDER, "Erreur de saisie", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        new SwingWorker<long[], Void>() {
+            @Override
+            protected long[] doInBackground() throws Exception {
+                return new long[] {ledger.balanceAt(account, to), ledger.netFlow(account, from, to)};
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    long[] result = get();
+                    balanceHistoryResultLabel.setText("Solde au " + LedgerFormat.formatDate(to) + " : " + formatCurrency(result[0])
+                            + "   Flux net du " + LedgerFormat.formatDate(from) + " au " + LedgerFormat.formatDate(to) + " : " + formatCurrency(result[1]));
+                    balanceHistoryResultLabel.setForeground(result[0] < 0 ? ACCENT_COLOR_NEGATIVE : TEXT_COLOR_DARK);
+                } catch (ExecutionException ex) {
+                    balanceHistoryResultLabel.setText(" ");
+                    JOptionPane.showMessageDialog(BeyahCompta.this, ex.getCause().getMessage(), "Erreur", JOptionPane.ERROR_MESSAGE);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Keeps the accounts of the balance history panel in step with the registry, keeping the selection.
+     *
+     * <p>Garde les comptes du panneau d'historique des soldes à jour avec le registre, en conservant la sélection.</p>
+     */
+    private void updateBalanceHistoryAccounts() {
+        String[] names = accounts.displayNames();
+        if (names.length == balanceHistoryAccountComboBox.getItemCount()) {
+            return;
+        }
+        Object selected = balanceHistoryAccountComboBox.getSelectedItem();
+        balanceHistoryAccountComboBox.setModel(new DefaultComboBoxModel<>(names));
+        if (selected != null) {
+            balanceHistoryAccountComboBox.setSelectedItem(selected);
+        }
+    }
+
     /**
      * Displays a dialog for managing category budgets.
      *
      * <p>Affiche une boîte de dialogue pour gérer les budgets par catégorie.</p>
      */
     private void showBudgetManagementDialog(ActionEvent e) { // Added ActionEvent parameter
-        // Collect all unique categories from transactions and default budgets
-        // Recueillir toutes les catégories uniques des transactions et des budgets par défaut
-        Set<TransactionCategory> allCategories = budgets.keySet().stream().collect(Collectors.toSet());
-        transactions.stream()
-                .map(Transaction::getCategory)
-                .forEach(allCategories::add);
-
-        allCategories.remove(TransactionCategory.SALAIRE); // Salary is not budgetable / Le salaire n'est pas budgétisable
+        CategoryStats categoryStats = ledger.getCategoryStats(LocalDate.now());
+        // Categories with a budget or used by transactions, in display order
+        // Catégories ayant un budget ou utilisées par des transactions, dans l'ordre d'affichage
+        List<TransactionCategory> categoriesToBudget = new ArrayList<>();
+        for (TransactionCategory category : CategoryStats.displayOrder()) {
+            if (category != TransactionCategory.SALAIRE // Salary is not budgetable / Le salaire n'est pas budgétisable
+                    && (categoryStats.hasBudget(category) || categoryStats.getTransactionCount(category) > 0)) {
+                categoriesToBudget.add(category);
+            }
+        }
 
         JPanel budgetDialogPanel = new JPanel(new GridBagLayout());
         GridBagConstraints gbc = new GridBagConstraints();
@@ -768,8 +1126,6 @@ public class BeyahCompta extends JFrame { // JFrame already implements Serializa
         gbc.anchor = GridBagConstraints.WEST;
 
         List<JTextField> budgetFields = new ArrayList<>();
-        List<TransactionCategory> categoriesToBudget = new ArrayList<>(allCategories);
-        categoriesToBudget.sort(Comparator.comparing(Enum::toString)); // Sort for consistent order / Trier pour un ordre cohérent
 
         int row = 0;
         for (TransactionCategory category : categoriesToBudget) {
@@ -779,7 +1135,7 @@ public class BeyahCompta extends JFrame { // JFrame already implements Serializa
             gbc.gridy = row;
             budgetDialogPanel.add(categoryLabel, gbc);
 
-            JTextField budgetField = new JTextField(formatAmountNoCurrency(budgets.getOrDefault(category, 0.0)), 15);
+            JTextField budgetField = new JTextField(formatAmountNoCurrency(categoryStats.getBudget(category)), 15);
             budgetField.setFont(DATA_FONT);
             budgetFields.add(budgetField);
             gbc.gridx = 1;
@@ -796,14 +1152,18 @@ public class BeyahCompta extends JFrame { // JFrame already implements Serializa
                 for (int i = 0; i < categoriesToBudget.size(); i++) {
                     TransactionCategory category = categoriesToBudget.get(i);
                     String budgetText = budgetFields.get(i).getText().trim();
-                    double newBudget = Double.parseDouble(budgetText);
+                    long newBudget = LedgerFormat.parseCents(budgetText);
                     if (newBudget < 0) {
                         JOptionPane.showMessageDialog(this, MSG_WARNING_BUDGET_POSITIVE, "Erreur de saisie", JOptionPane.WARNING_MESSAGE);
                         return; // Stop processing and let user correct / Arrêter le traitement et laisser l'utilisateur corriger
                     }
-                    budgets.put(category, newBudget);
+                    ledger.setBudget(category, newBudget);
+                    if (journal != null) {
+                        journal.recordBudget(category, newBudget);
+                    }
                 }
-                updateUI(null); // Call updateUI with a null ActionEvent
+                scheduleAutosave();
+                updateUI(EnumSet.of(UiChange.BUDGETS)); // Only the budget panel depends on budgets / Seul le panneau budgétaire dépend des budgets
                 JOptionPane.showMessageDialog(this, MSG_SUCCESS_BUDGET_UPDATED, "Succès", JOptionPane.INFORMATION_MESSAGE);
             } catch (NumberFormatException ex) {
                 JOptionPane.showMessageDialog(this, MSG_ERROR_INVALID_BUDGET_AMOUNT, "Erreur de saisie", JOptionPane.ERROR_MESSAGE);
@@ -816,29 +1176,10 @@ public class BeyahCompta extends JFrame { // JFrame already implements Serializa
      *
      * <p>Calcule le solde global de tous les comptes.</p>
      *
-     * @return The total global balance. / Le solde global total.
-     */
-    private double getGlobalBalance() {
-        return accountBalances.values().stream().mapToDouble(Double::doubleValue).sum();
-    }
-
-    /**
-     * Updates the balance of a specific account based on a transaction.
-     *
-     * <p>Met à jour le solde d'un compte spécifique en fonction d'une transaction.</p>
-     *
-     * @param account The name of the account. / Le nom du compte.
-     * @param type The type of transaction (DEBIT or CREDIT). / Le type de transaction (DÉBIT ou CRÉDIT).
-     * @param amount The amount of the transaction. / Le montant de la transaction.
+     * @return The total global balance in cents. / Le solde global total en centimes.
      */
-    private void updateAccountBalance(String account, TransactionType type, double amount) {
-        double currentBalance = accountBalances.getOrDefault(account, 0.0);
-        if (type == TransactionType.DEBIT) {
-            currentBalance -= amount;
-        } else { // type == TransactionType.CREDIT
-            currentBalance += amount;
-        }
-        accountBalances.put(account, currentBalance);
+    private long getGlobalBalance() {
+        return accounts.totalBalance();
     }
 
     /**
@@ -855,56 +1196,197 @@ public class BeyahCompta extends JFrame { // JFrame already implements Serializa
     }
 
     /**
-     * Updates the entire User Interface, including the transaction table, global balance label,
-     * account balances panel, budget summary, and pie chart.
+     * Registers a view refresh together with the kinds of change it depends on.
      *
-     * <p>Met à jour l'intégralité de l'interface utilisateur, y compris le tableau des transactions,
-     * l'étiquette du solde global, le panneau des soldes de compte, le résumé budgétaire et le graphique circulaire.</p>
+     * <p>Enregistre le rafraîchissement d'une vue avec les types de changement dont elle dépend.</p>
+     *
+     * @param refresh The refresh action. / L'action de rafraîchissement.
+     * @param first The first change it depends on. / Le premier changement dont elle dépend.
+     * @param rest Other changes it depends on. / Les autres changements dont elle dépend.
+     */
+    private void registerView(Runnable refresh, UiChange first, UiChange... rest) {
+        dependentViews.add(new DependentView(EnumSet.of(first, rest), refresh));
+    }
+
+    /**
+     * Updates the parts of the User Interface affected by the given changes: the transaction table,
+     * global balance label, account balances panel, budget summary, and pie chart each refresh only
+     * if they depend on one of them.
+     *
+     * <p>Met à jour les parties de l'interface utilisateur concernées par les changements donnés : le
+     * tableau des transactions, l'étiquette du solde global, le panneau des soldes de compte, le résumé
+     * budgétaire et le graphique circulaire ne se rafraîchissent que s'ils dépendent de l'un d'eux.</p>
+     *
+     * @param changes What changed since the last refresh. / Ce qui a changé depuis le dernier rafraîchissement.
      */
-    private void updateUI(ActionEvent e) { // Added ActionEvent parameter
-        updateTableDisplay();
-        updateGlobalBalanceLabel();
-        updateAccountBalancesDisplay();
-        updateReportSummary();
-        updateBudgetSummaryUI();
-        updatePieChartData();
+    private void updateUI(Set<UiChange> changes) {
+        for (DependentView view : dependentViews) {
+            if (!Collections.disjoint(view.dependsOn, changes)) {
+                view.refresh.run();
+            }
+        }
     }
 
     /**
      * Updates the transaction table display based on current filters and search text.
+     * The filtering runs on a background thread against a snapshot of the ledger; a newer call cancels
+     * the query still in flight, and only the final model swap is published back to the EDT. A filter
+     * or a search also covers the months still on disk: once the rows in memory are shown, those months
+     * are streamed through the same query and the matching rows shown with them, without loading any
+     * month into the ledger.
      *
      * <p>Met à jour l'affichage du tableau des transactions en fonction des filtres
-     * et du texte de recherche actuels.</p>
+     * et du texte de recherche actuels. Le filtrage s'exécute sur un thread d'arrière-plan sur un
+     * instantané du grand livre ; un appel plus récent annule la requête encore en cours, et seul
+     * le remplacement final du modèle est publié sur l'EDT. Un filtre ou une recherche couvre aussi
+     * les mois encore sur disque : une fois les lignes en mémoire affichées, ces mois sont parcourus
+     * en flux par la même requête et les lignes correspondantes affichées avec elles, sans charger
+     * aucun mois dans le grand livre.</p>
      */
     private void updateTableDisplay() {
-        tableModel.setRowCount(0); // Clear existing rows / Effacer les lignes existantes
-
         String selectedTypeFilter = (String) filterTypeComboBox.getSelectedItem();
         String selectedCategoryFilter = (String) filterCategoryComboBox.getSelectedItem();
-        String searchText = searchField.getText().trim().toLowerCase();
-
-        // Filter transactions / Filtrer les transactions
-        List<Transaction> filteredTransactions = transactions.stream()
-                .filter(t -> "Tous Types".equals(selectedTypeFilter) || t.getType().toString().equals(selectedTypeFilter))
-                .filter(t -> "Toutes Catégories".equals(selectedCategoryFilter) || t.getCategory().toString().toLowerCase().contains(selectedCategoryFilter.toLowerCase()))
-                .filter(t -> searchText.isEmpty() ||
-                             t.getDescription().toLowerCase().contains(searchText) ||
-                             t.getAccount().toLowerCase().contains(searchText) ||
-                             t.getCategory().toString().toLowerCase().contains(searchText))
-                .collect(Collectors.toList());
-
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
-        for (Transaction t : filteredTransactions) {
-            tableModel.addRow(new Object[]{
-                    t.getId(),
-                    t.getDate().format(formatter),
-                    t.getAccount(),
-                    t.getType().toString(), // Use toString() for display / Utiliser toString() pour l'affichage
-                    t.getCategory().toString(), // Use toString() for display / Utiliser toString() pour l'affichage
-                    t.getDescription(),
-                    formatCurrency(t.getMontant())
-            });
+        TransactionQuery query = new TransactionQuery(
+                "Tous Types".equals(selectedTypeFilter) ? null : TransactionType.fromString(selectedTypeFilter),
+                "Toutes Catégories".equals(selectedCategoryFilter) ? null : selectedCategoryFilter,
+                searchField.getText());
+        List<Transaction> snapshot = ledger.snapshot(); // Immutable, not copied / Immuable, non copié
+        Set<YearMonth> diskMonths = new HashSet<>();
+        if (!query.isUnfiltered()) {
+            for (LedgerStore.Summary summary : store.getUnloadedSummaries()) {
+                diskMonths.add(summary.getMonth());
+            }
+        }
+        LedgerSnapshot history = diskMonths.isEmpty() ? null : ledger.capture(LocalDate.now()); // Same rows as the snapshot / Mêmes lignes que l'instantané
+
+        long generation = ++queryGeneration;
+        if (pendingQuery != null) {
+            pendingQuery.cancel(true); // Superseded / Remplacée
+        }
+        pendingQuery = queryExecutor.submit(() -> {
+            try {
+                int[] rows = query.run(snapshot, ledger.getSearchIndex());
+                SwingUtilities.invokeLater(() -> {
+                    if (generation == queryGeneration) { // Drop results of superseded queries / Ignorer les résultats des requêtes remplacées
+                        tableModel.setRows(snapshot, rows); // Single table event / Un seul événement de tableau
+                    }
+                });
+                if (history != null) {
+                    List<Transaction> matches = new ArrayList<>();
+                    Map<Transaction, Long> monthFlows = new IdentityHashMap<>();
+                    history.forEachBatch(query, batch -> collectMatches(query, batch, diskMonths, matches, monthFlows));
+                    SwingUtilities.invokeLater(() -> {
+                        if (generation == queryGeneration) {
+                            tableModel.setRows(matches, monthFlows);
+                        }
+                    });
+                }
+            } catch (InterruptedException | InterruptedIOException ex) {
+                // Cancelled by a newer query / Annulée par une requête plus récente
+            } catch (IOException ex) {
+                System.err.println("Erreur lors de la recherche dans l'historique: " + ex.getMessage());
+                ex.printStackTrace();
+            }
+        });
+    }
+
+    /**
+     * Keeps the rows of a batch that match a query. For a month still on disk, also records the flow of
+     * the account of each match within the month up to it, in date then ID order like the balances: the
+     * ledger only holds the net flow of such a month, after its last day.
+     *
+     * <p>Garde les lignes d'un lot qui correspondent à une requête. Pour un mois encore sur disque, note
+     * aussi le flux du compte de chaque ligne retenue dans le mois jusqu'à elle, dans l'ordre date puis ID
+     * comme les soldes : le grand livre ne contient que le flux net d'un tel mois, après son dernier jour.</p>
+     *
+     * @param query The filters. / Les filtres.
+     * @param batch Rows in date order, all from memory or all from one month on disk. / Des lignes dans l'ordre des dates, toutes en mémoire ou toutes d'un même mois sur disque.
+     * @param diskMonths The months still on disk. / Les mois encore sur disque.
+     * @param matches Receives the matching rows. / Reçoit les lignes correspondantes.
+     * @param monthFlows Receives the flows within their month of the matching rows on disk. / Reçoit les flux dans leur mois des lignes correspondantes sur disque.
+     * @throws InterruptedIOException If the query was cancelled. / Si la requête a été annulée.
+     */
+    private static void collectMatches(TransactionQuery query, List<Transaction> batch, Set<YearMonth> diskMonths,
+                                       List<Transaction> matches, Map<Transaction, Long> monthFlows) throws InterruptedIOException {
+        if (Thread.interrupted()) {
+            throw new InterruptedIOException();
+        }
+        boolean onDisk = !batch.isEmpty() && diskMonths.contains(YearMonth.from(batch.get(0).getDate()));
+        if (onDisk) {
+            List<Transaction> ordered = new ArrayList<>(batch);
+            ordered.sort(Comparator.comparing(Transaction::getDate).thenComparingLong(Transaction::getId));
+            Map<Integer, Long> flows = new HashMap<>();
+            for (Transaction t : ordered) {
+                long flow = t.getType() == TransactionType.DEBIT ? -t.getMontantCents() : t.getMontantCents();
+                long through = flows.merge(t.getAccountId(), flow, Long::sum);
+                if (query.matches(t)) {
+                    monthFlows.put(t, through);
+                }
+            }
+        }
+        for (Transaction t : batch) {
+            if (onDisk ? monthFlows.containsKey(t) : query.matches(t)) {
+                matches.add(t);
+            }
+        }
+    }
+
+    /**
+     * Reads months still on disk in the background, then adds their rows to the ledger on the EDT and
+     * refreshes the views. Does nothing while a previous load is running.
+     *
+     * <p>Lit en arrière-plan des mois encore sur disque, puis ajoute leurs lignes au grand livre sur l'EDT et
+     * rafraîchit les vues. Ne fait rien tant qu'un chargement précédent est en cours.</p>
+     *
+     * @param history The summaries of the months to load. / Les synthèses des mois à charger.
+     */
+    private void loadHistory(List<LedgerStore.Summary> history) {
+        if (history.isEmpty() || historyLoader != null) {
+            return;
+        }
+        loadHistoryButton.setEnabled(false);
+        historyLoader = new SwingWorker<Map<YearMonth, List<Transaction>>, Void>() {
+            @Override
+            protected Map<YearMonth, List<Transaction>> doInBackground() throws Exception {
+                Map<YearMonth, List<Transaction>> rows = new TreeMap<>();
+                for (LedgerStore.Summary summary : history) {
+                    rows.put(summary.getMonth(), store.read(summary.getMonth()));
+                }
+                return rows;
+            }
+
+            @Override
+            protected void done() {
+                historyLoader = null;
+                try {
+                    for (Map.Entry<YearMonth, List<Transaction>> month : get().entrySet()) {
+                        ledger.pageIn(month.getKey(), month.getValue());
+                    }
+                } catch (ExecutionException ex) {
+                    System.err.println("Erreur lors du chargement de l'historique: " + ex.getCause().getMessage());
+                    ex.getCause().printStackTrace();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                updateUI(EnumSet.of(UiChange.LEDGER));
+            }
+        };
+        historyLoader.execute();
+    }
+
+    /**
+     * Shows the history button while months are still on disk only.
+     *
+     * <p>Affiche le bouton de l'historique tant que des mois ne sont que sur disque.</p>
+     */
+    private void updateLoadHistoryButton() {
+        int rowCount = 0;
+        for (LedgerStore.Summary summary : store.getUnloadedSummaries()) {
+            rowCount += summary.getRowCount();
         }
+        loadHistoryButton.setVisible(rowCount > 0);
+        loadHistoryButton.setEnabled(historyLoader == null);
+        loadHistoryButton.setToolTipText(rowCount + " transactions antérieures non chargées");
     }
 
     /**
@@ -913,7 +1395,7 @@ public class BeyahCompta extends JFrame { // JFrame already implements Serializa
      * <p>Met à jour le texte et la couleur de l'étiquette du solde global.</p>
      */
     private void updateGlobalBalanceLabel() {
-        double globalBalance = getGlobalBalance();
+        long globalBalance = getGlobalBalance();
         soldeGlobalLabel.setText("Solde Global: " + formatCurrency(globalBalance));
         if (globalBalance < 0) {
             soldeGlobalLabel.setForeground(ACCENT_COLOR_NEGATIVE);
@@ -929,20 +1411,19 @@ public class BeyahCompta extends JFrame { // JFrame already implements Serializa
      */
     private void updateAccountBalancesDisplay() {
         accountBalancesPanel.removeAll();
-        // Sort accounts alphabetically for consistent display / Trier les comptes par ordre alphabétique pour un affichage cohérent
-        accountBalances.entrySet().stream()
-                .sorted(Map.Entry.comparingByKey())
-                .forEach(entry -> {
-                    JLabel accountLabel = new JLabel(entry.getKey() + ": " + formatCurrency(entry.getValue()));
-                    accountLabel.setFont(DATA_FONT.deriveFont(Font.BOLD, 16));
-                    accountLabel.setBorder(new EmptyBorder(7, 0, 7, 0));
-                    if (entry.getValue() < 0) {
-                        accountLabel.setForeground(ACCENT_COLOR_NEGATIVE);
-                    } else {
-                        accountLabel.setForeground(TEXT_COLOR_DARK);
-                    }
-                    accountBalancesPanel.add(accountLabel);
-                });
+        // The registry keeps accounts sorted alphabetically / Le registre conserve les comptes triés par ordre alphabétique
+        for (int accountId : accounts.displayOrder()) {
+            long balance = accounts.balance(accountId);
+            JLabel accountLabel = new JLabel(accounts.name(accountId) + ": " + formatCurrency(balance));
+            accountLabel.setFont(DATA_FONT.deriveFont(Font.BOLD, 16));
+            accountLabel.setBorder(new EmptyBorder(7, 0, 7, 0));
+            if (balance < 0) {
+                accountLabel.setForeground(ACCENT_COLOR_NEGATIVE);
+            } else {
+                accountLabel.setForeground(TEXT_COLOR_DARK);
+            }
+            accountBalancesPanel.add(accountLabel);
+        }
         accountBalancesPanel.revalidate();
         accountBalancesPanel.repaint();
     }
@@ -953,17 +1434,8 @@ public class BeyahCompta extends JFrame { // JFrame already implements Serializa
      * <p>Met à jour les étiquettes de débit et de crédit totaux dans la section des rapports.</p>
      */
     private void updateReportSummary() {
-        double totalDebit = transactions.stream()
-                .filter(t -> t.getType() == TransactionType.DEBIT)
-                .mapToDouble(Transaction::getMontant)
-                .sum();
-        double totalCredit = transactions.stream()
-                .filter(t -> t.getType() == TransactionType.CREDIT)
-                .mapToDouble(Transaction::getMontant)
-                .sum();
-
-        totalDebitLabel.setText(formatCurrency(totalDebit));
-        totalCreditLabel.setText(formatCurrency(totalCredit));
+        totalDebitLabel.setText(formatCurrency(ledger.getAggregates().getTotalDebit()));
+        totalCreditLabel.setText(formatCurrency(ledger.getAggregates().getTotalCredit()));
     }
 
     /**
@@ -976,28 +1448,25 @@ public class BeyahCompta extends JFrame { // JFrame already implements Serializa
      */
     private void updateBudgetSummaryUI() {
         budgetSummaryPanel.removeAll();
-        // Calculate current month's expenses by category / Calculer les dépenses du mois en cours par catégorie
-        Map<TransactionCategory, Double> currentMonthExpensesByCategory = transactions.stream()
-                .filter(t -> t.getType() == TransactionType.DEBIT)
-                .filter(t -> t.getDate().getYear() == LocalDate.now().getYear() && t.getDate().getMonth() == LocalDate.now().getMonth())
-                .collect(Collectors.groupingBy(Transaction::getCategory, Collectors.summingDouble(Transaction::getMontant)));
-
-        // Sort categories by name / Trier les catégories par nom
-        List<TransactionCategory> sortedCategories = new ArrayList<>(budgets.keySet());
-        sortedCategories.sort(Comparator.comparing(Enum::toString));
+        // Current month's expenses, kept up to date in place / Dépenses du mois en cours, tenues à jour sur place
+        CategoryStats stats = ledger.getCategoryStats(LocalDate.now());
 
-        for (TransactionCategory category : sortedCategories) {
-            double budgeted = budgets.getOrDefault(category, 0.0);
-            double spent = currentMonthExpensesByCategory.getOrDefault(category, 0.0);
+        for (TransactionCategory category : CategoryStats.displayOrder()) { // Sorted by name / Triées par nom
+            if (!stats.hasBudget(category)) {
+                continue;
+            }
+            long budgeted = stats.getBudget(category);
+            long spent = stats.getPeriodSpend(category);
 
             JLabel budgetLabel = new JLabel(category.toString() + ": " + formatCurrency(spent) + " / " + formatCurrency(budgeted));
             budgetLabel.setFont(DATA_FONT.deriveFont(Font.BOLD, 14));
             budgetLabel.setBorder(new EmptyBorder(5, 0, 5, 0));
 
             // Color coding for budget status / Codage couleur pour l'état du budget
-            if (budgeted > 0 && spent > budgeted) {
+            CategoryStats.BudgetStatus status = stats.getBudgetStatus(category);
+            if (status == CategoryStats.BudgetStatus.EXCEEDED) {
                 budgetLabel.setForeground(ACCENT_COLOR_NEGATIVE); // Exceeded budget / Budget dépassé
-            } else if (budgeted > 0 && spent <= budgeted * 0.8) {
+            } else if (status == CategoryStats.BudgetStatus.WITHIN) {
                 budgetLabel.setForeground(ACCENT_COLOR_POSITIVE); // Well within budget / Bien en deçà du budget
             } else {
                 budgetLabel.setForeground(TEXT_COLOR_DARK); // Default / Par défaut
@@ -1014,9 +1483,13 @@ public class BeyahCompta extends JFrame { // JFrame already implements Serializa
      * <p>Met à jour les données affichées dans le graphique circulaire pour les dépenses par catégorie.</p>
      */
     private void updatePieChartData() {
-        Map<String, Double> categoryExpenses = transactions.stream()
-                .filter(t -> t.getType() == TransactionType.DEBIT)
-                .collect(Collectors.groupingBy(t -> t.getCategory().toString(), Collectors.summingDouble(Transaction::getMontant)));
+        Map<String, Double> categoryExpenses = new HashMap<>();
+        for (TransactionCategory category : TransactionCategory.values()) {
+            long spent = ledger.getAggregates().getCategorySpend(category);
+            if (spent != 0) { // Skip categories emptied by deletions / Ignorer les catégories vidées par des suppressions
+                categoryExpenses.put(category.toString(), (double) spent); // Only the ratios matter / Seules les proportions comptent
+            }
+        }
 
         if (pieChartPanel != null) { // Ensure pieChartPanel is initialized / S'assurer que pieChartPanel est initialisé
             pieChartPanel.updateData(categoryExpenses);
@@ -1036,11 +1509,13 @@ public class BeyahCompta extends JFrame { // JFrame already implements Serializa
             return;
         }
 
-        long transactionId = (Long) tableModel.getValueAt(selectedRow, 0);
-        Transaction transactionToEdit = transactions.stream()
-                .filter(t -> t.getId() == transactionId)
-                .findFirst()
-                .orElse(null);
+        Transaction transactionToEdit;
+        try {
+            transactionToEdit = findDisplayed(tableModel.getTransactionAt(selectedRow));
+        } catch (IOException ex) {
+            showMonthError(tableModel.getTransactionAt(selectedRow).getDate(), ex);
+            return;
+        }
 
         if (transactionToEdit == null) {
             JOptionPane.showMessageDialog(this, MSG_ERROR_TRANSACTION_NOT_FOUND, "Erreur", JOptionPane.ERROR_MESSAGE);
@@ -1049,12 +1524,12 @@ public class BeyahCompta extends JFrame { // JFrame already implements Serializa
 
         // Initialize dialog fields with current transaction data / Initialiser les champs de dialogue avec les données de transaction actuelles
         JTextField editDescriptionField = new JTextField(transactionToEdit.getDescription());
-        JTextField editMontantField = new JTextField(formatAmountNoCurrency(transactionToEdit.getMontant()));
+        JTextField editMontantField = new JTextField(formatAmountNoCurrency(transactionToEdit.getMontantCents()));
         JComboBox<TransactionType> editTypeComboBox = new JComboBox<>(TransactionType.values());
         editTypeComboBox.setSelectedItem(transactionToEdit.getType());
         JComboBox<TransactionCategory> editCategoryComboBox = new JComboBox<>(TransactionCategory.values());
         editCategoryComboBox.setSelectedItem(transactionToEdit.getCategory());
-        JComboBox<String> editAccountComboBox = new JComboBox<>(accountBalances.keySet().toArray(new String[0]));
+        JComboBox<String> editAccountComboBox = new JComboBox<>(accounts.displayNames());
         editAccountComboBox.setSelectedItem(transactionToEdit.getAccount());
 
         JPanel panel = new JPanel(new GridLayout(0, 2, 8, 8)); // Use GridLayout for better alignment / Utiliser GridLayout pour un meilleur alignement
@@ -1078,30 +1553,30 @@ public class BeyahCompta extends JFrame { // JFrame already implements Serializa
                 TransactionType newType = (TransactionType) editTypeComboBox.getSelectedItem();
                 TransactionCategory newCategory = (TransactionCategory) editCategoryComboBox.getSelectedItem();
                 String newDescription = editDescriptionField.getText().trim();
-                double newMontant = Double.parseDouble(editMontantField.getText().trim());
+                long newMontant = LedgerFormat.parseCents(editMontantField.getText().trim());
 
                 if (newDescription.isEmpty() || newMontant <= 0) {
                     JOptionPane.showMessageDialog(this, MSG_WARNING_EMPTY_FIELDS + " " + MSG_WARNING_POSITIVE_AMOUNT, "Erreur de saisie", JOptionPane.WARNING_MESSAGE);
                     return;
                 }
 
-                // Revert the old transaction's impact / Annuler l'impact de l'ancienne transaction
-                double oldMontant = transactionToEdit.getMontant();
-                TransactionType oldType = transactionToEdit.getType();
-                String oldAccount = transactionToEdit.getAccount();
-                updateAccountBalance(oldAccount, oldType.reverse(), oldMontant); // Reverse the old transaction / Inverser l'ancienne transaction
-
-                // Update the transaction object / Mettre à jour l'objet transaction
-                transactionToEdit.setAccount(newAccount);
-                transactionToEdit.setType(newType);
-                transactionToEdit.setCategory(newCategory);
-                transactionToEdit.setDescription(newDescription);
-                transactionToEdit.setMontant(newMontant);
-
-                // Apply the new transaction's impact / Appliquer l'impact de la nouvelle transaction
-                updateAccountBalance(newAccount, newType, newMontant);
+                // Snapshots may still read the old row: edit a copy / Des instantanés peuvent encore lire l'ancienne ligne : modifier une copie
+                if (!markMonthChangedOrWarn(transactionToEdit.getDate())) {
+                    return;
+                }
+                Transaction edited = transactionToEdit.copy();
+                edited.setAccount(newAccount);
+                edited.setType(newType);
+                edited.setCategory(newCategory);
+                edited.setDescription(newDescription);
+                edited.setMontantCents(newMontant);
+                ledger.replace(edited); // Moves its impact on the totals and balances / Déplace son impact sur les totaux et les soldes
+                if (journal != null) {
+                    journal.recordEdit(edited);
+                }
+                scheduleAutosave();
 
-                updateUI(null); // Call updateUI with a null ActionEvent
+                updateUI(EnumSet.of(UiChange.LEDGER, UiChange.BALANCES));
                 JOptionPane.showMessageDialog(this, MSG_SUCCESS_TRANSACTION_MODIFIED, "Succès", JOptionPane.INFORMATION_MESSAGE);
 
             } catch (NumberFormatException ex) {
@@ -1126,27 +1601,26 @@ public class BeyahCompta extends JFrame { // JFrame already implements Serializa
                 JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE);
 
         if (confirm == JOptionPane.YES_OPTION) {
-            long transactionId = (Long) tableModel.getValueAt(selectedRow, 0);
-            // Use iterator for safe removal during iteration or stream filter if not iterating
-            // Utiliser un itérateur pour une suppression sécurisée pendant l'itération ou un filtre de flux si non-itération
-            Transaction transactionToDelete = null;
-            for (int i = 0; i < transactions.size(); i++) {
-                if (transactions.get(i).getId() == transactionId) {
-                    transactionToDelete = transactions.get(i);
-                    transactions.remove(i); // Remove directly / Supprimer directement
-                    break;
-                }
+            long transactionId = tableModel.getTransactionAt(selectedRow).getId();
+            Transaction transactionToDelete;
+            try {
+                transactionToDelete = findDisplayed(tableModel.getTransactionAt(selectedRow));
+            } catch (IOException ex) {
+                showMonthError(tableModel.getTransactionAt(selectedRow).getDate(), ex);
+                return;
             }
 
             if (transactionToDelete != null) {
-                double amount = transactionToDelete.getMontant();
-                TransactionType type = transactionToDelete.getType();
-                String account = transactionToDelete.getAccount();
-
-                // Revert the transaction's impact on the balance / Annuler l'impact de la transaction sur le solde
-                updateAccountBalance(account, type.reverse(), amount); // Reverse the type / Inverser le type
+                if (!markMonthChangedOrWarn(transactionToDelete.getDate())) {
+                    return;
+                }
+                ledger.remove(transactionId); // O(1) tombstone, reverts its impact on the balance / Pierre tombale en O(1), annule son impact sur le solde
+                if (journal != null) {
+                    journal.recordDelete(transactionToDelete);
+                }
+                scheduleAutosave();
 
-                updateUI(null); // Call updateUI with a null ActionEvent
+                updateUI(EnumSet.of(UiChange.LEDGER, UiChange.BALANCES));
                 JOptionPane.showMessageDialog(this, MSG_SUCCESS_TRANSACTION_DELETED, "Succès", JOptionPane.INFORMATION_MESSAGE);
             }
         }
@@ -1181,184 +1655,629 @@ public class BeyahCompta extends JFrame { // JFrame already implements Serializa
     }
 
     /**
-     * Saves transaction data to a specified CSV file.
+     * Lets the user pick a CSV file (bank statement or previous export) and imports its transactions.
+     * The file is parsed in the background; the rows are then applied in a single batch followed by a single refresh.
      *
-     * <p>Sauvegarde les données de transaction dans un fichier CSV spécifié.</p>
+     * <p>Permet à l'utilisateur de choisir un fichier CSV (relevé bancaire ou exportation précédente) et en importe
+     * les transactions. Le fichier est analysé en arrière-plan ; les lignes sont ensuite appliquées en un seul lot
+     * suivi d'un seul rafraîchissement.</p>
      *
-     * @param filePath The path to the CSV file. / Le chemin du fichier CSV.
-     * @param isUserExport True if this is a user-initiated export, false for automatic persistence.
-     * / Vrai si c'est une exportation initiée par l'utilisateur, faux pour la persistance automatique.
+     * @param _e The ActionEvent (unused). / L'ActionEvent (non utilisé).
      */
-    private void saveTransactionsToCSV(String filePath, boolean isUserExport) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath))) {
-            // Write CSV header / Écrire l'en-tête CSV
-            writer.append("\"ID\",\"Date\",\"Compte\",\"Type\",\"Catégorie\",\"Description\",\"Montant\"");
-            writer.newLine();
-
-            // Write CSV data / Écrire les données CSV
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
-            for (Transaction t : transactions) {
-                writer.append("\"").append(String.valueOf(t.getId())).append("\"").append(",");
-                writer.append("\"").append(t.getDate().format(formatter)).append("\"").append(",");
-                writer.append("\"").append(escapeCsv(t.getAccount())).append("\"").append(",");
-                writer.append("\"").append(escapeCsv(t.getType().toString())).append("\"").append(",");
-                writer.append("\"").append(escapeCsv(t.getCategory().toString())).append("\"").append(",");
-                writer.append("\"").append(escapeCsv(t.getDescription())).append("\"").append(",");
-                writer.append("\"").append(String.valueOf(t.getMontant())).append("\"");
-                writer.newLine();
-            }
-            if (isUserExport) {
-                JOptionPane.showMessageDialog(this, MSG_SUCCESS_EXPORT + filePath, "Exportation réussie", JOptionPane.INFORMATION_MESSAGE);
+    private void importTransactionsFromCSV(ActionEvent _e) {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Importer des transactions au format CSV");
+        String userHome = System.getProperty("user.home");
+        File documentsDir = new File(userHome, "Documents");
+        if (documentsDir.exists() && documentsDir.isDirectory()) {
+            fileChooser.setCurrentDirectory(documentsDir);
+        } else {
+            fileChooser.setCurrentDirectory(new File(userHome));
+        }
+
+        if (fileChooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path path = fileChooser.getSelectedFile().toPath();
+        setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        new SwingWorker<LedgerCsvReader.Batch, Void>() {
+            private final Map<YearMonth, List<Transaction>> history = new TreeMap<>(); // Months on disk the rows fall in / Mois sur disque où tombent les lignes
+
+            @Override
+            protected LedgerCsvReader.Batch doInBackground() throws Exception {
+                LedgerCsvReader.Batch batch = LedgerCsvReader.read(path);
+                for (int i = 0; i < batch.size(); i++) {
+                    YearMonth month = YearMonth.from(batch.getDate(i));
+                    if (!history.containsKey(month) && store.needsLoading(month)) {
+                        history.put(month, store.read(month));
+                    }
+                }
+                return batch;
             }
-        } catch (IOException ex) {
-            if (isUserExport) {
-                JOptionPane.showMessageDialog(this, MSG_ERROR_EXPORT + ex.getMessage(), "Erreur", JOptionPane.ERROR_MESSAGE);
-            } else {
-                System.err.println("Erreur lors de la sauvegarde automatique des transactions (CSV): " + ex.getMessage());
+
+            @Override
+            protected void done() {
+                setCursor(Cursor.getDefaultCursor());
+                try {
+                    LedgerCsvReader.Batch batch = get();
+                    for (Map.Entry<YearMonth, List<Transaction>> month : history.entrySet()) {
+                        ledger.pageIn(month.getKey(), month.getValue());
+                    }
+                    if (!applyImportedBatch(batch)) {
+                        return; // Refused, the error is already shown / Refusée, l'erreur est déjà affichée
+                    }
+                    String message = batch.size() + MSG_SUCCESS_IMPORT + path;
+                    if (batch.getRejectedLines() > 0) {
+                        message += "\n" + batch.getRejectedLines() + MSG_WARNING_IMPORT_REJECTED + batch.getFirstError();
+                    }
+                    JOptionPane.showMessageDialog(BeyahCompta.this, message, "Importation terminée",
+                            batch.getRejectedLines() > 0 ? JOptionPane.WARNING_MESSAGE : JOptionPane.INFORMATION_MESSAGE);
+                } catch (ExecutionException ex) {
+                    JOptionPane.showMessageDialog(BeyahCompta.this, MSG_ERROR_IMPORT + ex.getCause().getMessage(), "Erreur", JOptionPane.ERROR_MESSAGE);
+                    ex.getCause().printStackTrace();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
             }
-            ex.printStackTrace();
-        }
+        }.execute();
     }
 
     /**
-     * Escapes a string for CSV output by enclosing it in double quotes and escaping existing double quotes.
-     * Handles null values by returning an empty string.
+     * Applies imported rows to the ledger, the balances, the aggregates and the journal, then refreshes the UI once.
+     * Imported rows get new IDs; unknown accounts are created.
      *
-     * <p>Échappe une chaîne pour la sortie CSV en l'entourant de guillemets doubles
-     * et en échappant les guillemets doubles existants. Gère les valeurs nulles
-     * en retournant une chaîne vide.</p>
+     * <p>Applique les lignes importées au grand livre, aux soldes, aux agrégats et au journal, puis rafraîchit
+     * l'interface une seule fois. Les lignes importées reçoivent de nouveaux ID ; les comptes inconnus sont créés.</p>
      *
-     * @param value The string to escape. / La chaîne à échapper.
-     * @return The escaped string. / La chaîne échappée.
+     * @param batch The parsed rows. / Les lignes analysées.
+     * @return False if a month of the rows could not be loaded: nothing is imported. / Faux si un mois des lignes n'a pas pu être chargé : rien n'est importé.
      */
-    private String escapeCsv(String value) {
-        if (value == null) {
-            return "";
+    private boolean applyImportedBatch(LedgerCsvReader.Batch batch) {
+        if (batch.size() == 0) {
+            return true;
         }
-        return value.replace("\"", "\"\"");
-    }
-
-    /**
-     * Orchestrates saving all application data (transactions, account balances, and budgets)
-     * using object serialization. Also creates backup files for robustness.
-     *
-     * <p>Orchestre la sauvegarde de toutes les données de l'application (transactions,
-     * soldes de compte et budgets) en utilisant la sérialisation d'objets.
-     * Crée également des fichiers de sauvegarde pour la robustesse.</p>
-     */
-    private void saveData() {
-        // Backup existing files before saving new data
-        // Sauvegarder les fichiers existants avant d'enregistrer de nouvelles données
-        copyFile(transactionsFileSer, transactionsFileSerBackup);
-        copyFile(balancesAndBudgetsFileSer, balancesAndBudgetsFileSerBackup);
-
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(transactionsFileSer))) {
-            oos.writeObject(transactions);
-            System.out.println("Transactions sauvegardées via sérialisation.");
-        } catch (IOException e) {
-            System.err.println("Erreur lors de la sauvegarde des transactions: " + e.getMessage());
-            e.printStackTrace();
+        for (int i = 0; i < batch.size(); i++) { // Every month first, so that a failure imports nothing / Tous les mois d'abord, pour qu'un échec n'importe rien
+            if (!markMonthChangedOrWarn(batch.getDate(i))) {
+                return false;
+            }
         }
-
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(balancesAndBudgetsFileSer))) {
-            oos.writeObject(accountBalances);
-            oos.writeObject(budgets); // Save budgets as well / Sauvegarder également les budgets
-            System.out.println("Soldes de compte et budgets sauvegardés via sérialisation.");
-        } catch (IOException e) {
-            System.err.println("Erreur lors de la sauvegarde des soldes de compte et budgets: " + e.getMessage());
-            e.printStackTrace();
+        for (int i = 0; i < batch.size(); i++) {
+            String account = batch.getAccount(i);
+            if (accounts.find(account) < 0) {
+                accountComboBox.addItem(account);
+            }
+            Transaction t = new Transaction(Transaction.nextId++, batch.getDate(i), account, batch.getType(i),
+                    batch.getCategory(i), batch.getDescription(i), batch.getMontantCents(i));
+            ledger.add(t);
+            if (journal != null) {
+                journal.recordAdd(t);
+            }
         }
-        System.out.println("Données sauvegardées.");
+        scheduleAutosave();
+        updateUI(EnumSet.of(UiChange.LEDGER, UiChange.BALANCES));
+        return true;
     }
 
     /**
-     * Orchestrates loading all application data (transactions, account balances, and budgets)
-     * using object deserialization. Attempts to load from backup files if primary files are not found or corrupted.
+     * Saves transaction data to a specified CSV file. A user-initiated export runs in the background
+     * behind a modal progress dialog that can cancel it, so the window keeps repainting.
      *
-     * <p>Orchestre le chargement de toutes les données de l'application (transactions,
-     * soldes de compte et budgets) en utilisant la désérialisation d'objets.
-     * Tente de charger à partir des fichiers de sauvegarde si les fichiers principaux
-     * sont introuvables ou corrompus.</p>
+     * <p>Sauvegarde les données de transaction dans un fichier CSV spécifié. Une exportation initiée
+     * par l'utilisateur s'exécute en arrière-plan derrière une boîte de progression modale qui permet
+     * de l'annuler : la fenêtre continue de se redessiner.</p>
+     *
+     * @param filePath The path to the CSV file. / Le chemin du fichier CSV.
+     * @param isUserExport True if this is a user-initiated export, false for automatic persistence.
+     * / Vrai si c'est une exportation initiée par l'utilisateur, faux pour la persistance automatique.
      */
-    @SuppressWarnings("unchecked") // Suppress unchecked cast warnings for deserialization
-    private void loadData() {
-        // Load account balances and budgets first
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(balancesAndBudgetsFileSer))) {
-            accountBalances = (Map<String, Double>) ois.readObject();
-            // Attempt to read budgets, allowing for older String-based keys
-            Object readBudgets = ois.readObject();
-            if (readBudgets instanceof Map) {
-                Map<?, Double> tempMap = (Map<?, Double>) readBudgets;
-                budgets = new HashMap<>(); // Reinitialize to a fresh, correctly typed map
-                for (Map.Entry<?, Double> entry : tempMap.entrySet()) {
-                    if (entry.getKey() instanceof String) {
-                        try {
-                            // Convert old String key to new enum key
-                            budgets.put(TransactionCategory.fromString((String) entry.getKey()), entry.getValue());
-                        } catch (IllegalArgumentException e) {
-                            System.err.println("Warning: Could not convert old budget category string '" + entry.getKey() + "' to enum. Assigning to 'Autre'.");
-                            budgets.put(TransactionCategory.AUTRE, entry.getValue());
-                        }
-                    } else if (entry.getKey() instanceof TransactionCategory) {
-                        // Key is already the correct enum type
-                        budgets.put((TransactionCategory) entry.getKey(), entry.getValue());
-                    } else {
-                        System.err.println("Warning: Unexpected type for budget category key: " + entry.getKey().getClass().getName() + ". Skipping entry.");
+    private void saveTransactionsToCSV(String filePath, boolean isUserExport) {
+        // The export reads an immutable snapshot while edits go on / L'exportation lit un instantané immuable pendant que les modifications continuent
+        List<Transaction> snapshot = ledger.snapshot();
+        if (!isUserExport) {
+            try {
+                LedgerCsv.write(Paths.get(filePath), TransactionQuery.inDateOrder(snapshot), null);
+            } catch (IOException ex) {
+                System.err.println("Erreur lors de la sauvegarde automatique des transactions (CSV): " + ex.getMessage());
+                ex.printStackTrace();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return;
+        }
+
+        List<LedgerStore.Summary> history = store.getUnloadedSummaries(); // Read in the background / Lus en arrière-plan
+        JDialog progressDialog = new JDialog(this, "Exportation CSV", true);
+        JProgressBar progressBar = new JProgressBar(0, 100);
+        progressBar.setStringPainted(true);
+        JButton cancelButton = new JButton("Annuler");
+        JPanel progressPanel = new JPanel(new BorderLayout(10, 10));
+        progressPanel.setBorder(new EmptyBorder(15, 15, 15, 15));
+        progressPanel.add(new JLabel(MSG_EXPORT_IN_PROGRESS), BorderLayout.NORTH);
+        progressPanel.add(progressBar, BorderLayout.CENTER);
+        progressPanel.add(cancelButton, BorderLayout.SOUTH);
+        progressDialog.add(progressPanel);
+        progressDialog.pack();
+        progressDialog.setLocationRelativeTo(this);
+
+        SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() throws Exception {
+                List<Transaction> rows = snapshot;
+                if (!history.isEmpty()) {
+                    rows = new ArrayList<>();
+                    for (LedgerStore.Summary summary : history) {
+                        rows.addAll(store.read(summary.getMonth()));
                     }
+                    rows.addAll(snapshot);
                 }
-            } else {
-                System.err.println("Warning: Deserialized budget object is not a Map. Initializing budgets to default values.");
-                // Fallback to default budgets if deserialized object is not a map
-                Arrays.stream(TransactionCategory.values())
-                        .filter(cat -> cat != TransactionCategory.SALAIRE)
-                        .forEach(cat -> budgets.putIfAbsent(cat, 0.0));
+                // Months loaded late come after the recent ones in the ledger / Les mois chargés tard suivent les récents dans le grand livre
+                LedgerCsv.write(Paths.get(filePath), TransactionQuery.inDateOrder(rows),
+                        (rowsWritten, rowCount) -> setProgress(rowCount == 0 ? 100 : (int) (rowsWritten * 100L / rowCount)));
+                return null;
             }
-            System.out.println("Soldes de compte et budgets chargés via sérialisation.");
-        } catch (IOException | ClassNotFoundException e) {
-            System.err.println("Erreur lors du chargement des soldes de compte/budgets ou fichier non trouvé. Tentative de chargement depuis la sauvegarde. " + e.getMessage());
-            // Attempt to load from backup if main file fails
-            try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(balancesAndBudgetsFileSerBackup))) {
-                accountBalances = (Map<String, Double>) ois.readObject();
-                Object readBudgets = ois.readObject(); // Try reading from backup
-                if (readBudgets instanceof Map) {
-                    Map<?, Double> tempMap = (Map<?, Double>) readBudgets;
-                    budgets = new HashMap<>();
-                    for (Map.Entry<?, Double> entry : tempMap.entrySet()) {
-                        if (entry.getKey() instanceof String) {
+
+            @Override
+            protected void done() {
+                progressDialog.dispose();
+                if (isCancelled()) {
+                    JOptionPane.showMessageDialog(BeyahCompta.this, MSG_EXPORT_CANCELLED, "Exportation annulée", JOptionPane.INFORMATION_MESSAGE);
+                    return;
+                }
+                try {
+                    get();
+                    JOptionPane.showMessageDialog(BeyahCompta.this, MSG_SUCCESS_EXPORT + filePath, "Exportation réussie", JOptionPane.INFORMATION_MESSAGE);
+                } catch (ExecutionException ex) {
+                    JOptionPane.showMessageDialog(BeyahCompta.this, MSG_ERROR_EXPORT + ex.getCause().getMessage(), "Erreur", JOptionPane.ERROR_MESSAGE);
+                    ex.getCause().printStackTrace();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        worker.addPropertyChangeListener(evt -> {
+            if ("progress".equals(evt.getPropertyName())) {
+                progressBar.setValue((Integer) evt.getNewValue());
+            }
+        });
+        cancelButton.addActionListener(_e -> worker.cancel(true));
+        progressDialog.setDefaultCloseOperation(JDialog.DO_NOTHING_ON_CLOSE);
+        progressDialog.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent _e) {
+                worker.cancel(true);
+            }
+        });
+        worker.execute();
+        progressDialog.setVisible(true); // Modal until done() disposes it / Modale jusqu'à ce que done() la ferme
+    }
+
+    /**
+     * Asks for an automatic save once mutations stop for {@value #AUTOSAVE_DELAY_MS} ms, or at once when
+     * the journal has grown too large compared to the segments, so that a steady stream of mutations
+     * cannot make it, and the replay at the next start, grow without bound.
+     *
+     * <p>Demande une sauvegarde automatique une fois que les mutations cessent pendant {@value #AUTOSAVE_DELAY_MS} ms,
+     * ou immédiatement lorsque le journal est devenu trop gros par rapport aux segments, pour qu'un flux
+     * continu de mutations ne puisse pas le faire croître sans limite, ni le rejeu au prochain démarrage.</p>
+     */
+    private void scheduleAutosave() {
+        if (journalNeedsCompaction()) {
+            autosaveTimer.stop();
+            autosave();
+        } else {
+            autosaveTimer.restart();
+        }
+    }
+
+    /**
+     * Tells whether the journal passed {@value #COMPACTION_RATIO_PERCENT}% of the size of the segments
+     * (and at least {@value #COMPACTION_MIN_BYTES} bytes).
+     *
+     * <p>Indique si le journal a dépassé {@value #COMPACTION_RATIO_PERCENT} % de la taille des segments
+     * (et au moins {@value #COMPACTION_MIN_BYTES} octets).</p>
+     *
+     * @return True if a save should fold the journal into the segments now. / Vrai si une sauvegarde doit intégrer le journal aux segments maintenant.
+     */
+    private boolean journalNeedsCompaction() {
+        return journal != null && skippedJournalRecords == 0
+                && journal.length() > Math.max(COMPACTION_MIN_BYTES, store.getSizeOnDisk() / 100 * COMPACTION_RATIO_PERCENT);
+    }
+
+    /**
+     * Saves in the background after a quiet period: the state is captured on the EDT, then written by the
+     * save thread while the user keeps working. If the previous save is still running, waits for another period.
+     *
+     * <p>Sauvegarde en arrière-plan après une période calme : l'état est capturé sur l'EDT, puis écrit par le
+     * thread de sauvegarde pendant que l'utilisateur continue de travailler. Si la sauvegarde précédente est
+     * encore en cours, attend une autre période.</p>
+     */
+    private void autosave() {
+        if (!ledgerLoaded) {
+            return;
+        }
+        if (pendingSave != null && !pendingSave.isDone()) {
+            autosaveTimer.restart();
+            return;
+        }
+        SaveSnapshot snapshot = takeSaveSnapshot();
+        pendingSave = saveExecutor.submit(() -> writeSaveSnapshot(snapshot));
+    }
+
+    /**
+     * Saves all application data on the calling thread, once any background save has finished. Used
+     * when the application closes.
+     *
+     * <p>Sauvegarde toutes les données de l'application sur le thread appelant, une fois toute sauvegarde
+     * en arrière-plan terminée. Utilisé à la fermeture de l'application.</p>
+     */
+    private void saveData() {
+        if (pendingSave != null) {
+            try {
+                pendingSave.get(); // Its months are already taken / Ses mois sont déjà pris
+            } catch (ExecutionException e) {
+                System.err.println("Erreur lors de la sauvegarde automatique: " + e.getCause().getMessage());
+                e.getCause().printStackTrace();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        writeSaveSnapshot(takeSaveSnapshot());
+        System.out.println("Données sauvegardées.");
+    }
+
+    /**
+     * Captures what a save writes: a snapshot of the rows with the months changed since the last save,
+     * the budgets and the journal length. Must run on the EDT, which writes the ledger.
+     *
+     * <p>Capture ce qu'écrit une sauvegarde : un instantané des lignes avec les mois modifiés depuis la
+     * dernière sauvegarde, les budgets et la longueur du journal. Doit s'exécuter sur l'EDT, qui écrit le
+     * grand livre.</p>
+     *
+     * @return The state to save. / L'état à sauvegarder.
+     */
+    private SaveSnapshot takeSaveSnapshot() {
+        return new SaveSnapshot(ledger.snapshot(), store.takeChangedMonths(),
+                ledger.getCategoryStats(LocalDate.now()).budgetsByCategory(),
+                skippedJournalRecords == 0 ? journal : null, journal == null ? 0 : journal.length()); // Skipped records must survive / Les enregistrements ignorés doivent survivre
+    }
+
+    /**
+     * Writes a captured state, on any thread: transactions go to the monthly segments, of which only
+     * the changed months are rewritten, budgets use object serialization. Account balances are not
+     * written: they are rebuilt from the segments and the journal on loading, so no failure between two
+     * files can leave them out of step with the rows. Every file is replaced atomically after a backup of
+     * its previous version, then the journal is compacted.
+     *
+     * <p>Écrit un état capturé, sur n'importe quel thread : les transactions vont dans les segments
+     * mensuels, dont seuls les mois modifiés sont réécrits, les budgets utilisent la sérialisation d'objets.
+     * Les soldes de compte ne sont pas écrits : ils sont reconstruits à partir des segments et du journal au
+     * chargement, si bien qu'aucun échec entre deux fichiers ne peut les désaccorder des lignes. Chaque
+     * fichier est remplacé de façon atomique après une sauvegarde de sa version précédente, puis le journal
+     * est compacté.</p>
+     *
+     * @param snapshot The state to write. / L'état à écrire.
+     */
+    private void writeSaveSnapshot(SaveSnapshot snapshot) {
+        boolean saved = true;
+
+        try {
+            store.write(LedgerStore.groupByMonth(snapshot.rows, snapshot.changedMonths)); // Off the EDT / Hors de l'EDT
+            System.out.println("Transactions sauvegardées dans les segments mensuels (" + snapshot.changedMonths.size() + " mois modifiés).");
+        } catch (IOException e) {
+            saved = false;
+            System.err.println("Erreur lors de la sauvegarde des transactions: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        try {
+            Path path = Paths.get(balancesAndBudgetsFileSer);
+            AtomicFiles.backup(path, Paths.get(balancesAndBudgetsFileSerBackup));
+            AtomicFiles.write(path, out -> {
+                ObjectOutputStream oos = new ObjectOutputStream(out);
+                oos.writeObject(new HashMap<String, Long>()); // Balances, kept empty for the file layout / Soldes, gardés vides pour la structure du fichier
+                oos.writeObject(snapshot.budgets); // Save budgets as well / Sauvegarder également les budgets
+                oos.flush();
+            });
+            System.out.println("Budgets sauvegardés via sérialisation.");
+        } catch (IOException e) {
+            saved = false;
+            System.err.println("Erreur lors de la sauvegarde des budgets: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        // The snapshot now covers the start of the journal, which can be dropped / L'instantané couvre désormais le début du journal, qui peut être supprimé
+        if (saved && snapshot.journal != null) {
+            try {
+                snapshot.journal.compact(snapshot.journalLength);
+            } catch (IOException e) {
+                System.err.println("Erreur lors du compactage du journal: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Replays the write-ahead journal on top of the loaded snapshot, then opens it for new mutations. Runs
+     * on the loading thread, which alone writes the ledger until loading ends. A record whose month cannot
+     * be read is skipped and counted; the journal is then no longer compacted, so that the record is
+     * replayed again at the next start.
+     *
+     * <p>Rejoue le journal d'écriture anticipée par-dessus l'instantané chargé, puis l'ouvre pour les
+     * nouvelles mutations. S'exécute sur le thread de chargement, seul à écrire le grand livre jusqu'à la
+     * fin du chargement. Un enregistrement dont le mois ne peut pas être lu est ignoré et compté ; le
+     * journal n'est alors plus compacté, afin que l'enregistrement soit rejoué au prochain démarrage.</p>
+     *
+     * @return The journal opened for appending, or null if it could not be opened. / Le journal ouvert en ajout, ou null s'il n'a pas pu être ouvert.
+     */
+    private LedgerJournal openJournal() {
+        Path path = Paths.get(journalFile);
+        long validLength = 0;
+        try {
+            validLength = LedgerJournal.replay(path, new LedgerJournal.Handler() {
+                @Override
+                public void onAdd(Transaction t) {
+                    if (!markMonthChangedOrSkip(t.getDate())) { // Loads its segment first / Charge d'abord son segment
+                        return;
+                    }
+                    if (ledger.find(t.getId()) == null) { // Already in the snapshot otherwise / Sinon déjà dans l'instantané
+                        ledger.add(t);
+                    }
+                }
+
+                @Override
+                public void onEdit(Transaction t) {
+                    if (!markMonthChangedOrSkip(t.getDate())) { // The date is never edited / La date n'est jamais modifiée
+                        return;
+                    }
+                    ledger.replace(t); // Ignored if absent / Ignorée si absente
+                }
+
+                @Override
+                public void onDelete(long transactionId, LocalDate date) {
+                    LocalDate day = date;
+                    if (day == null) { // Older record, only the ID: look through the whole history / Ancien enregistrement, seul l'ID : chercher dans tout l'historique
+                        Transaction existing = ledger.find(transactionId);
+                        if (existing == null) {
                             try {
-                                budgets.put(TransactionCategory.fromString((String) entry.getKey()), entry.getValue());
-                            } catch (IllegalArgumentException e2) {
-                                System.err.println("Warning: Could not convert old backup budget category string '" + entry.getKey() + "' to enum. Assigning to 'Autre'.");
-                                budgets.put(TransactionCategory.AUTRE, entry.getValue());
+                                loadAllMonths();
+                            } catch (IOException e) {
+                                skipRecord(e);
+                                return;
                             }
-                        } else if (entry.getKey() instanceof TransactionCategory) {
-                            budgets.put((TransactionCategory) entry.getKey(), entry.getValue());
-                        } else {
-                            System.err.println("Warning: Unexpected type for backup budget category key: " + entry.getKey().getClass().getName() + ". Skipping entry.");
+                            existing = ledger.find(transactionId);
+                        }
+                        if (existing == null) { // Already removed / Déjà supprimée
+                            return;
                         }
+                        day = existing.getDate();
+                    }
+                    if (markMonthChangedOrSkip(day)) { // Loads only its month / Ne charge que son mois
+                        ledger.remove(transactionId); // Ignored if absent / Ignorée si absente
                     }
-                } else {
-                    System.err.println("Warning: Deserialized backup budget object is not a Map. Initializing budgets to default values.");
-                    Arrays.stream(TransactionCategory.values())
-                            .filter(cat -> cat != TransactionCategory.SALAIRE)
-                            .forEach(cat -> budgets.putIfAbsent(cat, 0.0));
                 }
-                System.out.println("Soldes de compte et budgets chargés depuis la sauvegarde.");
-            } catch (IOException | ClassNotFoundException backupE) {
-                System.err.println("Échec du chargement de la sauvegarde des soldes/budgets. Utilisation des valeurs par défaut. " + backupE.getMessage());
-                // Ensure default accounts and budgets are present if loading fails
-                accountBalances.putIfAbsent(DEFAULT_ACCOUNT_CASH, 0.0);
-                accountBalances.putIfAbsent(DEFAULT_ACCOUNT_BANK, 0.0);
-                accountBalances.putIfAbsent(DEFAULT_ACCOUNT_SAVINGS, 0.0);
-                Arrays.stream(TransactionCategory.values())
-                      .filter(cat -> cat != TransactionCategory.SALAIRE)
-                      .forEach(cat -> budgets.putIfAbsent(cat, 0.0));
+
+                @Override
+                public void onBudget(TransactionCategory category, long amountCents) {
+                    ledger.setBudget(category, amountCents);
+                }
+
+                private boolean markMonthChangedOrSkip(LocalDate date) {
+                    try {
+                        markMonthChanged(date);
+                        return true;
+                    } catch (IOException e) {
+                        skipRecord(e);
+                        return false;
+                    }
+                }
+
+                private void skipRecord(IOException e) {
+                    skippedJournalRecords++;
+                    System.err.println("Enregistrement du journal ignoré, son mois est illisible: " + e.getMessage());
+                    e.printStackTrace();
+                }
+            });
+            ledger.compact();
+            long maxId = ledger.snapshot().stream().filter(Objects::nonNull).mapToLong(Transaction::getId).max().orElse(0L);
+            Transaction.nextId = Math.max(Transaction.nextId, maxId + 1);
+        } catch (IOException e) {
+            System.err.println("Erreur lors du rejeu du journal: " + e.getMessage());
+            e.printStackTrace();
+        }
+        try {
+            return new LedgerJournal(path, validLength);
+        } catch (IOException e) {
+            System.err.println("Impossible d'ouvrir le journal, les modifications ne seront sauvegardées qu'à la fermeture: " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Flushes and closes the write-ahead journal.
+     *
+     * <p>Vide et ferme le journal d'écriture anticipée.</p>
+     */
+    private void closeJournal() {
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                System.err.println("Erreur lors de la fermeture du journal: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Records that the month of a date changes, so that the next save rewrites its segment. A month still
+     * on disk is loaded first, synchronously: this only happens for the journal replay and for dates the
+     * background loads did not cover. If it cannot be read, nothing is recorded and the caller must not
+     * apply its mutation, since the next save would replace the segment with the loaded rows only.
+     *
+     * <p>Enregistre que le mois d'une date change, afin que la prochaine sauvegarde réécrive son segment. Un
+     * mois encore sur disque est d'abord chargé, de façon synchrone : cela n'arrive que pour le rejeu du
+     * journal et pour les dates que les chargements en arrière-plan n'ont pas couvertes. S'il ne peut pas
+     * être lu, rien n'est enregistré et l'appelant ne doit pas appliquer sa mutation, puisque la prochaine
+     * sauvegarde remplacerait le segment par les seules lignes chargées.</p>
+     *
+     * @param date A date of the changed month. / Une date du mois modifié.
+     * @throws IOException If the month could not be loaded. / Si le mois n'a pas pu être chargé.
+     */
+    private void markMonthChanged(LocalDate date) throws IOException {
+        YearMonth month = YearMonth.from(date);
+        if (store.needsLoading(month)) {
+            ledger.pageIn(month, store.read(month));
+        }
+        store.markDirty(month);
+    }
+
+    /**
+     * Same as {@link #markMonthChanged}, but reports a failure to the user, for the actions of the window.
+     *
+     * <p>Identique à {@link #markMonthChanged}, mais signale un échec à l'utilisateur, pour les actions de la fenêtre.</p>
+     *
+     * @param date A date of the changed month. / Une date du mois modifié.
+     * @return False if the mutation must be refused. / Faux si la mutation doit être refusée.
+     */
+    private boolean markMonthChangedOrWarn(LocalDate date) {
+        try {
+            markMonthChanged(date);
+            return true;
+        } catch (IOException e) {
+            showMonthError(date, e);
+            return false;
+        }
+    }
+
+    /**
+     * Reports to the user that the month of a date could not be loaded.
+     *
+     * <p>Signale à l'utilisateur que le mois d'une date n'a pas pu être chargé.</p>
+     *
+     * @param date A date of the month. / Une date du mois.
+     * @param e The read error. / L'erreur de lecture.
+     */
+    private void showMonthError(LocalDate date, IOException e) {
+        System.err.println("Erreur lors du chargement du mois " + YearMonth.from(date) + ": " + e.getMessage());
+        e.printStackTrace();
+        JOptionPane.showMessageDialog(this, MSG_ERROR_MONTH_UNAVAILABLE + e.getMessage(), "Erreur", JOptionPane.ERROR_MESSAGE);
+    }
+
+    /**
+     * Finds the ledger row of a displayed transaction. A search may show rows of a month still on disk,
+     * which is then loaded first.
+     *
+     * <p>Trouve la ligne du grand livre d'une transaction affichée. Une recherche peut afficher des lignes
+     * d'un mois encore sur disque, qui est alors d'abord chargé.</p>
+     *
+     * @param shown The displayed transaction. / La transaction affichée.
+     * @return The row, or null if absent. / La ligne, ou null si absente.
+     * @throws IOException If its month could not be loaded. / Si son mois n'a pas pu être chargé.
+     */
+    private Transaction findDisplayed(Transaction shown) throws IOException {
+        YearMonth month = YearMonth.from(shown.getDate());
+        if (store.needsLoading(month)) {
+            ledger.pageIn(month, store.read(month));
+        }
+        return ledger.find(shown.getId());
+    }
+
+    /**
+     * Loads every month still on disk, synchronously.
+     *
+     * <p>Charge tous les mois encore sur disque, de façon synchrone.</p>
+     *
+     * @throws IOException If a month could not be loaded; the months before it stay loaded. / Si un mois n'a pas pu être chargé ; les mois précédents restent chargés.
+     */
+    private void loadAllMonths() throws IOException {
+        for (LedgerStore.Summary summary : store.getUnloadedSummaries()) {
+            ledger.pageIn(summary.getMonth(), store.read(summary.getMonth()));
+        }
+    }
+
+    /**
+     * Orchestrates loading all application data (transactions, account balances, and budgets).
+     * Transactions come from the monthly segments, or from the binary snapshot and then the legacy
+     * serialized files when no segment exists yet; the account balances are computed from them.
+     * Attempts to load from backup files if primary files are not found or corrupted.
+     *
+     * <p>Orchestre le chargement de toutes les données de l'application (transactions,
+     * soldes de compte et budgets). Les transactions proviennent des segments mensuels, ou de
+     * l'instantané binaire puis des anciens fichiers sérialisés lorsqu'aucun segment n'existe encore ;
+     * les soldes de compte en sont calculés. Tente de charger à partir des fichiers de sauvegarde si les fichiers principaux
+     * sont introuvables ou corrompus.</p>
+     */
+    private void loadData() {
+        // Load budgets first, the balances are rebuilt with the transactions / Charger d'abord les budgets, les soldes sont reconstruits avec les transactions
+        LedgerSettings settings = LedgerSettings.read(Paths.get(balancesAndBudgetsFileSer), Paths.get(balancesAndBudgetsFileSerBackup));
+        if (settings != null && settings.getBudgets() != null) {
+            ledger.restoreBudgets(settings.getBudgets()); // Stored budgets replace the defaults / Les budgets stockés remplacent ceux par défaut
+        }
+        if (settings == null || settings.getBudgets() == null) {
+            // Ensure default budgets are present if loading fails (default accounts are always registered)
+            ledger.putBudgetsIfAbsent(EnumSet.complementOf(EnumSet.of(TransactionCategory.SALAIRE)));
+        }
+
+        // Load the month summaries and the recent months from the segments
+        // Charger les synthèses mensuelles et les mois récents depuis les segments
+        if (store.exists()) {
+            loadSegments();
+            return;
+        }
+
+        // No segments yet: the whole ledger is read once from the older formats, the next save writes every month
+        // Pas encore de segments : tout le grand livre est lu une fois depuis les anciens formats, la prochaine sauvegarde écrit chaque mois
+        if (!loadTransactionsSnapshot()) {
+            loadSerializedTransactions();
+        }
+        for (Transaction t : ledger.snapshot()) {
+            store.markDirty(YearMonth.from(t.getDate()));
+        }
+    }
+
+    /**
+     * Opens the monthly segments: the aggregates come from the month summaries alone, and only the
+     * {@value #RESIDENT_MONTHS} most recent months are read; older ones are loaded on demand.
+     *
+     * <p>Ouvre les segments mensuels : les agrégats proviennent des seules synthèses mensuelles, et seuls
+     * les {@value #RESIDENT_MONTHS} mois les plus récents sont lus ; les plus anciens sont chargés à la demande.</p>
+     */
+    private void loadSegments() {
+        try {
+            store.open();
+        } catch (IOException e) {
+            System.err.println("Erreur lors de l'ouverture des segments: " + e.getMessage());
+            e.printStackTrace();
+        }
+        List<LedgerStore.Summary> summaries = store.getSummaries();
+        ledger.loadSummaries(summaries); // Totals without reading any row / Totaux sans lire aucune ligne
+        YearMonth current = YearMonth.now();
+        for (int i = RESIDENT_MONTHS - 1; i >= 0; i--) { // Oldest first, as in the ledger / Le plus ancien d'abord, comme dans le grand livre
+            YearMonth month = current.minusMonths(i);
+            if (store.needsLoading(month)) {
+                try {
+                    ledger.pageIn(month, store.read(month));
+                } catch (IOException e) {
+                    System.err.println("Erreur lors du chargement du mois " + month + ": " + e.getMessage());
+                    e.printStackTrace();
+                }
             }
         }
+        Transaction.nextId = store.getMaxId() + 1;
+        System.out.println("Segments chargés: " + summaries.size() + " mois, " + ledger.snapshot().size() + " transactions en mémoire. Prochain ID: " + Transaction.nextId);
+    }
 
-        // Load transactions
+    /**
+     * Loads the transactions from the legacy serialized files, falling back to their backup.
+     *
+     * <p>Charge les transactions depuis les anciens fichiers sérialisés, avec repli sur leur sauvegarde.</p>
+     */
+    @SuppressWarnings("unchecked") // Suppress unchecked cast warnings for deserialization
+    private void loadSerializedTransactions() {
         try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(transactionsFileSer))) {
-            transactions = (List<Transaction>) ois.readObject();
+            List<Transaction> transactions = (List<Transaction>) ois.readObject();
+            ledger.load(transactions);
             // Update nextId after loading all transactions / Mettre à jour nextId après le chargement de toutes les transactions
             long maxId = transactions.stream().mapToLong(Transaction::getId).max().orElse(0L);
             Transaction.nextId = maxId + 1;
@@ -1367,73 +2286,69 @@ public class BeyahCompta extends JFrame { // JFrame already implements Serializa
             System.err.println("Erreur lors du chargement des transactions ou fichier non trouvé. Démarrage avec des transactions vides. " + e.getMessage());
             // Attempt to load from backup if main file fails / Tenter de charger à partir de la sauvegarde si le fichier principal échoue
             try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(transactionsFileSerBackup))) {
-                transactions = (List<Transaction>) ois.readObject();
+                List<Transaction> transactions = (List<Transaction>) ois.readObject();
+                ledger.load(transactions);
                 long maxId = transactions.stream().mapToLong(Transaction::getId).max().orElse(0L);
                 Transaction.nextId = maxId + 1;
                 System.out.println("Transactions chargées depuis la sauvegarde.");
             } catch (IOException | ClassNotFoundException backupE) {
                 System.err.println("Échec du chargement de la sauvegarde des transactions. Démarrage avec des transactions vides. " + backupE.getMessage());
-                transactions = new ArrayList<>(); // Ensure transactions list is not null / S'assurer que la liste des transactions n'est pas nulle
+                ledger.load(Collections.emptyList()); // Start with an empty ledger / Démarrer avec un grand livre vide
                 Transaction.nextId = 1; // Reset ID if no data loaded / Réinitialiser l'ID si aucune donnée n'est chargée
             }
         }
     }
 
     /**
-     * Copies a file from sourcePath to destPath. Used for creating backup files.
+     * Loads the transactions from the binary snapshot, falling back to its backup.
      *
-     * <p>Copie un fichier de sourcePath vers destPath. Utilisé pour créer des fichiers de sauvegarde.</p>
+     * <p>Charge les transactions depuis l'instantané binaire, avec repli sur sa sauvegarde.</p>
      *
-     * @param sourcePath The path of the source file. / Le chemin du fichier source.
-     * @param destPath The path of the destination file. / Le chemin du fichier de destination.
+     * @return True if a snapshot was loaded. / Vrai si un instantané a été chargé.
      */
-    private void copyFile(String sourcePath, String destPath) {
-        File sourceFile = new File(sourcePath);
-        File destFile = new File(destPath);
-        if (sourceFile.exists()) {
-            try (InputStream in = new FileInputStream(sourceFile);
-                 OutputStream out = new FileOutputStream(destFile)) {
-                byte[] buffer = new byte[1024];
-                int length;
-                while ((length = in.read(buffer)) > 0) {
-                    out.write(buffer, 0, length);
-                }
-                System.out.println("Fichier de sauvegarde créé pour: " + sourcePath);
+    private boolean loadTransactionsSnapshot() {
+        for (String path : new String[]{transactionsFileBin, transactionsFileBinBackup}) {
+            if (!new File(path).exists()) {
+                continue;
+            }
+            try {
+                List<Transaction> transactions = TransactionSnapshot.read(Paths.get(path));
+                ledger.load(transactions);
+                long maxId = transactions.stream().mapToLong(Transaction::getId).max().orElse(0L);
+                Transaction.nextId = maxId + 1;
+                System.out.println("Transactions chargées depuis l'instantané binaire " + path + ". Prochain ID: " + Transaction.nextId);
+                return true;
             } catch (IOException e) {
-                System.err.println("Erreur lors de la création de la sauvegarde pour " + sourcePath + ": " + e.getMessage());
+                System.err.println("Erreur lors du chargement de l'instantané " + path + ": " + e.getMessage());
             }
         }
+        return false;
     }
 
     /**
-     * Formats a double amount into a currency string specific to France (Euro).
+     * Formats an amount in cents into a currency string specific to France (Euro).
      *
-     * <p>Formate un montant double en une chaîne de caractères monétaire spécifique à la France (Euro).</p>
+     * <p>Formate un montant en centimes en une chaîne de caractères monétaire spécifique à la France (Euro).</p>
      *
-     * @param amount The double amount to format. / Le montant double à formater.
+     * @param amount The amount in cents to format. / Le montant en centimes à formater.
      * @return A formatted currency string. / Une chaîne de caractères monétaire formatée.
      */
-    private String formatCurrency(double amount) {
-        NumberFormat currencyFormat = NumberFormat.getCurrencyInstance(Locale.FRANCE);
-        return currencyFormat.format(amount);
+    private String formatCurrency(long amount) {
+        return LedgerFormat.formatCurrency(amount);
     }
 
     /**
-     * Formats a double amount into a string without currency symbol, with two decimal places.
+     * Formats an amount in cents into a string without currency symbol, with two decimal places.
      * Useful for displaying amounts in input fields or budgets.
      *
-     * <p>Formate un montant double en une chaîne sans symbole monétaire, avec deux décimales.
+     * <p>Formate un montant en centimes en une chaîne sans symbole monétaire, avec deux décimales.
      * Utile pour afficher les montants dans les champs de saisie ou les budgets.</p>
      *
-     * @param doubleAmount The double amount to format. / Le montant double à formater.
+     * @param cents The amount in cents to format. / Le montant en centimes à formater.
      * @return A formatted amount string. / Une chaîne de caractères de montant formatée.
      */
-    private String formatAmountNoCurrency(double doubleAmount) {
-        NumberFormat nf = NumberFormat.getInstance(Locale.FRANCE);
-        nf.setGroupingUsed(false); // Do not use grouping separators / Ne pas utiliser de séparateurs de regroupement
-        nf.setMaximumFractionDigits(2);
-        nf.setMinimumFractionDigits(2);
-        return nf.format(doubleAmount);
+    private String formatAmountNoCurrency(long cents) {
+        return LedgerFormat.formatAmount(cents);
     }
 
     /**
@@ -1548,13 +2463,254 @@ public class BeyahCompta extends JFrame { // JFrame already implements Serializa
     }
 
     /**
-     * Inner class for custom Pie Chart rendering of expenses by category.
+     * Table model reading lazily from the ledger through an index view: it only stores the positions
+     * of the matching transactions and formats a cell when the table asks for it (i.e. when it is rendered).
+     * The balance after each transaction comes from the prefix sums of the ledger, so a filtered view
+     * still shows the balance of the whole account.
+     *
+     * <p>Modèle de tableau lisant paresseusement le grand livre au travers d'une vue d'index : il ne stocke
+     * que les positions des transactions correspondantes et formate une cellule lorsque le tableau la demande
+     * (c'est-à-dire lorsqu'elle est affichée). Le solde après chaque transaction vient des sommes préfixes
+     * du grand livre : une vue filtrée montre donc toujours le solde de tout le compte.</p>
+     */
+    class TransactionTableModel extends AbstractTableModel {
+        private static final long serialVersionUID = 1L;
+
+        private final String[] columnNames;
+        private List<Transaction> source = new ArrayList<>();
+        private int[] rows = new int[0]; // Null to show the source in its own order / Null pour afficher la source dans son propre ordre
+        private int rowCount;
+        private Map<Transaction, Long> monthFlows = Collections.emptyMap(); // Rows shown from a month on disk / Lignes affichées depuis un mois sur disque
+
+        /**
+         * Constructs an empty TransactionTableModel.
+         *
+         * <p>Construit un TransactionTableModel vide.</p>
+         *
+         * @param columnNames The column headers. / Les en-têtes de colonnes.
+         */
+        public TransactionTableModel(String[] columnNames) {
+            this.columnNames = columnNames;
+        }
+
+        /**
+         * Replaces the displayed rows and fires a single data-changed event.
+         *
+         * <p>Remplace les lignes affichées et déclenche un unique événement de modification des données.</p>
+         *
+         * @param source The list the positions refer to. / La liste à laquelle les positions se réfèrent.
+         * @param rows The positions of the transactions to display, in display order. / Les positions des transactions à afficher, dans l'ordre d'affichage.
+         */
+        public void setRows(List<Transaction> source, int[] rows) {
+            this.source = source;
+            this.rows = rows;
+            this.rowCount = rows.length;
+            this.monthFlows = Collections.emptyMap();
+            fireTableDataChanged();
+        }
+
+        /**
+         * Shows the rows of a search that covered the months still on disk, in their own order.
+         *
+         * <p>Affiche les lignes d'une recherche qui a couvert les mois encore sur disque, dans leur propre ordre.</p>
+         *
+         * @param source The matching rows, in display order. / Les lignes correspondantes, dans l'ordre d'affichage.
+         * @param monthFlows For the rows from a month on disk, the flow of their account within the month up to them. / Pour les lignes d'un mois sur disque, le flux de leur compte dans le mois jusqu'à elles.
+         */
+        public void setRows(List<Transaction> source, Map<Transaction, Long> monthFlows) {
+            this.source = source;
+            this.rows = null;
+            this.rowCount = source.size();
+            this.monthFlows = monthFlows;
+            fireTableDataChanged();
+        }
+
+        /**
+         * Shows the first rows of a list that only grows, in its own order, without any position array.
+         * Called again with the same list, it only fires an insertion event for the rows added since, so
+         * showing a ledger page by page costs O(page) per page.
+         *
+         * <p>Affiche les premières lignes d'une liste qui ne fait que grandir, dans son propre ordre, sans
+         * tableau de positions. Rappelé avec la même liste, il ne déclenche qu'un événement d'insertion pour
+         * les lignes ajoutées depuis : afficher un grand livre page par page coûte O(page) par page.</p>
+         *
+         * @param source The list, which must keep its first rows unchanged. / La liste, qui doit garder ses premières lignes inchangées.
+         * @param count The number of rows to show. / Le nombre de lignes à afficher.
+         */
+        public void showPrefix(List<Transaction> source, int count) {
+            if (this.source == source && rows == null && count >= rowCount) {
+                int first = rowCount;
+                rowCount = count;
+                if (count > first) {
+                    fireTableRowsInserted(first, count - 1);
+                }
+                return;
+            }
+            this.source = source;
+            this.rows = null;
+            this.rowCount = count;
+            this.monthFlows = Collections.emptyMap();
+            fireTableDataChanged();
+        }
+
+        /**
+         * Returns the transaction displayed at the given row.
+         *
+         * <p>Retourne la transaction affichée à la ligne donnée.</p>
+         *
+         * @param row The model row. / La ligne du modèle.
+         * @return The transaction. / La transaction.
+         */
+        public Transaction getTransactionAt(int row) {
+            return source.get(rows == null ? row : rows[row]);
+        }
+
+        @Override
+        public int getRowCount() {
+            return rowCount;
+        }
+
+        @Override
+        public int getColumnCount() {
+            return columnNames.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return columnNames[column];
+        }
+
+        // Ensure proper column class for rendering / Assurer une classe de colonne appropriée pour le rendu
+        @Override
+        public Class<?> getColumnClass(int columnIndex) {
+            return columnIndex == 0 ? Long.class : Object.class; // ID
+        }
+
+        @Override
+        public boolean isCellEditable(int row, int column) {
+            return false;
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            Transaction t = getTransactionAt(row);
+            switch (column) {
+                case 0: return t.getId();
+                case 1: return LedgerFormat.formatDate(t.getDate());
+                case 2: return t.getAccount();
+                case 3: return t.getType().toString(); // Use toString() for display / Utiliser toString() pour l'affichage
+                case 4: return t.getCategory().toString();
+                case 5: return t.getDescription();
+                case 6: return formatCurrency(t.getMontantCents());
+                case 7: return balanceAfter(t); // Computed when rendered / Calculé à l'affichage
+                default: return null;
+            }
+        }
+
+        private long balanceAfter(Transaction t) {
+            Long monthFlow = monthFlows.get(t);
+            if (monthFlow != null && store.needsLoading(YearMonth.from(t.getDate()))) {
+                // The ledger counts the month after its last day: add the flows of the month up to the row
+                // Le grand livre compte le mois après son dernier jour : ajouter les flux du mois jusqu'à la ligne
+                return ledger.balanceAfter(t) + monthFlow;
+            }
+            return ledger.balanceAfter(t);
+        }
+    }
+
+    /**
+     * Kinds of change that can make a view stale.
      *
-     * <p>Classe interne pour le rendu personnalisé d'un graphique circulaire des dépenses par catégorie.</p>
+     * <p>Types de changement pouvant rendre une vue obsolète.</p>
+     */
+    private enum UiChange {
+        LEDGER,   // Transactions added, edited or deleted / Transactions ajoutées, modifiées ou supprimées
+        BALANCES, // Account balances changed / Soldes de compte modifiés
+        BUDGETS,  // Category budgets changed / Budgets par catégorie modifiés
+        FILTER    // Table filter or search text changed / Filtre ou texte de recherche du tableau modifié
+    }
+
+    /**
+     * A view refresh and the changes it depends on.
+     *
+     * <p>Un rafraîchissement de vue et les changements dont il dépend.</p>
+     */
+    private static final class DependentView {
+        private final Set<UiChange> dependsOn;
+        private final Runnable refresh;
+
+        DependentView(Set<UiChange> dependsOn, Runnable refresh) {
+            this.dependsOn = dependsOn;
+            this.refresh = refresh;
+        }
+    }
+
+    /**
+     * The state written by one save, captured on the EDT.
+     *
+     * <p>L'état écrit par une sauvegarde, capturé sur l'EDT.</p>
+     */
+    private static final class SaveSnapshot {
+        private final List<Transaction> rows; // Immutable, grouped by month on the save thread / Immuables, groupées par mois sur le thread de sauvegarde
+        private final SortedSet<YearMonth> changedMonths;
+        private final Map<TransactionCategory, Long> budgets;
+        private final LedgerJournal journal; // Null if there is none / Null s'il n'y en a pas
+        private final long journalLength;
+
+        SaveSnapshot(List<Transaction> rows, SortedSet<YearMonth> changedMonths,
+                     Map<TransactionCategory, Long> budgets, LedgerJournal journal, long journalLength) {
+            this.rows = rows;
+            this.changedMonths = changedMonths;
+            this.budgets = budgets;
+            this.journal = journal;
+            this.journalLength = journalLength;
+        }
+    }
+
+    /**
+     * Inner class for custom Pie Chart rendering of expenses by category. The slices (angles, colors,
+     * labels and their sizes) are computed once per data change in {@link #updateData}, and the chart is
+     * drawn into an image that is only redrawn when the data, the size or the screen scale changes: any
+     * other repaint (hover, window on top, scrolling) is a single {@code drawImage}.
+     *
+     * <p>Classe interne pour le rendu personnalisé d'un graphique circulaire des dépenses par catégorie.
+     * Les tranches (angles, couleurs, étiquettes et leurs dimensions) sont calculées une fois par
+     * changement de données dans {@link #updateData}, et le graphique est dessiné dans une image qui n'est
+     * redessinée que si les données, la taille ou l'échelle de l'écran changent : tout autre
+     * rafraîchissement (survol, fenêtre au-dessus, défilement) est un simple {@code drawImage}.</p>
      */
     class PieChartPanel extends JPanel {
         private Map<String, Double> data;
         private List<Color> colors;
+        private List<Slice> slices = Collections.emptyList(); // Largest first / La plus grande en premier
+        private BufferedImage chart; // Null until drawn or after a data change / Null jusqu'au dessin ou après un changement de données
+        private double chartScale;
+
+        /**
+         * A slice of the pie with its precomputed label.
+         *
+         * <p>Une tranche du graphique avec son étiquette précalculée.</p>
+         */
+        private final class Slice {
+            private final int startAngle;
+            private final int arcAngle;
+            private final Color color;
+            private final String label;
+            private final int labelWidth;
+            private final double cos; // Of the middle of the slice / Du milieu de la tranche
+            private final double sin;
+
+            Slice(double startAngle, double angle, Color color, String label, int labelWidth) {
+                this.startAngle = (int) startAngle;
+                this.arcAngle = (int) angle;
+                this.color = color;
+                this.label = label;
+                this.labelWidth = labelWidth;
+                double radians = Math.toRadians(startAngle + angle / 2);
+                this.cos = Math.cos(radians);
+                this.sin = Math.sin(radians);
+            }
+        }
 
         /**
          * Constructs a PieChartPanel. Initializes data and a set of predefined colors.
@@ -1577,238 +2733,115 @@ public class BeyahCompta extends JFrame { // JFrame already implements Serializa
         }
 
         /**
-         * Updates the data to be displayed in the pie chart and repaints the component.
+         * Updates the data to be displayed in the pie chart, computes its slices and repaints the component.
+         * Does nothing if the data did not change.
          *
-         * <p>Met à jour les données à afficher dans le graphique circulaire et redessine le composant.</p>
+         * <p>Met à jour les données à afficher dans le graphique circulaire, calcule ses tranches et redessine
+         * le composant. Ne fait rien si les données n'ont pas changé.</p>
          *
          * @param newData A map where keys are category names (String) and values are total expenses (Double).
          * / Une carte où les clés sont les noms de catégorie (String) et les valeurs sont les dépenses totales (Double).
          */
         public void updateData(Map<String, Double> newData) {
+            if (newData.equals(data)) {
+                return;
+            }
             this.data = newData;
+
+            double total = 0;
+            for (double value : newData.values()) {
+                total += value;
+            }
+            List<Map.Entry<String, Double>> sortedEntries = new ArrayList<>(newData.entrySet());
+            sortedEntries.sort(Map.Entry.comparingByValue(Comparator.reverseOrder())); // Sort by value for consistent slice order / Trier par valeur pour un ordre de tranches cohérent
+
+            List<Slice> newSlices = new ArrayList<>(sortedEntries.size());
+            if (total != 0) {
+                FontMetrics fm = getFontMetrics(DATA_FONT);
+                double startAngle = 0;
+                for (Map.Entry<String, Double> entry : sortedEntries) {
+                    double value = entry.getValue();
+                    double angle = (value / total) * 360;
+                    String labelText = String.format("%s (%.1f%%)", entry.getKey(), (value / total) * 100);
+                    newSlices.add(new Slice(startAngle, angle, colors.get(newSlices.size() % colors.size()), labelText, fm.stringWidth(labelText)));
+                    startAngle += angle;
+                }
+            }
+            this.slices = newSlices;
+            this.chart = null;
             repaint(); // Redraw the chart with new data / Redessiner le graphique avec de nouvelles données
         }
 
         @Override
         protected void paintComponent(Graphics g) {
             super.paintComponent(g);
-            Graphics2D g2d = (Graphics2D) g;
-            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
             int width = getWidth();
             int height = getHeight();
-            int diameter = Math.min(width, height) - 40; // Subtract padding / Soustraire le rembourrage
-            int x = (width - diameter) / 2;
-            int y = (height - diameter) / 2;
-
-            double total = data.values().stream().mapToDouble(Double::doubleValue).sum();
-
-            if (total == 0) {
-                g2d.setColor(Color.LIGHT_GRAY);
-                g2d.fillOval(x, y, diameter, diameter);
-                g2d.setColor(TEXT_COLOR_DARK);
-                g2d.setFont(LABEL_FONT);
-                FontMetrics fm = g2d.getFontMetrics();
-                int textWidth = fm.stringWidth(MSG_NO_EXPENSE_DATA);
-                int textHeight = fm.getHeight();
-                g2d.drawString(MSG_NO_EXPENSE_DATA, (width - textWidth) / 2, height / 2 + textHeight / 4);
+            if (width <= 0 || height <= 0) {
                 return;
             }
+            double scale = ((Graphics2D) g).getTransform().getScaleX(); // HiDPI screens / Écrans HiDPI
+            if (chart == null || chart.getWidth() != (int) Math.ceil(width * scale)
+                    || chart.getHeight() != (int) Math.ceil(height * scale) || chartScale != scale) {
+                chart = drawChart(width, height, scale);
+                chartScale = scale;
+            }
+            g.drawImage(chart, 0, 0, width, height, null);
+        }
 
-            double startAngle = 0;
-            int colorIndex = 0;
-            List<Map.Entry<String, Double>> sortedEntries = data.entrySet().stream()
-                    .sorted(Map.Entry.comparingByValue(Comparator.reverseOrder())) // Sort by value for consistent slice order / Trier par valeur pour un ordre de tranches cohérent
-                    .collect(Collectors.toList());
-
-            for (Map.Entry<String, Double> entry : sortedEntries) {
-                double value = entry.getValue();
-                double angle = (value / total) * 360;
-
-                g2d.setColor(colors.get(colorIndex % colors.size()));
-                g2d.fillArc(x, y, diameter, diameter, (int) startAngle, (int) angle);
+        /**
+         * Draws the chart into a transparent image at the pixel size of the screen.
+         *
+         * <p>Dessine le graphique dans une image transparente à la taille en pixels de l'écran.</p>
+         */
+        private BufferedImage drawChart(int width, int height, double scale) {
+            BufferedImage image = new BufferedImage((int) Math.ceil(width * scale), (int) Math.ceil(height * scale), BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g2d = image.createGraphics();
+            try {
+                g2d.scale(scale, scale);
+                g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+
+                int diameter = Math.min(width, height) - 40; // Subtract padding / Soustraire le rembourrage
+                int x = (width - diameter) / 2;
+                int y = (height - diameter) / 2;
+
+                if (slices.isEmpty()) {
+                    g2d.setColor(Color.LIGHT_GRAY);
+                    g2d.fillOval(x, y, diameter, diameter);
+                    g2d.setColor(TEXT_COLOR_DARK);
+                    g2d.setFont(LABEL_FONT);
+                    FontMetrics fm = g2d.getFontMetrics();
+                    int textWidth = fm.stringWidth(MSG_NO_EXPENSE_DATA);
+                    int textHeight = fm.getHeight();
+                    g2d.drawString(MSG_NO_EXPENSE_DATA, (width - textWidth) / 2, height / 2 + textHeight / 4);
+                    return image;
+                }
 
-                // Draw labels (Category and Percentage) / Dessiner les étiquettes (Catégorie et Pourcentage)
-                double midAngle = startAngle + angle / 2;
-                double radians = Math.toRadians(midAngle);
-                int labelX = (int) (x + diameter / 2 + (diameter / 2 + 10) * Math.cos(radians));
-                int labelY = (int) (y + diameter / 2 + (diameter / 2 + 10) * Math.sin(radians));
+                for (Slice slice : slices) {
+                    g2d.setColor(slice.color);
+                    g2d.fillArc(x, y, diameter, diameter, slice.startAngle, slice.arcAngle);
+                }
 
-                String labelText = String.format("%s (%.1f%%)", entry.getKey(), (value / total) * 100);
+                // Draw labels (Category and Percentage) on top of the slices / Dessiner les étiquettes (Catégorie et Pourcentage) au-dessus des tranches
                 g2d.setColor(TEXT_COLOR_DARK);
                 g2d.setFont(DATA_FONT);
-
-                // Adjust label position for better readability / Ajuster la position de l'étiquette pour une meilleure lisibilité
-                FontMetrics fm = g2d.getFontMetrics();
-                int textWidth = fm.stringWidth(labelText);
-                int textHeight = fm.getHeight();
-
-                if (Math.cos(radians) > 0) { // Right half / Moitié droite
-                    // Align text to the right for right side labels / Aligner le texte à droite pour les étiquettes du côté droit
-                    labelX = (int) (x + diameter / 2 + (diameter / 2 + 10) * Math.cos(radians));
-                } else { // Left half / Moitié gauche
-                    // Align text to the left for left side labels / Aligner le texte à gauche pour les étiquettes du côté gauche
-                    labelX = (int) (x + diameter / 2 + (diameter / 2 + 10) * Math.cos(radians) - textWidth);
-                }
-
-                if (Math.sin(radians) > 0) { // Bottom half / Moitié inférieure
-                    labelY = (int) (y + diameter / 2 + (diameter / 2 + 10) * Math.sin(radians));
-                } else { // Top half / Moitié supérieure
-                    labelY = (int) (y + diameter / 2 + (diameter / 2 + 10) * Math.sin(radians) + textHeight);
+                int textHeight = g2d.getFontMetrics().getHeight();
+                for (Slice slice : slices) {
+                    double labelX = x + diameter / 2 + (diameter / 2 + 10) * slice.cos;
+                    double labelY = y + diameter / 2 + (diameter / 2 + 10) * slice.sin;
+                    if (slice.cos <= 0) { // Left half: text ends at the anchor / Moitié gauche : le texte se termine au point d'ancrage
+                        labelX -= slice.labelWidth;
+                    }
+                    if (slice.sin <= 0) { // Top half: text hangs below the anchor / Moitié supérieure : le texte pend sous le point d'ancrage
+                        labelY += textHeight;
+                    }
+                    g2d.drawString(slice.label, (int) labelX, (int) labelY);
                 }
-
-                g2d.drawString(labelText, labelX, labelY);
-
-                startAngle += angle;
-                colorIndex++;
+            } finally {
+                g2d.dispose();
             }
-        }
-    }
-}
-
-/**
- * Represents a financial transaction within the BeyahCompta application.
- * This class is Serializable to allow for persistence.
- *
- * <p>Représente une transaction financière au sein de l'application BeyahCompta.
- * Cette classe est Sérialisable pour permettre la persistance.</p>
- */
-class Transaction implements Serializable {
-    // IMPORTANT: Reverted serialVersionUID to 1L to ensure backward compatibility with
-    // previously serialized files that had String types for 'type' and 'category' fields.
-    // The custom readObject method below handles the String to Enum conversion.
-    private static final long serialVersionUID = 1L;
-
-    /**
-     * The next available ID for a new transaction.
-     * This field is public static to ensure visibility and proper incrementation across instances.
-     *
-     * <p>Le prochain ID disponible pour une nouvelle transaction.
-     * Ce champ est public statique pour assurer la visibilité et l'incrémentation correcte entre les instances.</p>
-     */
-    public static long nextId = 1;
-
-    private long id;
-    private LocalDate date;
-    private String account;
-    private BeyahCompta.TransactionType type; // Using enum / Utilisation de l'énumération
-    private BeyahCompta.TransactionCategory category; // Using enum / Utilisation de l'énumération
-    private String description;
-    private double montant;
-
-    /**
-     * Constructor for creating a new transaction. Automatically assigns a unique ID and the current date.
-     *
-     * <p>Constructeur pour créer une nouvelle transaction. Assignée automatiquement un ID unique et la date actuelle.</p>
-     *
-     * @param account The account name associated with the transaction. / Le nom du compte associé à la transaction.
-     * @param type The type of transaction (Debit or Credit). / Le type de transaction (Débit ou Crédit).
-     * @param category The category of the transaction. / La catégorie de la transaction.
-     * @param description A brief description of the transaction. / Une brève description de la transaction.
-     * @param montant The amount of the transaction. / Le montant de la transaction.
-     */
-    public Transaction(String account, BeyahCompta.TransactionType type, BeyahCompta.TransactionCategory category, String description, double montant) {
-        this.id = nextId++;
-        this.date = LocalDate.now();
-        this.account = account;
-        this.type = type;
-        this.category = category;
-        this.description = description;
-        this.montant = montant;
-    }
-
-    /**
-     * Constructor for loading an existing transaction from persistent storage.
-     * Allows setting the ID and date explicitly.
-     *
-     * <p>Constructeur pour charger une transaction existante à partir du stockage persistant.
-     * Permet de définir explicitement l'ID et la date.</p>
-     *
-     * @param id The unique identifier of the transaction. / L'identifiant unique de la transaction.
-     * @param date The date of the transaction. / La date de la transaction.
-     * @param account The account name. / Le nom du compte.
-     * @param type The type of transaction. / Le type de transaction.
-     * @param category The category of the transaction. / La catégorie de la transaction.
-     * @param description The description of the transaction. / La description de la transaction.
-     * @param montant The amount of the transaction. / Le montant de la transaction.
-     */
-    public Transaction(long id, LocalDate date, String account, BeyahCompta.TransactionType type, BeyahCompta.TransactionCategory category, String description, double montant) {
-        this.id = id;
-        this.date = date;
-        this.account = account;
-        this.type = type;
-        this.category = category;
-        this.description = description;
-        this.montant = montant;
-    }
-
-    // --- Getters ---
-    public long getId() { return id; }
-    public LocalDate getDate() { return date; }
-    public String getAccount() { return account; }
-    public BeyahCompta.TransactionType getType() { return type; } // Returns enum / Retourne l'énumération
-    public BeyahCompta.TransactionCategory getCategory() { return category; } // Retourne l'énumération
-    public String getDescription() { return description; }
-    public double getMontant() { return montant; }
-
-    // --- Setters ---
-    public void setAccount(String account) { this.account = account; }
-    public void setType(BeyahCompta.TransactionType type) { this.type = type; } // Accepts enum / Accepte l'énumération
-    public void setCategory(BeyahCompta.TransactionCategory category) { this.category = category; } // Accepte l'énumération
-    public void setDescription(String description) { this.description = description; }
-    public void setMontant(double montant) { this.montant = montant; }
-
-    /**
-     * Custom deserialization method to handle backward compatibility.
-     * It addresses the change of 'type' and 'category' fields from String to Enum.
-     *
-     * <p>Méthode de désérialisation personnalisée pour gérer la compatibilité ascendante.
-     * Elle gère le changement des champs 'type' et 'category' de String à Enum.</p>
-     *
-     * @param s The ObjectInputStream from which to read the object.
-     * @throws IOException If an I/O error occurs.
-     * @throws ClassNotFoundException If the class of a serialized object could not be found.
-     */
-    private void readObject(ObjectInputStream s) throws IOException, ClassNotFoundException {
-        ObjectInputStream.GetField fields = s.readFields();
-
-        // Read primitive and unchanged object fields directly
-        this.id = fields.get("id", 0L);
-        this.date = (LocalDate) fields.get("date", null);
-        this.account = (String) fields.get("account", null);
-        this.description = (String) fields.get("description", null);
-        this.montant = fields.get("montant", 0.0);
-
-        // Handle 'type' field: it could be a String (old version) or TransactionType enum (new version)
-        Object typeObj = fields.get("type", null);
-        if (typeObj instanceof String) {
-            try {
-                this.type = BeyahCompta.TransactionType.fromString((String) typeObj);
-            } catch (IllegalArgumentException e) {
-                System.err.println("Warning: Could not convert old 'type' string '" + typeObj + "' to enum. Assigning DEBIT.");
-                this.type = BeyahCompta.TransactionType.DEBIT; // Default to DEBIT if conversion fails
-            }
-        } else if (typeObj instanceof BeyahCompta.TransactionType) {
-            this.type = (BeyahCompta.TransactionType) typeObj;
-        } else {
-            System.err.println("Warning: Unexpected type for 'type' field during deserialization. Assigning DEBIT.");
-            this.type = BeyahCompta.TransactionType.DEBIT; // Default if unexpected type
-        }
-
-        // Handle 'category' field: it could be a String (old version) or TransactionCategory enum (new version)
-        Object categoryObj = fields.get("category", null);
-        if (categoryObj instanceof String) {
-            try {
-                this.category = BeyahCompta.TransactionCategory.fromString((String) categoryObj);
-            } catch (IllegalArgumentException e) {
-                System.err.println("Warning: Could not convert old 'category' string '" + categoryObj + "' to enum. Assigning AUTRE.");
-                this.category = BeyahCompta.TransactionCategory.AUTRE; // Default to AUTRE if conversion fails
-            }
-        } else if (categoryObj instanceof BeyahCompta.TransactionCategory) {
-            this.category = (BeyahCompta.TransactionCategory) categoryObj;
-        } else {
-            System.err.println("Warning: Unexpected type for 'category' field during deserialization. Assigning AUTRE.");
-            this.category = BeyahCompta.TransactionCategory.AUTRE; // Default if unexpected type
+            return image;
         }
     }
 }
@@ -0,0 +1,346 @@
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Headless entry point for reports and exports, for servers and scheduled jobs. It reads the same data
+ * directory as the application without creating any window: the {@code rapport} command prints the
+ * totals, the account balances, the spend per category and the budget status of a month (the content of
+ * the reports tab), and the {@code csv} command prints the ledger in the export format.
+ *
+ * <p>The ledger is streamed one monthly segment at a time, so memory is bounded by the largest month
+ * rather than by the ledger. The journal, which holds only the mutations since the last save, is read
+ * first into a small overlay applied to each month as it goes by. Results go to standard output and
+ * messages to standard error.</p>
+ *
+ * <p>Point d'entrée sans affichage pour les rapports et exportations, pour les serveurs et les tâches
+ * planifiées. Il lit le même répertoire de données que l'application sans créer de fenêtre : la commande
+ * {@code rapport} affiche les totaux, les soldes des comptes, les dépenses par catégorie et l'état des
+ * budgets d'un mois (le contenu de l'onglet des rapports), et la commande {@code csv} affiche le grand
+ * livre au format d'exportation.</p>
+ *
+ * <p>Le grand livre est parcouru un segment mensuel à la fois : la mémoire est bornée par le plus gros
+ * mois plutôt que par le grand livre. Le journal, qui ne contient que les mutations depuis la dernière
+ * sauvegarde, est d'abord lu dans une petite surcouche appliquée à chaque mois au passage. Les résultats
+ * vont sur la sortie standard et les messages sur la sortie d'erreur.</p>
+ */
+final class BeyahComptaCli {
+
+    private static final String USAGE = "Usage: java -Djava.awt.headless=true -cp beyahcompta.jar BeyahComptaCli"
+            + " [--donnees <répertoire>] [--mois AAAA-MM] rapport|csv";
+    private static final String COMMAND_REPORT = "rapport";
+    private static final String COMMAND_CSV = "csv";
+    private static final String OPTION_DATA_DIR = "--donnees";
+    private static final String OPTION_MONTH = "--mois";
+
+    private static final String REPORT_TOTAL_DEBIT_TITLE = "Total des Débits:";
+    private static final String REPORT_TOTAL_CREDIT_TITLE = "Total des Crédits:";
+    private static final String REPORT_ACCOUNT_BALANCES_TITLE = "Soldes par Compte";
+    private static final String REPORT_EXPENSE_TITLE = "Dépenses par Catégorie";
+    private static final String REPORT_BUDGET_SUMMARY_TITLE = "Résumé Budgétaire par Catégorie";
+    private static final String BUDGET_EXCEEDED = "dépassé";
+    private static final String BUDGET_WITHIN = "respecté";
+    private static final String BUDGET_NEAR = "proche de la limite";
+
+    /**
+     * Receives the rows of the ledger, one batch at a time.
+     *
+     * <p>Reçoit les lignes du grand livre, un lot à la fois.</p>
+     */
+    private interface RowSink {
+        void accept(List<Transaction> rows) throws IOException;
+    }
+
+    private final Path dataDir;
+    private final AccountRegistry accounts = AccountRegistry.SHARED;
+    // Rows added or edited since the last save, null once deleted / Lignes ajoutées ou modifiées depuis la dernière sauvegarde, null une fois supprimées
+    private final Map<Long, Transaction> journalRows = new LinkedHashMap<>();
+    private final Set<Long> journalAdds = new HashSet<>();
+    private final Map<BeyahCompta.TransactionCategory, Long> journalBudgets = new EnumMap<>(BeyahCompta.TransactionCategory.class);
+
+    private BeyahComptaCli(Path dataDir) {
+        this.dataDir = dataDir;
+    }
+
+    /**
+     * Runs a command, see {@link #USAGE}. Exits with status 2 on a usage error and 1 if the data cannot be read.
+     *
+     * <p>Exécute une commande, voir {@link #USAGE}. Se termine avec le statut 2 sur une erreur d'usage et 1
+     * si les données ne peuvent pas être lues.</p>
+     *
+     * @param args The options and the command. / Les options et la commande.
+     */
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true"); // Nothing here needs a display / Rien ici n'a besoin d'affichage
+        // Results only on standard output, the messages of the loaders go to standard error
+        // Seulement les résultats sur la sortie standard, les messages des chargeurs vont sur la sortie d'erreur
+        PrintStream results = System.out;
+        System.setOut(System.err);
+
+        Path dataDir = Paths.get(System.getProperty("user.home"), BeyahCompta.DATA_DIR_NAME);
+        YearMonth month = YearMonth.now();
+        String command = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (OPTION_DATA_DIR.equals(args[i]) && i + 1 < args.length) {
+                    dataDir = Paths.get(args[++i]);
+                } else if (OPTION_MONTH.equals(args[i]) && i + 1 < args.length) {
+                    month = YearMonth.parse(args[++i]);
+                } else if (command == null && (COMMAND_REPORT.equals(args[i]) || COMMAND_CSV.equals(args[i]))) {
+                    command = args[i];
+                } else {
+                    command = null;
+                    break;
+                }
+            }
+        } catch (DateTimeParseException e) {
+            System.err.println("Mois invalide: " + e.getParsedString());
+            command = null;
+        }
+        if (command == null) {
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+
+        BeyahComptaCli cli = new BeyahComptaCli(dataDir);
+        try {
+            cli.replayJournal();
+            if (COMMAND_CSV.equals(command)) {
+                cli.exportCsv(results);
+            } else {
+                cli.printReport(results, month);
+            }
+            results.flush();
+        } catch (IOException e) {
+            System.err.println("Erreur lors de la lecture des données de " + dataDir + ": " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Reads the journal into the overlay: the latest state of every row it mentions and the budgets it sets.
+     *
+     * <p>Lit le journal dans la surcouche : le dernier état de chaque ligne qu'il mentionne et les budgets qu'il définit.</p>
+     */
+    private void replayJournal() throws IOException {
+        LedgerJournal.replay(dataDir.resolve(BeyahCompta.JOURNAL_FILE), new LedgerJournal.Handler() {
+            @Override
+            public void onAdd(Transaction t) {
+                journalRows.put(t.getId(), t);
+                journalAdds.add(t.getId());
+            }
+
+            @Override
+            public void onEdit(Transaction t) {
+                journalRows.put(t.getId(), t);
+            }
+
+            @Override
+            public void onDelete(long transactionId, LocalDate date) {
+                journalRows.put(transactionId, null);
+            }
+
+            @Override
+            public void onBudget(BeyahCompta.TransactionCategory category, long amountCents) {
+                journalBudgets.put(category, amountCents);
+            }
+        });
+    }
+
+    /**
+     * Streams every row of the ledger, in ledger order, with the journal applied: each month of the
+     * segments in turn (or the older single-file formats, read whole), then the rows added since the last save.
+     *
+     * <p>Parcourt chaque ligne du grand livre, dans l'ordre du grand livre, avec le journal appliqué : chaque
+     * mois des segments tour à tour (ou les anciens formats en un seul fichier, lus en entier), puis les lignes
+     * ajoutées depuis la dernière sauvegarde.</p>
+     *
+     * @param sink The receiver of the rows, which may contain null tombstones. / Le destinataire des lignes, qui peuvent contenir des pierres tombales null.
+     */
+    private void streamLedger(RowSink sink) throws IOException {
+        Set<Long> seen = new HashSet<>();
+        LedgerStore store = new LedgerStore(dataDir.resolve(BeyahCompta.SEGMENTS_DIR));
+        if (store.exists()) {
+            store.open();
+            for (LedgerStore.Summary summary : store.getSummaries()) {
+                List<Transaction> rows = store.read(summary.getMonth());
+                applyJournal(rows, seen);
+                sink.accept(rows);
+            }
+        } else {
+            System.err.println("Pas encore de segments mensuels, le grand livre est lu en entier. Ouvrez l'application une fois pour le migrer.");
+            List<Transaction> rows = readLegacyLedger();
+            applyJournal(rows, seen);
+            sink.accept(rows);
+        }
+        List<Transaction> added = new ArrayList<>();
+        for (Map.Entry<Long, Transaction> entry : journalRows.entrySet()) {
+            if (entry.getValue() != null && !seen.contains(entry.getKey()) && journalAdds.contains(entry.getKey())) {
+                added.add(entry.getValue());
+            }
+        }
+        sink.accept(added);
+    }
+
+    private void applyJournal(List<Transaction> rows, Set<Long> seen) {
+        if (journalRows.isEmpty()) {
+            return;
+        }
+        for (int i = 0; i < rows.size(); i++) {
+            Transaction t = rows.get(i);
+            if (journalRows.containsKey(t.getId())) {
+                Transaction replacement = journalRows.get(t.getId());
+                seen.add(t.getId());
+                rows.set(i, replacement); // Null when deleted / Null si supprimée
+            }
+        }
+    }
+
+    /**
+     * Reads the whole ledger from the binary snapshot, then from the legacy serialized file, each with its backup.
+     *
+     * <p>Lit tout le grand livre depuis l'instantané binaire, puis depuis l'ancien fichier sérialisé, chacun avec sa sauvegarde.</p>
+     */
+    @SuppressWarnings("unchecked") // Suppress unchecked cast warnings for deserialization
+    private List<Transaction> readLegacyLedger() {
+        Path snapshot = dataDir.resolve(BeyahCompta.TRANSACTIONS_FILE_BIN);
+        for (Path path : new Path[]{snapshot, snapshot.resolveSibling(snapshot.getFileName() + BeyahCompta.BACKUP_EXTENSION)}) {
+            if (Files.exists(path)) {
+                try {
+                    return TransactionSnapshot.read(path);
+                } catch (IOException e) {
+                    System.err.println("Erreur lors du chargement de l'instantané " + path + ": " + e.getMessage());
+                }
+            }
+        }
+        Path serialized = dataDir.resolve(BeyahCompta.TRANSACTIONS_FILE_SER);
+        for (Path path : new Path[]{serialized, serialized.resolveSibling(serialized.getFileName() + BeyahCompta.BACKUP_EXTENSION)}) {
+            if (Files.exists(path)) {
+                try (ObjectInputStream ois = new ObjectInputStream(Files.newInputStream(path))) {
+                    return (List<Transaction>) ois.readObject();
+                } catch (IOException | ClassNotFoundException e) {
+                    System.err.println("Erreur lors du chargement des transactions " + path + ": " + e.getMessage());
+                }
+            }
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * Prints the ledger in the CSV export format.
+     *
+     * <p>Affiche le grand livre au format d'exportation CSV.</p>
+     *
+     * @param out The destination. / La destination.
+     */
+    private void exportCsv(PrintStream out) throws IOException {
+        WritableByteChannel channel = Channels.newChannel(out);
+        LedgerCsv.writeHeader(channel);
+        streamLedger(rows -> LedgerCsv.writeRows(channel, rows));
+    }
+
+    /**
+     * Prints what the reports tab shows: the totals, the balance of every account, the spend per
+     * category with its share, and the spend against the budget of each budgeted category for a month.
+     *
+     * <p>Affiche ce que montre l'onglet des rapports : les totaux, le solde de chaque compte, les dépenses
+     * par catégorie avec leur part, et les dépenses face au budget de chaque catégorie budgétisée pour un mois.</p>
+     *
+     * @param out The destination. / La destination.
+     * @param month The month of the budget status. / Le mois de l'état des budgets.
+     */
+    private void printReport(PrintStream out, YearMonth month) throws IOException {
+        Path settingsFile = dataDir.resolve(BeyahCompta.BALANCES_AND_BUDGETS_FILE_SER);
+        LedgerSettings settings = LedgerSettings.read(settingsFile,
+                settingsFile.resolveSibling(settingsFile.getFileName() + BeyahCompta.BACKUP_EXTENSION));
+
+        // The balances are the sums of the rows, with the journal applied, as in the application
+        // Les soldes sont les sommes des lignes, journal appliqué, comme dans l'application
+        accounts.clearBalances();
+        LedgerAggregates aggregates = new LedgerAggregates();
+        streamLedger(rows -> {
+            for (Transaction t : rows) {
+                if (t != null) { // Skip deleted rows / Ignorer les lignes supprimées
+                    aggregates.apply(t);
+                    accounts.addToBalance(t.getAccountId(), t.getType() == BeyahCompta.TransactionType.DEBIT ? -t.getMontantCents() : t.getMontantCents());
+                }
+            }
+        });
+
+        CategoryStats stats = aggregates.getCategoryStats(month.atDay(1));
+        if (settings != null && settings.getBudgets() != null) {
+            settings.getBudgets().forEach(stats::setBudget);
+        } else {
+            Arrays.stream(BeyahCompta.TransactionCategory.values())
+                  .filter(cat -> cat != BeyahCompta.TransactionCategory.SALAIRE)
+                  .forEach(cat -> stats.putBudgetIfAbsent(cat, 0L));
+        }
+        journalBudgets.forEach(stats::setBudget);
+
+        out.println(REPORT_TOTAL_DEBIT_TITLE + " " + LedgerFormat.formatCurrency(aggregates.getTotalDebit()));
+        out.println(REPORT_TOTAL_CREDIT_TITLE + " " + LedgerFormat.formatCurrency(aggregates.getTotalCredit()));
+
+        out.println();
+        out.println(REPORT_ACCOUNT_BALANCES_TITLE);
+        for (int accountId : accounts.displayOrder()) {
+            out.println("  " + accounts.name(accountId) + ": " + LedgerFormat.formatCurrency(accounts.balance(accountId)));
+        }
+
+        out.println();
+        out.println(REPORT_EXPENSE_TITLE);
+        long totalSpend = 0;
+        for (BeyahCompta.TransactionCategory category : CategoryStats.displayOrder()) {
+            totalSpend += aggregates.getCategorySpend(category);
+        }
+        for (BeyahCompta.TransactionCategory category : CategoryStats.displayOrder()) {
+            long spent = aggregates.getCategorySpend(category);
+            if (spent != 0 && totalSpend != 0) { // Skip categories emptied by deletions / Ignorer les catégories vidées par des suppressions
+                out.printf(Locale.FRANCE, "  %s: %s (%.1f %%)%n", category, LedgerFormat.formatCurrency(spent), 100.0 * spent / totalSpend);
+            }
+        }
+
+        out.println();
+        out.println(REPORT_BUDGET_SUMMARY_TITLE + " (" + month + ")");
+        for (BeyahCompta.TransactionCategory category : CategoryStats.displayOrder()) { // Sorted by name / Triées par nom
+            if (!stats.hasBudget(category)) {
+                continue;
+            }
+            long budgeted = stats.getBudget(category);
+            long spent = stats.getPeriodSpend(category);
+            String line = "  " + category + ": " + LedgerFormat.formatCurrency(spent) + " / " + LedgerFormat.formatCurrency(budgeted);
+            switch (stats.getBudgetStatus(category)) { // The colors of the reports tab / Les couleurs de l'onglet des rapports
+                case EXCEEDED:
+                    line += " (" + BUDGET_EXCEEDED + ")";
+                    break;
+                case WITHIN:
+                    line += " (" + BUDGET_WITHIN + ")";
+                    break;
+                case NEAR:
+                    line += " (" + BUDGET_NEAR + ")";
+                    break;
+                default:
+                    break;
+            }
+            out.println(line);
+        }
+    }
+}
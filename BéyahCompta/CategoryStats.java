@@ -0,0 +1,200 @@
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-category state of the ledger held in primitive arrays indexed by {@code ordinal()}: budget,
+ * spend (debits) of the current period, all-time spend and number of transactions. The arrays are
+ * updated in place by {@link LedgerAggregates} on every mutation and the categories are listed in a
+ * display order sorted once, so refreshing the budget panel allocates no map. Amounts are in cents.
+ *
+ * <p>État par catégorie du grand livre conservé dans des tableaux primitifs indexés par {@code ordinal()} :
+ * budget, dépenses (débits) de la période en cours, dépenses cumulées et nombre de transactions. Les
+ * tableaux sont mis à jour sur place par {@link LedgerAggregates} à chaque mutation et les catégories sont
+ * parcourues dans un ordre d'affichage trié une seule fois : rafraîchir le panneau budgétaire n'alloue
+ * aucune carte. Les montants sont en centimes.</p>
+ */
+class CategoryStats {
+
+    /**
+     * Spend of the current period against the budget of a category.
+     *
+     * <p>Dépenses de la période en cours face au budget d'une catégorie.</p>
+     */
+    enum BudgetStatus {
+        NONE,     // No budget, or a zero budget / Aucun budget, ou un budget nul
+        WITHIN,   // At most 80% of the budget spent / Au plus 80 % du budget dépensé
+        NEAR,     // Between 80% and 100% / Entre 80 % et 100 %
+        EXCEEDED  // Over the budget / Au-delà du budget
+    }
+
+    private static final BeyahCompta.TransactionCategory[] CATEGORIES = BeyahCompta.TransactionCategory.values();
+    private static final BeyahCompta.TransactionCategory[] DISPLAY_ORDER = sortedByName();
+
+    private final long[] budgets = new long[CATEGORIES.length];
+    private final boolean[] budgeted = new boolean[CATEGORIES.length]; // Category listed in the budget panel / Catégorie listée dans le panneau budgétaire
+    private final long[] periodSpend = new long[CATEGORIES.length];
+    private final long[] totalSpend = new long[CATEGORIES.length];
+    private final int[] transactionCounts = new int[CATEGORIES.length];
+    private YearMonth period;
+
+    /**
+     * Constructs empty statistics for a period.
+     *
+     * <p>Construit des statistiques vides pour une période.</p>
+     *
+     * @param period The current period. / La période en cours.
+     */
+    public CategoryStats(YearMonth period) {
+        this.period = period;
+    }
+
+    private static BeyahCompta.TransactionCategory[] sortedByName() {
+        BeyahCompta.TransactionCategory[] sorted = CATEGORIES.clone();
+        Arrays.sort(sorted, Comparator.comparing(Enum::toString));
+        return sorted;
+    }
+
+    /**
+     * Returns the categories sorted by name. The array is shared and must not be modified.
+     *
+     * <p>Retourne les catégories triées par nom. Le tableau est partagé et ne doit pas être modifié.</p>
+     *
+     * @return The categories in display order. / Les catégories dans l'ordre d'affichage.
+     */
+    public static BeyahCompta.TransactionCategory[] displayOrder() {
+        return DISPLAY_ORDER;
+    }
+
+    // --- Budgets (cents) / Budgets (centimes) ---
+    public boolean hasBudget(BeyahCompta.TransactionCategory category) { return budgeted[category.ordinal()]; }
+    public long getBudget(BeyahCompta.TransactionCategory category) { return budgets[category.ordinal()]; }
+
+    /**
+     * Sets the budget of a category and lists it in the budget panel.
+     *
+     * <p>Définit le budget d'une catégorie et la liste dans le panneau budgétaire.</p>
+     *
+     * @param category The category. / La catégorie.
+     * @param amountCents The budget in cents. / Le budget en centimes.
+     */
+    public void setBudget(BeyahCompta.TransactionCategory category, long amountCents) {
+        budgets[category.ordinal()] = amountCents;
+        budgeted[category.ordinal()] = true;
+    }
+
+    /**
+     * Sets the budget of a category only if it has none yet.
+     *
+     * <p>Définit le budget d'une catégorie seulement si elle n'en a pas encore.</p>
+     *
+     * @param category The category. / La catégorie.
+     * @param amountCents The budget in cents. / Le budget en centimes.
+     */
+    public void putBudgetIfAbsent(BeyahCompta.TransactionCategory category, long amountCents) {
+        if (!budgeted[category.ordinal()]) {
+            setBudget(category, amountCents);
+        }
+    }
+
+    /**
+     * Removes every budget, before loading them.
+     *
+     * <p>Supprime tous les budgets, avant leur chargement.</p>
+     */
+    public void clearBudgets() {
+        Arrays.fill(budgets, 0L);
+        Arrays.fill(budgeted, false);
+    }
+
+    /**
+     * Returns the budgets by category, the form stored in data.ser.
+     *
+     * <p>Retourne les budgets par catégorie, la forme stockée dans data.ser.</p>
+     *
+     * @return A new map of budgets in cents. / Une nouvelle carte des budgets en centimes.
+     */
+    public Map<BeyahCompta.TransactionCategory, Long> budgetsByCategory() {
+        Map<BeyahCompta.TransactionCategory, Long> byCategory = new HashMap<>();
+        for (BeyahCompta.TransactionCategory category : CATEGORIES) {
+            if (budgeted[category.ordinal()]) {
+                byCategory.put(category, budgets[category.ordinal()]);
+            }
+        }
+        return byCategory;
+    }
+
+    /**
+     * Compares the spend of the current period with the budget of a category.
+     *
+     * <p>Compare les dépenses de la période en cours avec le budget d'une catégorie.</p>
+     *
+     * @param category The category. / La catégorie.
+     * @return The status of its budget. / L'état de son budget.
+     */
+    public BudgetStatus getBudgetStatus(BeyahCompta.TransactionCategory category) {
+        long budget = budgets[category.ordinal()];
+        long spent = periodSpend[category.ordinal()];
+        if (!budgeted[category.ordinal()] || budget <= 0) {
+            return BudgetStatus.NONE;
+        }
+        if (spent > budget) {
+            return BudgetStatus.EXCEEDED;
+        }
+        return spent * 5 <= budget * 4 ? BudgetStatus.WITHIN : BudgetStatus.NEAR;
+    }
+
+    // --- Spend (cents) / Dépenses (centimes) ---
+    public YearMonth getPeriod() { return period; }
+    public long getPeriodSpend(BeyahCompta.TransactionCategory category) { return periodSpend[category.ordinal()]; }
+    public long getTotalSpend(BeyahCompta.TransactionCategory category) { return totalSpend[category.ordinal()]; }
+    public int getTransactionCount(BeyahCompta.TransactionCategory category) { return transactionCounts[category.ordinal()]; }
+
+    /**
+     * Applies a signed change of one transaction in a category.
+     *
+     * <p>Applique la variation signée d'une transaction dans une catégorie.</p>
+     *
+     * @param category The category ordinal. / L'ordinal de la catégorie.
+     * @param month The month of the transaction. / Le mois de la transaction.
+     * @param spendDelta The change of spend in cents, 0 for a credit. / La variation des dépenses en centimes, 0 pour un crédit.
+     * @param countDelta +1 when applied, -1 when retracted. / +1 à l'application, -1 au retrait.
+     */
+    void record(int category, YearMonth month, long spendDelta, int countDelta) {
+        transactionCounts[category] += countDelta;
+        totalSpend[category] += spendDelta;
+        if (month.equals(period)) {
+            periodSpend[category] += spendDelta;
+        }
+    }
+
+    /**
+     * Moves to another period with its spend already summed per category.
+     *
+     * <p>Passe à une autre période dont les dépenses sont déjà sommées par catégorie.</p>
+     *
+     * @param newPeriod The new period. / La nouvelle période.
+     * @param spend The spend of that period by ordinal, or null if none. / Les dépenses de cette période par ordinal, ou null si aucune.
+     */
+    void setPeriod(YearMonth newPeriod, long[] spend) {
+        period = newPeriod;
+        if (spend == null) {
+            Arrays.fill(periodSpend, 0L);
+        } else {
+            System.arraycopy(spend, 0, periodSpend, 0, periodSpend.length);
+        }
+    }
+
+    /**
+     * Resets the spend and counts, keeping the budgets.
+     *
+     * <p>Remet à zéro les dépenses et les compteurs en conservant les budgets.</p>
+     */
+    void resetSpend() {
+        Arrays.fill(periodSpend, 0L);
+        Arrays.fill(totalSpend, 0L);
+        Arrays.fill(transactionCounts, 0);
+    }
+}
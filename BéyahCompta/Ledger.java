@@ -0,0 +1,720 @@
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * The ledger in memory: the transactions with their ID and search indexes, the report aggregates, the
+ * account balances with their history by day and by transaction, and the budgets. It has a single
+ * writer, the EDT in the application (the loading thread before it), and any number of readers on other
+ * threads: table queries, exports, saves and the HTTP API.
+ *
+ * <p>Readers work on {@link #snapshot() snapshots}: immutable, versioned views of the rows that are taken
+ * without copying the list. The rows are kept in chunks of {@value #CHUNK_SIZE}; a snapshot only copies
+ * the array of chunk references and shares the chunks. The writer appends into the free slots of a shared
+ * chunk, which no snapshot reads, and copies a shared chunk before overwriting one of its slots (an edit
+ * or a deletion). A transaction is never modified once in the ledger: an edit replaces the row by an
+ * edited copy. Mutations and snapshots are serialized by a {@link StampedLock}; the snapshot of an
+ * unchanged ledger is handed out again after a mere optimistic read.</p>
+ *
+ * <p>Le grand livre en mémoire : les transactions avec leurs index par ID et de recherche, les agrégats
+ * des rapports, les soldes des comptes avec leur historique par jour et par transaction, et les budgets.
+ * Il a un seul écrivain, l'EDT dans l'application (le thread de chargement avant lui), et un nombre
+ * quelconque de lecteurs sur d'autres threads : requêtes du tableau, exportations, sauvegardes et API HTTP.</p>
+ *
+ * <p>Les lecteurs travaillent sur des {@link #snapshot() instantanés} : des vues immuables et versionnées
+ * des lignes, prises sans copier la liste. Les lignes sont rangées par blocs de {@value #CHUNK_SIZE} ; un
+ * instantané ne copie que le tableau des références aux blocs et partage les blocs. L'écrivain ajoute dans
+ * les cases libres d'un bloc partagé, qu'aucun instantané ne lit, et copie un bloc partagé avant d'écraser
+ * l'une de ses cases (une modification ou une suppression). Une transaction n'est jamais modifiée une fois
+ * dans le grand livre : une modification remplace la ligne par une copie modifiée. Les mutations et les
+ * instantanés sont sérialisés par un {@link StampedLock} ; l'instantané d'un grand livre inchangé est
+ * redonné après une simple lecture optimiste.</p>
+ */
+final class Ledger {
+
+    private static final int CHUNK_SHIFT = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT; // Rows per chunk / Lignes par bloc
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int COMPACTION_MIN_TOMBSTONES = 64;
+
+    /**
+     * Immutable view of the rows at one version of the ledger, possibly with null tombstones.
+     *
+     * <p>Vue immuable des lignes à une version du grand livre, éventuellement avec des pierres tombales null.</p>
+     */
+    static final class Rows extends AbstractList<Transaction> implements RandomAccess {
+        private final Transaction[][] chunks;
+        private final int size;
+        private final long version;
+
+        private Rows(Transaction[][] chunks, int size, long version) {
+            this.chunks = chunks;
+            this.size = size;
+            this.version = version;
+        }
+
+        @Override
+        public Transaction get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return chunks[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        public long getVersion() { return version; }
+    }
+
+    private final LedgerStore store;
+    private final AccountRegistry accounts = AccountRegistry.SHARED;
+    private final LedgerAggregates aggregates = new LedgerAggregates();
+    private final LongIntHashMap transactionIndex = new LongIntHashMap(); // Transaction ID -> position
+    private final TrigramIndex searchIndex = new TrigramIndex(); // Substring search over description/account/category
+    private final BalanceTimeIndex balanceIndex = new BalanceTimeIndex(); // Flows by account and day / Flux par compte et par jour
+    private final RunningBalanceIndex runningBalances = new RunningBalanceIndex(); // Flows by account in date/ID order / Flux par compte dans l'ordre date/ID
+    private final StampedLock lock = new StampedLock();
+
+    // Written by the writer under the lock / Écrits par l'écrivain sous le verrou
+    private Transaction[][] chunks = new Transaction[16][];
+    private boolean[] shared = new boolean[16]; // Chunks a snapshot may read / Blocs qu'un instantané peut lire
+    private int size;
+    private int tombstones; // Null rows / Lignes null
+    private boolean indexesStale; // After a bulk load, until rebuildIndexes / Après un chargement en masse, jusqu'à rebuildIndexes
+    private long version;
+    private Rows lastRows;
+    private LedgerSnapshot lastCapture;
+
+    /**
+     * Constructs an empty ledger whose older months stay in the given store until paged in.
+     *
+     * <p>Construit un grand livre vide dont les mois anciens restent dans le stockage donné jusqu'à leur chargement.</p>
+     *
+     * @param store The monthly segments. / Les segments mensuels.
+     */
+    Ledger(LedgerStore store) {
+        this.store = store;
+    }
+
+    // --- Readers, any thread / Lecteurs, n'importe quel thread ---
+
+    /**
+     * Returns an immutable view of the current rows, in O(rows / {@value #CHUNK_SIZE}) the first time
+     * after a mutation and in O(1) afterwards.
+     *
+     * <p>Retourne une vue immuable des lignes actuelles, en O(lignes / {@value #CHUNK_SIZE}) la première
+     * fois après une mutation et en O(1) ensuite.</p>
+     *
+     * @return The rows, possibly with null tombstones. / Les lignes, éventuellement avec des pierres tombales null.
+     */
+    Rows snapshot() {
+        long stamp = lock.tryOptimisticRead();
+        Rows rows = lastRows;
+        long current = version;
+        if (lock.validate(stamp) && rows != null && rows.version == current) {
+            return rows;
+        }
+        stamp = lock.writeLock(); // Marks the chunks as shared / Marque les blocs comme partagés
+        try {
+            return snapshotLocked();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private Rows snapshotLocked() {
+        if (lastRows == null || lastRows.version != version) {
+            int chunkCount = (size + CHUNK_MASK) >>> CHUNK_SHIFT;
+            Arrays.fill(shared, 0, chunkCount, true);
+            lastRows = new Rows(Arrays.copyOf(chunks, chunkCount), size, version);
+        }
+        return lastRows;
+    }
+
+    /**
+     * Returns a snapshot of the whole ledger for readers such as the HTTP API: the rows, the months still
+     * on disk, the balances, the totals and the budgets, all at the same version. A ledger that did not
+     * change since the previous call returns the same snapshot.
+     *
+     * <p>Retourne un instantané de tout le grand livre pour des lecteurs comme l'API HTTP : les lignes, les
+     * mois encore sur disque, les soldes, les totaux et les budgets, tous à la même version. Un grand livre
+     * qui n'a pas changé depuis l'appel précédent retourne le même instantané.</p>
+     *
+     * @param today The day that sets the budget period. / Le jour qui fixe la période budgétaire.
+     * @return The snapshot. / L'instantané.
+     */
+    LedgerSnapshot capture(LocalDate today) {
+        long stamp = lock.tryOptimisticRead();
+        LedgerSnapshot capture = lastCapture;
+        long current = version;
+        if (lock.validate(stamp) && capture != null && capture.getVersion() == current
+                && capture.getPeriod().equals(YearMonth.from(today))) {
+            return capture;
+        }
+        stamp = lock.writeLock();
+        try {
+            if (lastCapture == null || lastCapture.getVersion() != version || !lastCapture.getPeriod().equals(YearMonth.from(today))) {
+                lastCapture = LedgerSnapshot.capture(version, store.getUnloadedSummaries(), store::read, snapshotLocked(),
+                        accounts, aggregates, today);
+            }
+            return lastCapture;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns the search index over the rows. It is thread-safe and its positions are those of the
+     * latest snapshot.
+     *
+     * <p>Retourne l'index de recherche sur les lignes. Il est thread-safe et ses positions sont celles du
+     * dernier instantané.</p>
+     *
+     * @return The index. / L'index.
+     */
+    TrigramIndex getSearchIndex() { return searchIndex; }
+
+    /**
+     * Returns the balance of an account at the end of a day, in O(log days): the current balance minus
+     * the flows after that day. If the day falls inside a month still on disk, whose flows the index only
+     * knows as a whole on its last day, the rows of that month are read to split it.
+     *
+     * <p>Retourne le solde d'un compte à la fin d'un jour, en O(log jours) : le solde actuel moins les flux
+     * postérieurs à ce jour. Si le jour tombe dans un mois encore sur disque, dont l'index ne connaît les
+     * flux que globalement à son dernier jour, les lignes de ce mois sont lues pour le répartir.</p>
+     *
+     * @param account The account name. / Le nom du compte.
+     * @param date The day. / Le jour.
+     * @return The balance, in cents. / Le solde, en centimes.
+     * @throws IOException If the month of the day cannot be read. / Si le mois du jour ne peut pas être lu.
+     * @throws IllegalArgumentException If the account is unknown. / Si le compte est inconnu.
+     */
+    long balanceAt(String account, LocalDate date) throws IOException {
+        int accountId = accountId(account);
+        long balance;
+        long flowAfter;
+        YearMonth onDisk;
+        long stamp = lock.readLock();
+        try {
+            balance = accounts.balance(accountId);
+            flowAfter = balanceIndex.totalFlow(accountId) - balanceIndex.flowUpTo(accountId, date.toEpochDay());
+            onDisk = monthOnDisk(date);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        if (onDisk != null) { // Counted as after the day, at the end of its month / Compté après le jour, à la fin de son mois
+            flowAfter -= flowOnDisk(accountId, onDisk, date);
+        }
+        return balance - flowAfter;
+    }
+
+    /**
+     * Returns the net flow (credits minus debits) of an account between two days, both included, in O(log days).
+     *
+     * <p>Retourne le flux net (crédits moins débits) d'un compte entre deux jours, tous deux inclus, en O(log jours).</p>
+     *
+     * @param account The account name. / Le nom du compte.
+     * @param from The first day. / Le premier jour.
+     * @param to The last day. / Le dernier jour.
+     * @return The net flow, in cents, 0 if the range is empty. / Le flux net, en centimes, 0 si la plage est vide.
+     * @throws IOException If the month of one end cannot be read. / Si le mois de l'une des bornes ne peut pas être lu.
+     * @throws IllegalArgumentException If the account is unknown. / Si le compte est inconnu.
+     */
+    long netFlow(String account, LocalDate from, LocalDate to) throws IOException {
+        int accountId = accountId(account);
+        if (to.isBefore(from)) {
+            return 0;
+        }
+        LocalDate before = from.minusDays(1);
+        long flow;
+        YearMonth toOnDisk;
+        YearMonth beforeOnDisk;
+        long stamp = lock.readLock();
+        try {
+            flow = balanceIndex.flowUpTo(accountId, to.toEpochDay()) - balanceIndex.flowUpTo(accountId, before.toEpochDay());
+            toOnDisk = monthOnDisk(to);
+            beforeOnDisk = monthOnDisk(before);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        if (toOnDisk != null) {
+            flow += flowOnDisk(accountId, toOnDisk, to);
+        }
+        if (beforeOnDisk != null) {
+            flow -= flowOnDisk(accountId, beforeOnDisk, before);
+        }
+        return flow;
+    }
+
+    private int accountId(String account) {
+        int accountId = accounts.find(account);
+        if (accountId < 0) {
+            throw new IllegalArgumentException("Compte inconnu: " + account);
+        }
+        return accountId;
+    }
+
+    /**
+     * Returns the month of a day if it is still on disk and the day is not its last one, under the lock.
+     *
+     * <p>Retourne le mois d'un jour s'il est encore sur disque et que le jour n'est pas son dernier, sous le verrou.</p>
+     */
+    private YearMonth monthOnDisk(LocalDate date) {
+        YearMonth month = YearMonth.from(date);
+        return store.needsLoading(month) && date.isBefore(month.atEndOfMonth()) ? month : null;
+    }
+
+    /**
+     * Sums the flows of an account in a month on disk up to a day, included.
+     *
+     * <p>Additionne les flux d'un compte dans un mois sur disque jusqu'à un jour, inclus.</p>
+     */
+    private long flowOnDisk(int accountId, YearMonth month, LocalDate date) throws IOException {
+        long flow = 0;
+        for (Transaction t : store.read(month)) {
+            if (t.getAccountId() == accountId && !t.getDate().isAfter(date)) {
+                flow += flow(t);
+            }
+        }
+        return flow;
+    }
+
+    // --- Writer only / Écrivain uniquement ---
+
+    /**
+     * Returns the report aggregates, to be read by the writer only.
+     *
+     * <p>Retourne les agrégats des rapports, à lire par l'écrivain uniquement.</p>
+     *
+     * @return The aggregates. / Les agrégats.
+     */
+    LedgerAggregates getAggregates() { return aggregates; }
+
+    /**
+     * Returns the budgets and spend per category, whose current period follows the given date.
+     *
+     * <p>Retourne les budgets et dépenses par catégorie, dont la période en cours suit la date donnée.</p>
+     *
+     * @param today The current date. / La date du jour.
+     * @return The statistics, to be read by the writer only. / Les statistiques, à lire par l'écrivain uniquement.
+     */
+    CategoryStats getCategoryStats(LocalDate today) {
+        long stamp = lock.writeLock(); // May start a new period / Peut commencer une nouvelle période
+        try {
+            return aggregates.getCategoryStats(today);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns the balance of the account of a transaction just after it, the transactions of an account
+     * being ordered by date then ID. In O(log rows), plus the prefix sums left stale by earlier changes.
+     *
+     * <p>Retourne le solde du compte d'une transaction juste après elle, les transactions d'un compte étant
+     * ordonnées par date puis ID. En O(log lignes), plus les sommes préfixes laissées périmées par les
+     * changements précédents.</p>
+     *
+     * @param t A transaction of the ledger. / Une transaction du grand livre.
+     * @return The balance, in cents. / Le solde, en centimes.
+     */
+    long balanceAfter(Transaction t) {
+        int accountId = t.getAccountId();
+        // The current balance minus the flows after the transaction / Le solde actuel moins les flux après la transaction
+        return accounts.balance(accountId) - runningBalances.totalFlow(accountId) + runningBalances.flowThrough(t);
+    }
+
+    /**
+     * Finds a transaction by its ID.
+     *
+     * <p>Trouve une transaction par son ID.</p>
+     *
+     * @param transactionId The ID to look for. / L'ID à rechercher.
+     * @return The transaction, or null if absent. / La transaction, ou null si absente.
+     */
+    Transaction find(long transactionId) {
+        int position = transactionIndex.get(transactionId);
+        return position < 0 ? null : row(position);
+    }
+
+    private Transaction row(int position) {
+        return chunks[position >>> CHUNK_SHIFT][position & CHUNK_MASK];
+    }
+
+    /**
+     * Adds a new transaction: appends it, indexes it and applies it to the totals and its account balance.
+     *
+     * <p>Ajoute une nouvelle transaction : l'ajoute à la fin, l'indexe et l'applique aux totaux et au solde de son compte.</p>
+     *
+     * @param t The transaction, no longer modified afterwards. / La transaction, plus modifiée ensuite.
+     */
+    void add(Transaction t) {
+        long stamp = lock.writeLock();
+        try {
+            append(t);
+            aggregates.apply(t);
+            updateAccountBalance(t.getAccountId(), t.getType(), t.getMontantCents());
+            balanceIndex.add(t.getAccountId(), t.getDate().toEpochDay(), flow(t));
+            runningBalances.put(t);
+            version++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Replaces a transaction by an edited copy with the same ID, moving its impact on the totals and the balances.
+     *
+     * <p>Remplace une transaction par une copie modifiée de même ID, en déplaçant son impact sur les totaux et les soldes.</p>
+     *
+     * @param edited The edited copy, no longer modified afterwards. / La copie modifiée, plus modifiée ensuite.
+     * @return The replaced transaction, or null if absent. / La transaction remplacée, ou null si absente.
+     */
+    Transaction replace(Transaction edited) {
+        long stamp = lock.writeLock();
+        try {
+            int position = transactionIndex.get(edited.getId());
+            if (position < 0) {
+                return null;
+            }
+            Transaction previous = row(position);
+            updateAccountBalance(previous.getAccountId(), previous.getType().reverse(), previous.getMontantCents()); // Reverse the old transaction / Inverser l'ancienne transaction
+            aggregates.retract(previous);
+            balanceIndex.add(previous.getAccountId(), previous.getDate().toEpochDay(), -flow(previous));
+            set(position, edited);
+            if (!indexesStale) {
+                searchIndex.index(position, edited);
+            }
+            updateAccountBalance(edited.getAccountId(), edited.getType(), edited.getMontantCents());
+            aggregates.apply(edited);
+            balanceIndex.add(edited.getAccountId(), edited.getDate().toEpochDay(), flow(edited));
+            if (previous.getAccountId() != edited.getAccountId() || !previous.getDate().equals(edited.getDate())) {
+                runningBalances.remove(previous); // Moved / Déplacée
+            }
+            runningBalances.put(edited);
+            version++;
+            return previous;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes a transaction in O(1) by leaving a null tombstone at its position, and reverts its impact on
+     * the totals and the balance. The rows are compacted once tombstones make up a quarter of them, so the
+     * cost of shifting rows is amortized.
+     *
+     * <p>Supprime une transaction en O(1) en laissant une pierre tombale null à sa position, et annule son
+     * impact sur les totaux et le solde. Les lignes sont compactées dès que les pierres tombales en
+     * représentent un quart : le coût du décalage des lignes est donc amorti.</p>
+     *
+     * @param transactionId The ID of the transaction to remove. / L'ID de la transaction à supprimer.
+     * @return The removed transaction, or null if absent. / La transaction supprimée, ou null si absente.
+     */
+    Transaction remove(long transactionId) {
+        long stamp = lock.writeLock();
+        try {
+            int position = transactionIndex.remove(transactionId);
+            if (position < 0) {
+                return null;
+            }
+            Transaction removed = row(position);
+            set(position, null);
+            searchIndex.remove(position);
+            tombstones++;
+            updateAccountBalance(removed.getAccountId(), removed.getType().reverse(), removed.getMontantCents());
+            aggregates.retract(removed);
+            balanceIndex.add(removed.getAccountId(), removed.getDate().toEpochDay(), -flow(removed));
+            runningBalances.remove(removed);
+            version++;
+            if (tombstones >= COMPACTION_MIN_TOMBSTONES && tombstones * 4 >= size) {
+                compactLocked();
+            }
+            return removed;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Adds the rows of a month read from its segment and marks it loaded in the store. The totals and the
+     * balances already include them; their flows move from the last day of the month to their own day.
+     * The rows go after those already loaded, whatever their month: readers that list rows put them in
+     * date order, see {@link TransactionQuery#inDateOrder(List, int[])}. Does nothing if the month is
+     * already loaded.
+     *
+     * <p>Ajoute les lignes d'un mois lues depuis son segment et le marque comme chargé dans le stockage. Les
+     * totaux et les soldes les incluent déjà ; leurs flux passent du dernier jour du mois à leur propre jour.
+     * Les lignes vont après celles déjà chargées, quel que soit leur mois : les lecteurs qui listent les
+     * lignes les remettent dans l'ordre des dates, voir {@link TransactionQuery#inDateOrder(List, int[])}.
+     * Ne fait rien si le mois est déjà chargé.</p>
+     *
+     * @param month The month. / Le mois.
+     * @param rows The rows of its segment. / Les lignes de son segment.
+     * @return False if the month was already loaded. / Faux si le mois était déjà chargé.
+     */
+    boolean pageIn(YearMonth month, List<Transaction> rows) {
+        long stamp = lock.writeLock(); // Readers see the rows and the store change together / Les lecteurs voient changer ensemble les lignes et le stockage
+        try {
+            if (!store.needsLoading(month)) { // Loaded meanwhile / Chargé entre-temps
+                return false;
+            }
+            long lastDay = month.atEndOfMonth().toEpochDay();
+            for (Transaction t : rows) {
+                append(t);
+                balanceIndex.add(t.getAccountId(), lastDay, -flow(t));
+                balanceIndex.add(t.getAccountId(), t.getDate().toEpochDay(), flow(t));
+                runningBalances.removeMonth(t.getAccountId(), month);
+            }
+            runningBalances.addAll(rows);
+            store.markLoaded(month);
+            version++;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Replaces the whole ledger by rows read from a single file and recomputes the totals and the account
+     * balances from them. The indexes are left stale until {@link #rebuildIndexes}.
+     *
+     * <p>Remplace tout le grand livre par des lignes lues depuis un fichier unique et en recalcule les
+     * totaux et les soldes de compte. Les index restent périmés jusqu'à {@link #rebuildIndexes}.</p>
+     *
+     * @param rows The rows, possibly with null tombstones. / Les lignes, éventuellement avec des pierres tombales null.
+     */
+    void load(List<Transaction> rows) {
+        long stamp = lock.writeLock();
+        try {
+            clearRows();
+            balanceIndex.clear();
+            runningBalances.clear();
+            accounts.clearBalances();
+            for (Transaction t : rows) {
+                append(t);
+                if (t == null) {
+                    tombstones++;
+                } else {
+                    balanceIndex.add(t.getAccountId(), t.getDate().toEpochDay(), flow(t));
+                    updateAccountBalance(t.getAccountId(), t.getType(), t.getMontantCents());
+                }
+            }
+            runningBalances.addAll(rows);
+            aggregates.rebuild(rows);
+            version++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Empties the ledger and takes the totals and the account balances from the month summaries of the
+     * store, without reading any row; the flows of each account count on the last day of each month until
+     * the month is added by {@link #pageIn}. The indexes are left stale until {@link #rebuildIndexes}.
+     *
+     * <p>Vide le grand livre et prend les totaux et les soldes de compte dans les synthèses mensuelles du
+     * stockage, sans lire aucune ligne ; les flux de chaque compte comptent au dernier jour de chaque mois
+     * jusqu'à ce que le mois soit ajouté par {@link #pageIn}. Les index restent périmés jusqu'à
+     * {@link #rebuildIndexes}.</p>
+     *
+     * @param summaries The summary of every month. / La synthèse de chaque mois.
+     */
+    void loadSummaries(List<LedgerStore.Summary> summaries) {
+        long stamp = lock.writeLock();
+        try {
+            clearRows();
+            aggregates.rebuildFromSummaries(summaries);
+            balanceIndex.clear();
+            runningBalances.clear();
+            accounts.clearBalances(); // Rebuilt from the segments, never stored / Reconstruits depuis les segments, jamais stockés
+            for (LedgerStore.Summary summary : summaries) {
+                long lastDay = summary.getMonth().atEndOfMonth().toEpochDay();
+                for (Map.Entry<String, Long> net : summary.getAccountNets().entrySet()) {
+                    // Registers accounts only used in older months / Enregistre les comptes utilisés seulement dans des mois anciens
+                    int accountId = accounts.register(net.getKey());
+                    balanceIndex.add(accountId, lastDay, net.getValue());
+                    runningBalances.putMonth(accountId, summary.getMonth(), net.getValue());
+                    accounts.addToBalance(accountId, net.getValue());
+                }
+            }
+            version++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Drops the null tombstones and rebuilds the indexes.
+     *
+     * <p>Retire les pierres tombales null et reconstruit les index.</p>
+     */
+    void compact() {
+        long stamp = lock.writeLock();
+        try {
+            compactLocked();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void compactLocked() {
+        if (tombstones == 0) {
+            return;
+        }
+        Rows rows = new Rows(Arrays.copyOf(chunks, (size + CHUNK_MASK) >>> CHUNK_SHIFT), size, version);
+        clearRows(); // Fresh chunks, the old ones stay with the snapshots / Blocs neufs, les anciens restent aux instantanés
+        for (Transaction t : rows) {
+            if (t != null) {
+                append(t);
+            }
+        }
+        rebuildIndexesLocked();
+        version++;
+    }
+
+    /**
+     * Rebuilds the ID index and the search index from the current rows.
+     *
+     * <p>Reconstruit l'index des ID et l'index de recherche à partir des lignes actuelles.</p>
+     */
+    void rebuildIndexes() {
+        long stamp = lock.writeLock();
+        try {
+            rebuildIndexesLocked();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void rebuildIndexesLocked() {
+        transactionIndex.clear(size);
+        for (int i = 0; i < size; i++) {
+            Transaction t = row(i);
+            if (t != null) {
+                transactionIndex.put(t.getId(), i);
+            }
+        }
+        searchIndex.rebuild(snapshotLocked());
+        indexesStale = false;
+    }
+
+    /**
+     * Sets the budget of a category.
+     *
+     * <p>Définit le budget d'une catégorie.</p>
+     *
+     * @param category The category. / La catégorie.
+     * @param amountCents The budget, in cents. / Le budget, en centimes.
+     */
+    void setBudget(BeyahCompta.TransactionCategory category, long amountCents) {
+        long stamp = lock.writeLock();
+        try {
+            aggregates.getCategoryStats(LocalDate.now()).setBudget(category, amountCents);
+            version++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Gives a zero budget to the categories without one.
+     *
+     * <p>Donne un budget nul aux catégories qui n'en ont pas.</p>
+     *
+     * @param categories The categories. / Les catégories.
+     */
+    void putBudgetsIfAbsent(Iterable<BeyahCompta.TransactionCategory> categories) {
+        long stamp = lock.writeLock();
+        try {
+            for (BeyahCompta.TransactionCategory category : categories) {
+                aggregates.getCategoryStats(LocalDate.now()).putBudgetIfAbsent(category, 0L);
+            }
+            version++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Replaces the budgets by those read from the settings file.
+     *
+     * <p>Remplace les budgets par ceux lus depuis le fichier de paramètres.</p>
+     *
+     * @param budgets The budgets. / Les budgets.
+     */
+    void restoreBudgets(Map<BeyahCompta.TransactionCategory, Long> budgets) {
+        long stamp = lock.writeLock();
+        try {
+            CategoryStats stats = aggregates.getCategoryStats(LocalDate.now());
+            stats.clearBudgets(); // Replaced by the stored budgets / Remplacés par les budgets stockés
+            budgets.forEach(stats::setBudget);
+            version++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // --- Rows, under the write lock / Lignes, sous le verrou d'écriture ---
+
+    private void append(Transaction t) {
+        int chunk = size >>> CHUNK_SHIFT;
+        if (chunk == chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunk * 2);
+            shared = Arrays.copyOf(shared, chunk * 2);
+        }
+        if (chunks[chunk] == null) {
+            chunks[chunk] = new Transaction[CHUNK_SIZE];
+            shared[chunk] = false;
+        }
+        chunks[chunk][size & CHUNK_MASK] = t; // Past the end of any snapshot / Au-delà de la fin de tout instantané
+        if (t != null && !indexesStale) {
+            transactionIndex.put(t.getId(), size);
+            searchIndex.index(size, t);
+        }
+        size++;
+    }
+
+    private void set(int position, Transaction t) {
+        int chunk = position >>> CHUNK_SHIFT;
+        if (shared[chunk]) { // Copy on write / Copie à l'écriture
+            chunks[chunk] = chunks[chunk].clone();
+            shared[chunk] = false;
+        }
+        chunks[chunk][position & CHUNK_MASK] = t;
+    }
+
+    private void clearRows() {
+        chunks = new Transaction[16][];
+        shared = new boolean[16];
+        size = 0;
+        tombstones = 0;
+        indexesStale = true;
+    }
+
+    /**
+     * Updates the balance of a specific account based on a transaction.
+     *
+     * <p>Met à jour le solde d'un compte spécifique en fonction d'une transaction.</p>
+     *
+     * @param accountId The id of the account in the registry. / L'identifiant du compte dans le registre.
+     * @param type The type of transaction (DEBIT or CREDIT). / Le type de transaction (DÉBIT ou CRÉDIT).
+     * @param amount The amount of the transaction in cents. / Le montant de la transaction en centimes.
+     */
+    private void updateAccountBalance(int accountId, BeyahCompta.TransactionType type, long amount) {
+        accounts.addToBalance(accountId, type == BeyahCompta.TransactionType.DEBIT ? -amount : amount);
+    }
+
+    private static long flow(Transaction t) {
+        return t.getType() == BeyahCompta.TransactionType.DEBIT ? -t.getMontantCents() : t.getMontantCents();
+    }
+}
@@ -0,0 +1,154 @@
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Incrementally maintained ledger aggregates: total debit/credit, all-time spend per category
+ * and spend per category for each month. Every mutation of the ledger is applied as a delta
+ * so that the reports can be refreshed in O(categories) instead of rescanning all transactions.
+ * Amounts are in cents, so the sums are exact. The per-category figures live in a {@link CategoryStats}.
+ *
+ * <p>Agrégats du grand livre maintenus de façon incrémentale : total des débits/crédits,
+ * dépenses cumulées par catégorie et dépenses par catégorie pour chaque mois. Chaque mutation
+ * est appliquée sous forme de delta afin que les rapports soient rafraîchis en O(catégories)
+ * au lieu de reparcourir toutes les transactions. Les montants sont en centimes : les sommes sont exactes. Les chiffres par catégorie vivent dans un {@link CategoryStats}.</p>
+ */
+class LedgerAggregates {
+
+    private static final int CATEGORY_COUNT = BeyahCompta.TransactionCategory.values().length;
+
+    private long totalDebit;
+    private long totalCredit;
+    private final CategoryStats categoryStats = new CategoryStats(YearMonth.now());
+    private final Map<YearMonth, long[]> monthlyCategorySpend = new HashMap<>();
+
+    /**
+     * Recomputes every aggregate from scratch. Only used after bulk loads.
+     *
+     * <p>Recalcule tous les agrégats depuis zéro. Utilisé uniquement après un chargement en masse.</p>
+     *
+     * @param transactions The full list of transactions, possibly with null tombstones. / La liste complète des transactions, éventuellement avec des pierres tombales null.
+     */
+    public void rebuild(List<Transaction> transactions) {
+        clear();
+        for (Transaction t : transactions) {
+            if (t != null) { // Skip deleted rows / Ignorer les lignes supprimées
+                apply(t);
+            }
+        }
+    }
+
+    /**
+     * Recomputes every aggregate from the month summaries of the segment store, without reading any row.
+     *
+     * <p>Recalcule tous les agrégats à partir des synthèses mensuelles du stockage en segments, sans lire aucune ligne.</p>
+     *
+     * @param summaries The summary of every month. / La synthèse de chaque mois.
+     */
+    public void rebuildFromSummaries(List<LedgerStore.Summary> summaries) {
+        clear();
+        for (LedgerStore.Summary summary : summaries) {
+            YearMonth month = summary.getMonth();
+            totalDebit += summary.getTotalDebit();
+            totalCredit += summary.getTotalCredit();
+            long[] spend = monthlyCategorySpend.computeIfAbsent(month, m -> new long[CATEGORY_COUNT]);
+            for (int category = 0; category < CATEGORY_COUNT; category++) {
+                categoryStats.record(category, month, summary.getCategorySpend(category), summary.getCategoryCount(category));
+                spend[category] += summary.getCategorySpend(category);
+            }
+        }
+    }
+
+    private void clear() {
+        totalDebit = 0;
+        totalCredit = 0;
+        categoryStats.resetSpend();
+        monthlyCategorySpend.clear();
+    }
+
+    /**
+     * Adds the impact of a transaction to the aggregates.
+     *
+     * <p>Ajoute l'impact d'une transaction aux agrégats.</p>
+     *
+     * @param t The transaction to apply. / La transaction à appliquer.
+     */
+    public void apply(Transaction t) {
+        applyDelta(t, 1);
+    }
+
+    /**
+     * Removes the impact of a transaction from the aggregates. This is the aggregate counterpart of
+     * {@link BeyahCompta.TransactionType#reverse()}: the same delta is applied with the opposite sign.
+     *
+     * <p>Retire l'impact d'une transaction des agrégats. C'est l'équivalent pour les agrégats de
+     * {@link BeyahCompta.TransactionType#reverse()} : le même delta est appliqué avec le signe opposé.</p>
+     *
+     * @param t The transaction to retract. / La transaction à retirer.
+     */
+    public void retract(Transaction t) {
+        applyDelta(t, -1);
+    }
+
+    private void applyDelta(Transaction t, int sign) {
+        long delta = sign * t.getMontantCents();
+        int category = t.getCategory().ordinal();
+        YearMonth month = YearMonth.from(t.getDate());
+        if (t.getType() == BeyahCompta.TransactionType.CREDIT) {
+            totalCredit += delta;
+            categoryStats.record(category, month, 0, sign);
+            return;
+        }
+        totalDebit += delta;
+        categoryStats.record(category, month, delta, sign);
+        monthlyCategorySpend.computeIfAbsent(month, m -> new long[CATEGORY_COUNT])[category] += delta;
+    }
+
+    /**
+     * Returns the per-category statistics, whose current period follows the given date.
+     *
+     * <p>Retourne les statistiques par catégorie, dont la période en cours suit la date donnée.</p>
+     *
+     * @param today The current date. / La date du jour.
+     * @return The statistics, updated in place by later mutations. / Les statistiques, mises à jour sur place par les mutations suivantes.
+     */
+    public CategoryStats getCategoryStats(LocalDate today) {
+        YearMonth period = YearMonth.from(today);
+        if (!period.equals(categoryStats.getPeriod())) { // New month / Nouveau mois
+            categoryStats.setPeriod(period, monthlyCategorySpend.get(period));
+        }
+        return categoryStats;
+    }
+
+    // --- Getters (cents) / Accesseurs (centimes) ---
+    public long getTotalDebit() { return totalDebit; }
+    public long getTotalCredit() { return totalCredit; }
+
+    /**
+     * Returns the all-time spend (debits) of a category.
+     *
+     * <p>Retourne les dépenses cumulées (débits) d'une catégorie.</p>
+     *
+     * @param category The category. / La catégorie.
+     * @return The total spent, in cents. / Le total dépensé, en centimes.
+     */
+    public long getCategorySpend(BeyahCompta.TransactionCategory category) {
+        return categoryStats.getTotalSpend(category);
+    }
+
+    /**
+     * Returns the spend (debits) of a category during the month containing the given date.
+     *
+     * <p>Retourne les dépenses (débits) d'une catégorie pendant le mois contenant la date donnée.</p>
+     *
+     * @param category The category. / La catégorie.
+     * @param date Any date within the month. / N'importe quelle date du mois.
+     * @return The total spent during that month, in cents. / Le total dépensé pendant ce mois, en centimes.
+     */
+    public long getMonthlyCategorySpend(BeyahCompta.TransactionCategory category, LocalDate date) {
+        long[] month = monthlyCategorySpend.get(YearMonth.from(date));
+        return month == null ? 0 : month[category.ordinal()];
+    }
+}
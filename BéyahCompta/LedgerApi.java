@@ -0,0 +1,415 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Local read-only HTTP API over the ledger, on the JDK's embedded server, so that other tools can read
+ * balances, totals, budgets and transactions without the window. It listens on the loopback interface
+ * only. Every request is answered from a {@link LedgerSnapshot}, or from the balance history of the
+ * {@link Ledger} for dated balances, on its own thread: a virtual thread where the JDK has them (21+,
+ * found by reflection), a cached pool of daemon threads otherwise.
+ *
+ * <p>Endpoints (GET) / Points d'accès (GET) :
+ * {@code /api/balances}, {@code /api/report}, {@code /api/budgets},
+ * {@code /api/transactions?type=&category=&search=&page=&size=} (JSON pages),
+ * {@code /api/transactions.csv} (the same filters, streamed in the export format),
+ * {@code /api/balance-at?account=&date=} and {@code /api/net-flow?account=&from=&to=}.
+ * Amounts are in cents, dates in ISO format ({@code 2024-01-31}). / Les montants sont en centimes, les
+ * dates au format ISO ({@code 2024-01-31}).</p>
+ *
+ * <p>API HTTP locale en lecture seule sur le grand livre, sur le serveur embarqué du JDK, pour que
+ * d'autres outils puissent lire les soldes, totaux, budgets et transactions sans la fenêtre. Elle
+ * n'écoute que sur l'interface de bouclage. Chaque requête est servie depuis un {@link LedgerSnapshot},
+ * ou depuis l'historique des soldes du {@link Ledger} pour les soldes datés, sur son propre thread : un
+ * thread virtuel là où le JDK en dispose (21+, trouvé par réflexion), sinon un pool extensible de threads
+ * démons.</p>
+ */
+final class LedgerApi implements AutoCloseable {
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final String JSON_TYPE = "application/json; charset=utf-8";
+    private static final String CSV_TYPE = "text/csv; charset=utf-8";
+
+    /**
+     * Writes the response of an endpoint.
+     *
+     * <p>Écrit la réponse d'un point d'accès.</p>
+     */
+    private interface Endpoint {
+        void handle(HttpExchange exchange, Map<String, String> parameters) throws IOException;
+    }
+
+    /**
+     * Writes the response of an endpoint served from a snapshot.
+     *
+     * <p>Écrit la réponse d'un point d'accès servi depuis un instantané.</p>
+     */
+    private interface SnapshotEndpoint {
+        void handle(HttpExchange exchange, LedgerSnapshot snapshot, Map<String, String> parameters) throws IOException;
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Ledger ledger;
+
+    private LedgerApi(HttpServer server, ExecutorService executor, Ledger ledger) {
+        this.server = server;
+        this.executor = executor;
+        this.ledger = ledger;
+    }
+
+    /**
+     * Starts the API on the loopback interface.
+     *
+     * <p>Démarre l'API sur l'interface de bouclage.</p>
+     *
+     * @param port The port, 0 for any free port. / Le port, 0 pour n'importe quel port libre.
+     * @param ledger The ledger, read on request threads. / Le grand livre, lu sur les threads des requêtes.
+     * @return The running API. / L'API démarrée.
+     * @throws IOException If the port cannot be bound. / Si le port ne peut pas être ouvert.
+     */
+    static LedgerApi start(int port, Ledger ledger) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        ExecutorService executor = newExecutor();
+        LedgerApi api = new LedgerApi(server, executor, ledger);
+        api.register("/api/balances", LedgerApi::balances);
+        api.register("/api/report", LedgerApi::report);
+        api.register("/api/budgets", LedgerApi::budgets);
+        api.register("/api/transactions", LedgerApi::transactions);
+        api.register("/api/transactions.csv", LedgerApi::transactionsCsv);
+        api.register("/api/balance-at", api::balanceAt);
+        api.register("/api/net-flow", api::netFlow);
+        server.setExecutor(executor);
+        server.start();
+        return api;
+    }
+
+    private static ExecutorService newExecutor() {
+        try { // Java 21+: one virtual thread per request / Java 21+ : un thread virtuel par requête
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "BeyahCompta-api");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    /**
+     * Returns the port the API listens on.
+     *
+     * <p>Retourne le port sur lequel l'API écoute.</p>
+     *
+     * @return The port. / Le port.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void register(String path, SnapshotEndpoint endpoint) {
+        register(path, (exchange, parameters) -> endpoint.handle(exchange, ledger.capture(LocalDate.now()), parameters));
+    }
+
+    private void register(String path, Endpoint endpoint) {
+        server.createContext(path, exchange -> {
+            try {
+                if (!path.equals(exchange.getRequestURI().getPath())) {
+                    sendError(exchange, 404, "Ressource inconnue");
+                } else if (!"GET".equals(exchange.getRequestMethod())) {
+                    exchange.getResponseHeaders().set("Allow", "GET");
+                    sendError(exchange, 405, "Méthode non autorisée");
+                } else {
+                    endpoint.handle(exchange, parameters(exchange.getRequestURI().getRawQuery()));
+                }
+            } catch (IllegalArgumentException e) { // Bad parameter / Paramètre invalide
+                sendError(exchange, 400, e.getMessage());
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Erreur de l'API sur " + exchange.getRequestURI() + ": " + e.getMessage());
+                e.printStackTrace();
+                sendError(exchange, 500, "Erreur interne");
+            } finally {
+                exchange.close();
+            }
+        });
+    }
+
+    // --- Endpoints / Points d'accès ---
+
+    private static void balances(HttpExchange exchange, LedgerSnapshot snapshot, Map<String, String> parameters) throws IOException {
+        StringBuilder json = new StringBuilder(256);
+        json.append("{\"version\":").append(snapshot.getVersion()).append(",\"accounts\":[");
+        boolean first = true;
+        for (Map.Entry<String, Long> entry : snapshot.getBalances().entrySet()) {
+            json.append(first ? "" : ",").append("{\"account\":");
+            appendString(json, entry.getKey());
+            json.append(",\"balanceCents\":").append(entry.getValue()).append('}');
+            first = false;
+        }
+        json.append("],\"totalCents\":").append(snapshot.getTotalBalance()).append('}');
+        sendJson(exchange, json);
+    }
+
+    private static void report(HttpExchange exchange, LedgerSnapshot snapshot, Map<String, String> parameters) throws IOException {
+        StringBuilder json = new StringBuilder(512);
+        json.append("{\"version\":").append(snapshot.getVersion())
+            .append(",\"totalDebitCents\":").append(snapshot.getTotalDebit())
+            .append(",\"totalCreditCents\":").append(snapshot.getTotalCredit())
+            .append(",\"categories\":[");
+        boolean first = true;
+        for (BeyahCompta.TransactionCategory category : CategoryStats.displayOrder()) {
+            json.append(first ? "" : ",").append("{\"category\":");
+            appendString(json, category.toString());
+            json.append(",\"spendCents\":").append(snapshot.getCategorySpend(category)).append('}');
+            first = false;
+        }
+        json.append("]}");
+        sendJson(exchange, json);
+    }
+
+    private static void budgets(HttpExchange exchange, LedgerSnapshot snapshot, Map<String, String> parameters) throws IOException {
+        StringBuilder json = new StringBuilder(512);
+        json.append("{\"version\":").append(snapshot.getVersion()).append(",\"period\":\"").append(snapshot.getPeriod()).append("\",\"categories\":[");
+        boolean first = true;
+        for (BeyahCompta.TransactionCategory category : CategoryStats.displayOrder()) {
+            if (!snapshot.hasBudget(category)) {
+                continue;
+            }
+            json.append(first ? "" : ",").append("{\"category\":");
+            appendString(json, category.toString());
+            json.append(",\"budgetCents\":").append(snapshot.getBudget(category))
+                .append(",\"spentCents\":").append(snapshot.getPeriodSpend(category))
+                .append(",\"status\":\"").append(snapshot.getBudgetStatus(category)).append("\"}");
+            first = false;
+        }
+        json.append("]}");
+        sendJson(exchange, json);
+    }
+
+    private static void transactions(HttpExchange exchange, LedgerSnapshot snapshot, Map<String, String> parameters) throws IOException {
+        TransactionQuery query = query(parameters);
+        int page = intParameter(parameters, "page", 0, Integer.MAX_VALUE, 0);
+        int size = intParameter(parameters, "size", 1, MAX_PAGE_SIZE, DEFAULT_PAGE_SIZE);
+        long from = (long) page * size;
+        List<Transaction> pageRows = new ArrayList<>(size);
+        long[] total = new long[1];
+        snapshot.forEachBatch(query, rows -> { // Only the requested page is kept / Seule la page demandée est conservée
+            for (Transaction t : rows) {
+                if (query.matches(t)) {
+                    if (total[0] >= from && pageRows.size() < size) {
+                        pageRows.add(t);
+                    }
+                    total[0]++;
+                }
+            }
+        });
+
+        StringBuilder json = new StringBuilder(128 + pageRows.size() * 160);
+        json.append("{\"version\":").append(snapshot.getVersion())
+            .append(",\"total\":").append(total[0])
+            .append(",\"page\":").append(page)
+            .append(",\"size\":").append(size)
+            .append(",\"transactions\":[");
+        for (int i = 0; i < pageRows.size(); i++) {
+            Transaction t = pageRows.get(i);
+            json.append(i == 0 ? "" : ",").append("{\"id\":").append(t.getId())
+                .append(",\"date\":\"").append(t.getDate()).append("\",\"account\":");
+            appendString(json, t.getAccount());
+            json.append(",\"type\":");
+            appendString(json, t.getType().toString());
+            json.append(",\"category\":");
+            appendString(json, t.getCategory().toString());
+            json.append(",\"description\":");
+            appendString(json, t.getDescription());
+            json.append(",\"amountCents\":").append(t.getMontantCents()).append('}');
+        }
+        json.append("]}");
+        sendJson(exchange, json);
+    }
+
+    private static void transactionsCsv(HttpExchange exchange, LedgerSnapshot snapshot, Map<String, String> parameters) throws IOException {
+        TransactionQuery query = query(parameters);
+        exchange.getResponseHeaders().set("Content-Type", CSV_TYPE);
+        exchange.sendResponseHeaders(200, 0); // Chunked: the size is not known in advance / Par morceaux : la taille n'est pas connue à l'avance
+        try (OutputStream body = exchange.getResponseBody()) {
+            WritableByteChannel channel = Channels.newChannel(body);
+            LedgerCsv.writeHeader(channel);
+            snapshot.forEachBatch(query, rows -> {
+                List<Transaction> matching = new ArrayList<>();
+                for (Transaction t : rows) {
+                    if (query.matches(t)) {
+                        matching.add(t);
+                    }
+                }
+                LedgerCsv.writeRows(channel, matching);
+            });
+        }
+    }
+
+    private void balanceAt(HttpExchange exchange, Map<String, String> parameters) throws IOException {
+        String account = requiredParameter(parameters, "account");
+        LocalDate date = dateParameter(parameters, "date");
+        StringBuilder json = new StringBuilder(128).append("{\"account\":");
+        appendString(json, account);
+        json.append(",\"date\":\"").append(date)
+            .append("\",\"balanceCents\":").append(ledger.balanceAt(account, date)).append('}');
+        sendJson(exchange, json);
+    }
+
+    private void netFlow(HttpExchange exchange, Map<String, String> parameters) throws IOException {
+        String account = requiredParameter(parameters, "account");
+        LocalDate from = dateParameter(parameters, "from");
+        LocalDate to = dateParameter(parameters, "to");
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Période invalide: from après to");
+        }
+        StringBuilder json = new StringBuilder(160).append("{\"account\":");
+        appendString(json, account);
+        json.append(",\"from\":\"").append(from).append("\",\"to\":\"").append(to)
+            .append("\",\"netFlowCents\":").append(ledger.netFlow(account, from, to)).append('}');
+        sendJson(exchange, json);
+    }
+
+    // --- Parameters / Paramètres ---
+
+    private static TransactionQuery query(Map<String, String> parameters) {
+        String type = parameters.get("type");
+        return new TransactionQuery(type == null || type.isEmpty() ? null : BeyahCompta.TransactionType.fromString(type),
+                parameters.get("category"), parameters.getOrDefault("search", ""));
+    }
+
+    private static int intParameter(Map<String, String> parameters, String name, int min, int max, int defaultValue) {
+        String value = parameters.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed < min || parsed > max) {
+                throw new IllegalArgumentException("Paramètre hors limites: " + name + " (" + min + " à " + max + ")");
+            }
+            return parsed;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Paramètre invalide: " + name);
+        }
+    }
+
+    private static String requiredParameter(Map<String, String> parameters, String name) {
+        String value = parameters.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Paramètre manquant: " + name);
+        }
+        return value;
+    }
+
+    private static LocalDate dateParameter(Map<String, String> parameters, String name) {
+        try {
+            return LocalDate.parse(requiredParameter(parameters, name));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Date invalide: " + name + " (AAAA-MM-JJ)");
+        }
+    }
+
+    private static Map<String, String> parameters(String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null) {
+            return parameters;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = decode(equals < 0 ? pair : pair.substring(0, equals));
+            String value = equals < 0 ? "" : decode(pair.substring(equals + 1));
+            parameters.put(name, value);
+        }
+        return parameters;
+    }
+
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e); // UTF-8 is always supported / UTF-8 est toujours pris en charge
+        }
+    }
+
+    // --- Responses / Réponses ---
+
+    private static void sendJson(HttpExchange exchange, CharSequence json) throws IOException {
+        send(exchange, 200, json);
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) {
+        StringBuilder json = new StringBuilder("{\"error\":");
+        appendString(json, message);
+        json.append('}');
+        try {
+            send(exchange, status, json);
+        } catch (IOException e) {
+            // Client gone, or headers already sent / Client parti, ou en-têtes déjà envoyés
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, CharSequence json) throws IOException {
+        byte[] body = json.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", JSON_TYPE);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        json.append('"');
+    }
+}
@@ -0,0 +1,224 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * CSV export of the ledger, independent of the user interface so that it can also run headlessly.
+ * Every field is enclosed in double quotes, with embedded double quotes doubled.
+ *
+ * <p>Rows are encoded in fixed-size chunks, in parallel on the common fork-join pool, into UTF-8 byte
+ * buffers; the buffers are written in order through a {@link FileChannel} with gathering writes, with a
+ * bounded number of chunks in flight. The file is written next to its destination and moved into place
+ * once complete, so a cancelled or failed export leaves no partial file.</p>
+ *
+ * <p>Exportation CSV du grand livre, indépendante de l'interface utilisateur afin de pouvoir aussi
+ * s'exécuter sans affichage. Chaque champ est entouré de guillemets doubles, les guillemets doubles
+ * qu'il contient étant doublés.</p>
+ *
+ * <p>Les lignes sont encodées par blocs de taille fixe, en parallèle sur le pool fork-join commun, dans
+ * des tampons d'octets UTF-8 ; les tampons sont écrits dans l'ordre au travers d'un {@link FileChannel}
+ * par écritures groupées, avec un nombre borné de blocs en cours. Le fichier est écrit à côté de sa
+ * destination puis mis en place une fois complet : une exportation annulée ou échouée ne laisse aucun
+ * fichier partiel.</p>
+ */
+final class LedgerCsv {
+
+    static final String HEADER = "\"ID\",\"Date\",\"Compte\",\"Type\",\"Catégorie\",\"Description\",\"Montant\"";
+
+    private static final int CHUNK_ROWS = 8192;
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    /**
+     * Receives the progress of an export, from the exporting thread.
+     *
+     * <p>Reçoit la progression d'une exportation, depuis le thread qui exporte.</p>
+     */
+    interface ProgressListener {
+        void onProgress(int rowsWritten, int rowCount);
+    }
+
+    private LedgerCsv() {
+    }
+
+    /**
+     * Writes the transactions to a CSV file, replacing its previous content.
+     *
+     * <p>Écrit les transactions dans un fichier CSV, en remplaçant son contenu précédent.</p>
+     *
+     * @param path The CSV file. / Le fichier CSV.
+     * @param transactions The ledger, possibly with null tombstones; must not change during the export. / Le grand livre, éventuellement avec des pierres tombales null ; ne doit pas changer pendant l'exportation.
+     * @param listener Notified after each written batch, or null. / Notifié après chaque lot écrit, ou null.
+     * @throws IOException If the file cannot be written. / Si le fichier ne peut pas être écrit.
+     * @throws InterruptedException If the exporting thread was interrupted (export cancelled). / Si le thread qui exporte a été interrompu (exportation annulée).
+     */
+    public static void write(Path path, List<Transaction> transactions, ProgressListener listener)
+            throws IOException, InterruptedException {
+        int rowCount = transactions.size();
+        int chunkCount = (rowCount + CHUNK_ROWS - 1) / CHUNK_ROWS;
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        int maxInFlight = Math.max(2, pool.getParallelism() * 2); // Bounds the memory held by encoded chunks / Borne la mémoire des blocs encodés
+        Path partFile = path.resolveSibling(path.getFileName() + ".part");
+        ArrayDeque<Future<ByteBuffer>> inFlight = new ArrayDeque<>();
+        boolean complete = false;
+        try {
+            try (FileChannel channel = FileChannel.open(partFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                writeFully(channel, new ByteBuffer[]{encode(new StringBuilder(HEADER).append(LINE_SEPARATOR))});
+                int nextChunk = 0;
+                int chunksWritten = 0;
+                while (chunksWritten < chunkCount) {
+                    while (nextChunk < chunkCount && inFlight.size() < maxInFlight) {
+                        int from = nextChunk * CHUNK_ROWS;
+                        int to = Math.min(rowCount, from + CHUNK_ROWS);
+                        inFlight.add(pool.submit(() -> encodeRows(transactions, from, to)));
+                        nextChunk++;
+                    }
+                    // Wait for the oldest chunk, then gather every following chunk that is already done
+                    // Attendre le plus ancien bloc, puis grouper chaque bloc suivant déjà prêt
+                    ByteBuffer[] batch = new ByteBuffer[inFlight.size()];
+                    int batchSize = 0;
+                    batch[batchSize++] = result(inFlight.poll());
+                    while (!inFlight.isEmpty() && inFlight.peek().isDone()) {
+                        batch[batchSize++] = result(inFlight.poll());
+                    }
+                    writeFully(channel, batchSize == batch.length ? batch : Arrays.copyOf(batch, batchSize));
+                    chunksWritten += batchSize;
+                    if (listener != null) {
+                        listener.onProgress(Math.min(rowCount, chunksWritten * CHUNK_ROWS), rowCount);
+                    }
+                    if (Thread.interrupted()) {
+                        throw new InterruptedException();
+                    }
+                }
+            }
+            Files.move(partFile, path, StandardCopyOption.REPLACE_EXISTING);
+            complete = true;
+        } finally {
+            if (!complete) {
+                for (Future<ByteBuffer> chunk : inFlight) {
+                    chunk.cancel(false);
+                }
+                Files.deleteIfExists(partFile);
+            }
+        }
+    }
+
+    /**
+     * Writes the header line to a channel, to start a streamed export.
+     *
+     * <p>Écrit la ligne d'en-tête dans un canal, pour commencer une exportation en flux.</p>
+     *
+     * @param out The destination, such as standard output. / La destination, comme la sortie standard.
+     * @throws IOException If the write fails. / Si l'écriture échoue.
+     */
+    static void writeHeader(WritableByteChannel out) throws IOException {
+        writeFully(out, encode(new StringBuilder(HEADER).append(LINE_SEPARATOR)));
+    }
+
+    /**
+     * Writes rows to a channel after {@link #writeHeader}, one chunk at a time on the calling thread, so
+     * a ledger can be exported part by part without being held in memory.
+     *
+     * <p>Écrit des lignes dans un canal après {@link #writeHeader}, un bloc à la fois sur le thread appelant :
+     * un grand livre peut être exporté partie par partie sans être conservé en mémoire.</p>
+     *
+     * @param out The destination. / La destination.
+     * @param transactions The rows, possibly with null tombstones. / Les lignes, éventuellement avec des pierres tombales null.
+     * @throws IOException If the write fails. / Si l'écriture échoue.
+     */
+    static void writeRows(WritableByteChannel out, List<Transaction> transactions) throws IOException {
+        for (int from = 0; from < transactions.size(); from += CHUNK_ROWS) {
+            writeFully(out, encodeRows(transactions, from, Math.min(transactions.size(), from + CHUNK_ROWS)));
+        }
+    }
+
+    private static ByteBuffer result(Future<ByteBuffer> chunk) throws IOException, InterruptedException {
+        try {
+            return chunk.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("Erreur lors de l'encodage CSV", cause);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer[] buffers) throws IOException {
+        ByteBuffer last = buffers[buffers.length - 1];
+        while (last.hasRemaining()) {
+            channel.write(buffers);
+        }
+    }
+
+    private static void writeFully(WritableByteChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    private static ByteBuffer encode(CharSequence text) {
+        return StandardCharsets.UTF_8.encode(CharBuffer.wrap(text));
+    }
+
+    private static ByteBuffer encodeRows(List<Transaction> transactions, int from, int to) {
+        StringBuilder sb = new StringBuilder((to - from) * 96);
+        for (int i = from; i < to; i++) {
+            Transaction t = transactions.get(i);
+            if (t == null) { // Deleted / Supprimée
+                continue;
+            }
+            sb.append('"').append(t.getId()).append("\",\"");
+            LedgerFormat.appendDate(sb, t.getDate());
+            sb.append("\",\"");
+            appendEscaped(sb, t.getAccount());
+            sb.append("\",\"");
+            appendEscaped(sb, t.getType().toString());
+            sb.append("\",\"");
+            appendEscaped(sb, t.getCategory().toString());
+            sb.append("\",\"");
+            appendEscaped(sb, t.getDescription());
+            sb.append("\",\"");
+            LedgerFormat.appendDecimal(sb, t.getMontantCents()); // Not a double, printed as 1.0E7 from ten million / Pas un double, affiché 1.0E7 à partir de dix millions
+            sb.append('"');
+            sb.append(LINE_SEPARATOR);
+        }
+        return encode(sb);
+    }
+
+    /**
+     * Appends a string for CSV output, doubling existing double quotes.
+     * Null values are written as an empty string.
+     *
+     * <p>Ajoute une chaîne pour la sortie CSV, en doublant les guillemets doubles existants.
+     * Les valeurs nulles sont écrites comme une chaîne vide.</p>
+     *
+     * @param sb The destination. / La destination.
+     * @param value The string to escape. / La chaîne à échapper.
+     */
+    static void appendEscaped(StringBuilder sb, String value) {
+        if (value == null) {
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                sb.append('"');
+            }
+            sb.append(c);
+        }
+    }
+}
@@ -0,0 +1,353 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Bulk CSV import, reading the format written by {@link LedgerCsv}. The file is read into the heap with
+ * bulk channel reads, split on line boundaries into one chunk per worker, and the chunks are parsed in
+ * parallel on the common fork-join pool into column-oriented staging buffers, which are then concatenated
+ * in file order. Nothing touches the ledger here: the caller applies the returned {@link Batch} in one go.
+ * The file is not memory-mapped: a mapping stays open until collected, and on Windows the imported file
+ * could then not be deleted or overwritten by an export.
+ *
+ * <p>Importation CSV en masse, lisant le format écrit par {@link LedgerCsv}. Le fichier est lu dans le tas
+ * par des lectures de canal en bloc, découpé sur des limites de ligne en un bloc par travailleur, et les
+ * blocs sont analysés en parallèle sur le pool fork-join commun dans des tampons de préparation organisés
+ * en colonnes, ensuite concaténés dans l'ordre du fichier. Rien ne touche le grand livre ici : l'appelant
+ * applique le {@link Batch} retourné en une seule fois. Le fichier n'est pas mappé en mémoire : un mappage
+ * reste ouvert jusqu'à sa collecte, et sous Windows le fichier importé ne pourrait alors être ni supprimé
+ * ni écrasé par une exportation.</p>
+ *
+ * <p>Fields may be quoted (with doubled quotes inside) or not; the header line, a UTF-8 byte order mark,
+ * CRLF line endings and a comma as decimal separator are accepted. The ID column is ignored, imported rows
+ * get new IDs. Lines that cannot be parsed are counted and skipped.
+ * / Les champs peuvent être entre guillemets (guillemets doublés à l'intérieur) ou non ; la ligne d'en-tête,
+ * une marque d'ordre d'octets UTF-8, les fins de ligne CRLF et la virgule comme séparateur décimal sont
+ * acceptées. La colonne ID est ignorée, les lignes importées reçoivent de nouveaux ID. Les lignes
+ * illisibles sont comptées et ignorées.</p>
+ */
+final class LedgerCsvReader {
+
+    private static final int FIELD_COUNT = 7;
+    private static final int CHUNKS_PER_WORKER = 4;
+    private static final int MIN_CHUNK_BYTES = 1 << 16;
+
+    /**
+     * Staged rows, stored column by column, ready to be applied to the ledger.
+     *
+     * <p>Lignes préparées, stockées colonne par colonne, prêtes à être appliquées au grand livre.</p>
+     */
+    static final class Batch {
+        private int size;
+        private int[] epochDays;
+        private String[] accounts;
+        private byte[] types;
+        private byte[] categories;
+        private String[] descriptions;
+        private long[] amounts; // Cents / Centimes
+        private int rejectedLines;
+        private String firstError;
+
+        Batch(int capacity) {
+            epochDays = new int[capacity];
+            accounts = new String[capacity];
+            types = new byte[capacity];
+            categories = new byte[capacity];
+            descriptions = new String[capacity];
+            amounts = new long[capacity];
+        }
+
+        private void add(int epochDay, String account, BeyahCompta.TransactionType type,
+                         BeyahCompta.TransactionCategory category, String description, long amount) {
+            if (size == epochDays.length) {
+                grow(Math.max(16, size * 2));
+            }
+            epochDays[size] = epochDay;
+            accounts[size] = account;
+            types[size] = (byte) type.ordinal();
+            categories[size] = (byte) category.ordinal();
+            descriptions[size] = description;
+            amounts[size] = amount;
+            size++;
+        }
+
+        private void reject(String line, String reason) {
+            if (firstError == null) {
+                firstError = reason + " : " + line;
+            }
+            rejectedLines++;
+        }
+
+        private void grow(int capacity) {
+            epochDays = Arrays.copyOf(epochDays, capacity);
+            accounts = Arrays.copyOf(accounts, capacity);
+            types = Arrays.copyOf(types, capacity);
+            categories = Arrays.copyOf(categories, capacity);
+            descriptions = Arrays.copyOf(descriptions, capacity);
+            amounts = Arrays.copyOf(amounts, capacity);
+        }
+
+        private void append(Batch other) {
+            if (size + other.size > epochDays.length) {
+                grow(size + other.size);
+            }
+            System.arraycopy(other.epochDays, 0, epochDays, size, other.size);
+            System.arraycopy(other.accounts, 0, accounts, size, other.size);
+            System.arraycopy(other.types, 0, types, size, other.size);
+            System.arraycopy(other.categories, 0, categories, size, other.size);
+            System.arraycopy(other.descriptions, 0, descriptions, size, other.size);
+            System.arraycopy(other.amounts, 0, amounts, size, other.size);
+            size += other.size;
+            if (firstError == null) {
+                firstError = other.firstError;
+            }
+            rejectedLines += other.rejectedLines;
+        }
+
+        public int size() { return size; }
+        public LocalDate getDate(int row) { return LocalDate.ofEpochDay(epochDays[row]); }
+        public String getAccount(int row) { return accounts[row]; }
+        public BeyahCompta.TransactionType getType(int row) { return BeyahCompta.TransactionType.values()[types[row]]; }
+        public BeyahCompta.TransactionCategory getCategory(int row) { return BeyahCompta.TransactionCategory.values()[categories[row]]; }
+        public String getDescription(int row) { return descriptions[row]; }
+        public long getMontantCents(int row) { return amounts[row]; }
+        public int getRejectedLines() { return rejectedLines; }
+        public String getFirstError() { return firstError; }
+    }
+
+    private LedgerCsvReader() {
+    }
+
+    /**
+     * Parses a CSV file into a staging batch.
+     *
+     * <p>Analyse un fichier CSV dans un lot de préparation.</p>
+     *
+     * @param path The CSV file. / Le fichier CSV.
+     * @return The parsed rows, in file order. / Les lignes analysées, dans l'ordre du fichier.
+     * @throws IOException If the file cannot be read or is larger than 2 GB. / Si le fichier ne peut pas être lu ou dépasse 2 Go.
+     */
+    public static Batch read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Fichier CSV trop volumineux (plus de 2 Go): " + path);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size); // Only absolute reads, shared by the workers / Seulement des lectures absolues, partagé par les travailleurs
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) { // Truncated meanwhile / Tronqué entre-temps
+                    break;
+                }
+            }
+            int end = buffer.position();
+            int start = skipHeader(buffer, end);
+
+            // Split on line boundaries / Découper sur des limites de ligne
+            ForkJoinPool pool = ForkJoinPool.commonPool();
+            int chunkCount = Math.max(1, Math.min(pool.getParallelism() * CHUNKS_PER_WORKER, (end - start) / MIN_CHUNK_BYTES));
+            List<ForkJoinTask<Batch>> chunks = new ArrayList<>(chunkCount);
+            int chunkStart = start;
+            for (int i = 1; i <= chunkCount && chunkStart < end; i++) {
+                int chunkEnd = i == chunkCount ? end : nextLineStart(buffer, start + (int) ((long) (end - start) * i / chunkCount), end);
+                if (chunkEnd <= chunkStart) {
+                    continue;
+                }
+                int from = chunkStart;
+                int to = chunkEnd;
+                chunks.add(pool.submit(() -> parseChunk(buffer, from, to)));
+                chunkStart = chunkEnd;
+            }
+
+            Batch batch = new Batch(0);
+            for (ForkJoinTask<Batch> chunk : chunks) {
+                batch.append(chunk.join());
+            }
+            return batch;
+        } catch (RuntimeException e) {
+            throw new IOException("Erreur lors de la lecture du fichier CSV: " + path, e);
+        }
+    }
+
+    /** Skips a UTF-8 byte order mark and the header line. / Saute une marque d'ordre d'octets UTF-8 et la ligne d'en-tête. */
+    private static int skipHeader(ByteBuffer buffer, int end) {
+        int start = 0;
+        if (end >= 3 && (buffer.get(0) & 0xFF) == 0xEF && (buffer.get(1) & 0xFF) == 0xBB && (buffer.get(2) & 0xFF) == 0xBF) {
+            start = 3;
+        }
+        int firstLineEnd = nextLineStart(buffer, start, end);
+        String[] fields = new String[FIELD_COUNT];
+        int count = parseLine(buffer, start, trimLineEnd(buffer, start, firstLineEnd), fields, new byte[256]);
+        return count > 0 && "ID".equalsIgnoreCase(fields[0].trim()) ? firstLineEnd : start;
+    }
+
+    private static int nextLineStart(ByteBuffer buffer, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (buffer.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        return end;
+    }
+
+    private static int trimLineEnd(ByteBuffer buffer, int start, int lineEnd) {
+        while (lineEnd > start && (buffer.get(lineEnd - 1) == '\n' || buffer.get(lineEnd - 1) == '\r')) {
+            lineEnd--;
+        }
+        return lineEnd;
+    }
+
+    private static Batch parseChunk(ByteBuffer buffer, int start, int end) {
+        Batch batch = new Batch(Math.max(16, (end - start) / 80));
+        Map<String, String> accountNames = new HashMap<>(); // One String per account name / Une seule String par nom de compte
+        String[] fields = new String[FIELD_COUNT];
+        byte[] scratch = new byte[256];
+        int lineStart = start;
+        while (lineStart < end) {
+            int next = nextLineStart(buffer, lineStart, end);
+            int lineEnd = trimLineEnd(buffer, lineStart, next);
+            if (lineEnd > lineStart) {
+                int count = parseLine(buffer, lineStart, lineEnd, fields, scratch);
+                if (count != FIELD_COUNT) {
+                    batch.reject(text(buffer, lineStart, lineEnd), "Nombre de champs incorrect");
+                } else {
+                    parseRow(batch, fields, accountNames, buffer, lineStart, lineEnd);
+                }
+            }
+            lineStart = next;
+        }
+        return batch;
+    }
+
+    private static void parseRow(Batch batch, String[] fields, Map<String, String> accountNames,
+                                 ByteBuffer buffer, int lineStart, int lineEnd) {
+        int epochDay = parseDate(fields[1].trim());
+        if (epochDay == Integer.MIN_VALUE) {
+            batch.reject(text(buffer, lineStart, lineEnd), "Date invalide");
+            return;
+        }
+        BeyahCompta.TransactionType type;
+        try {
+            type = BeyahCompta.TransactionType.fromString(fields[3].trim());
+        } catch (IllegalArgumentException e) {
+            batch.reject(text(buffer, lineStart, lineEnd), "Type inconnu");
+            return;
+        }
+        BeyahCompta.TransactionCategory category;
+        try {
+            category = BeyahCompta.TransactionCategory.fromString(fields[4].trim());
+        } catch (IllegalArgumentException e) {
+            category = BeyahCompta.TransactionCategory.AUTRE; // Same fallback as the budgets / Même repli que pour les budgets
+        }
+        long amount;
+        try {
+            amount = LedgerFormat.parseCents(fields[6].trim());
+        } catch (NumberFormatException e) {
+            amount = 0;
+        }
+        if (amount <= 0) {
+            batch.reject(text(buffer, lineStart, lineEnd), "Montant invalide");
+            return;
+        }
+        String account = fields[2].trim();
+        String sharedAccount = accountNames.putIfAbsent(account, account);
+        batch.add(epochDay, sharedAccount != null ? sharedAccount : account, type, category, fields[5], amount);
+    }
+
+    /**
+     * Parses a dd/MM/yyyy date.
+     *
+     * <p>Analyse une date au format dd/MM/yyyy.</p>
+     *
+     * @return The epoch day, or Integer.MIN_VALUE if invalid. / Le jour epoch, ou Integer.MIN_VALUE si invalide.
+     */
+    private static int parseDate(String text) {
+        int firstSlash = text.indexOf('/');
+        int secondSlash = text.indexOf('/', firstSlash + 1);
+        if (firstSlash <= 0 || secondSlash <= firstSlash + 1 || secondSlash == text.length() - 1) {
+            return Integer.MIN_VALUE;
+        }
+        try {
+            int day = Integer.parseInt(text.substring(0, firstSlash));
+            int month = Integer.parseInt(text.substring(firstSlash + 1, secondSlash));
+            int year = Integer.parseInt(text.substring(secondSlash + 1));
+            return (int) LocalDate.of(year, month, day).toEpochDay();
+        } catch (NumberFormatException | DateTimeException e) {
+            return Integer.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Splits one line into fields.
+     *
+     * <p>Découpe une ligne en champs.</p>
+     *
+     * @return The number of fields, or -1 if the line is malformed or has too many fields. / Le nombre de champs, ou -1 si la ligne est mal formée ou a trop de champs.
+     */
+    private static int parseLine(ByteBuffer buffer, int start, int end, String[] fields, byte[] scratch) {
+        int pos = start;
+        int count = 0;
+        while (true) {
+            if (count == fields.length) {
+                return -1;
+            }
+            int length = 0;
+            if (pos < end && buffer.get(pos) == '"') {
+                pos++;
+                boolean closed = false;
+                while (pos < end) {
+                    byte b = buffer.get(pos++);
+                    if (b == '"') {
+                        if (pos < end && buffer.get(pos) == '"') { // Doubled quote / Guillemet doublé
+                            pos++;
+                        } else {
+                            closed = true;
+                            break;
+                        }
+                    }
+                    if (length == scratch.length) {
+                        scratch = Arrays.copyOf(scratch, length * 2);
+                    }
+                    scratch[length++] = b;
+                }
+                if (!closed) {
+                    return -1;
+                }
+            } else {
+                while (pos < end && buffer.get(pos) != ',') {
+                    if (length == scratch.length) {
+                        scratch = Arrays.copyOf(scratch, length * 2);
+                    }
+                    scratch[length++] = buffer.get(pos++);
+                }
+            }
+            fields[count++] = new String(scratch, 0, length, StandardCharsets.UTF_8);
+            if (pos == end) {
+                return count;
+            }
+            if (buffer.get(pos) != ',') {
+                return -1;
+            }
+            pos++;
+        }
+    }
+
+    private static String text(ByteBuffer buffer, int start, int end) {
+        byte[] bytes = new byte[Math.min(end - start, 200)];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,299 @@
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.NumberFormat;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.ResolverStyle;
+import java.util.Locale;
+
+/**
+ * Formatting service for amounts (in cents) and dates, which also parses typed amounts. Amounts are
+ * written digit by digit from whole cents into a reusable per-thread {@link StringBuilder}, with the same
+ * output as {@code NumberFormat.getCurrencyInstance(Locale.FRANCE)}, and dates as {@code dd/MM/yyyy} from
+ * their epoch day. Recently formatted values are kept in a small per-thread direct-mapped cache on
+ * primitive arrays, so repeated amounts and dates (account labels, budget lines, table rows of the same
+ * day) cost a lookup without boxing or allocation. Safe to call from any thread.
+ *
+ * <p>Service de formatage des montants (en centimes) et des dates, qui analyse aussi les montants saisis.
+ * Les montants sont écrits chiffre par chiffre à partir des centimes dans un {@link StringBuilder}
+ * réutilisé par thread, avec le même résultat que {@code NumberFormat.getCurrencyInstance(Locale.FRANCE)},
+ * et les dates au format {@code dd/MM/yyyy} à partir de leur jour epoch. Les valeurs formatées récemment
+ * sont conservées dans un petit cache par thread à correspondance directe sur des tableaux primitifs : les
+ * montants et dates répétés (étiquettes de compte, lignes de budget, lignes du tableau d'un même jour) ne
+ * coûtent qu'une recherche, sans boxing ni allocation. Utilisable depuis n'importe quel thread.</p>
+ */
+final class LedgerFormat {
+
+    private static final int CACHE_SIZE = 512; // Power of two / Puissance de deux
+
+    // Locale conventions captured once from the JDK formatter / Conventions de la locale capturées une fois depuis le formateur du JDK
+    private static final String POSITIVE_PREFIX;
+    private static final String POSITIVE_SUFFIX;
+    private static final String NEGATIVE_PREFIX;
+    private static final String NEGATIVE_SUFFIX;
+    private static final char GROUPING_SEPARATOR;
+    private static final char DECIMAL_SEPARATOR;
+    private static final char PLAIN_DECIMAL_SEPARATOR;
+
+    static {
+        DecimalFormat currency = (DecimalFormat) NumberFormat.getCurrencyInstance(Locale.FRANCE);
+        POSITIVE_PREFIX = currency.getPositivePrefix();
+        POSITIVE_SUFFIX = currency.getPositiveSuffix();
+        NEGATIVE_PREFIX = currency.getNegativePrefix();
+        NEGATIVE_SUFFIX = currency.getNegativeSuffix();
+        DecimalFormatSymbols symbols = currency.getDecimalFormatSymbols();
+        GROUPING_SEPARATOR = symbols.getGroupingSeparator();
+        DECIMAL_SEPARATOR = symbols.getMonetaryDecimalSeparator();
+        PLAIN_DECIMAL_SEPARATOR = DecimalFormatSymbols.getInstance(Locale.FRANCE).getDecimalSeparator();
+    }
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/uuuu").withResolverStyle(ResolverStyle.STRICT);
+
+    private static final ThreadLocal<StringBuilder> BUILDER = ThreadLocal.withInitial(() -> new StringBuilder(32));
+    private static final ThreadLocal<FormatCache> CURRENCY_CACHE = ThreadLocal.withInitial(FormatCache::new);
+    private static final ThreadLocal<FormatCache> AMOUNT_CACHE = ThreadLocal.withInitial(FormatCache::new);
+    private static final ThreadLocal<FormatCache> DATE_CACHE = ThreadLocal.withInitial(FormatCache::new);
+
+    /**
+     * Direct-mapped cache from a primitive key to its formatted text: a key has a single slot, and a
+     * new key simply replaces the one in its slot.
+     *
+     * <p>Cache à correspondance directe d'une clé primitive vers son texte formaté : une clé a une seule
+     * case, et une nouvelle clé remplace simplement celle de sa case.</p>
+     */
+    private static final class FormatCache {
+        private final long[] keys = new long[CACHE_SIZE];
+        private final String[] values = new String[CACHE_SIZE]; // Null for an empty slot / Null pour une case vide
+
+        private static int slot(long key) {
+            long h = key * 0x9E3779B97F4A7C15L; // Spreads consecutive keys / Disperse les clés consécutives
+            return (int) (h >>> 32) & (CACHE_SIZE - 1);
+        }
+
+        String get(long key) {
+            int slot = slot(key);
+            return values[slot] != null && keys[slot] == key ? values[slot] : null;
+        }
+
+        void put(long key, String value) {
+            int slot = slot(key);
+            keys[slot] = key;
+            values[slot] = value;
+        }
+    }
+
+    private LedgerFormat() {
+    }
+
+    /**
+     * Parses an amount typed by the user or read from a file into cents, exactly (no binary floating point).
+     * Both ',' and '.' are accepted as decimal separator; when both appear, the last one is the decimal
+     * separator and the others are grouping separators, as are spaces. Extra decimals are rounded half up.
+     *
+     * <p>Analyse un montant saisi par l'utilisateur ou lu depuis un fichier en centimes, exactement (sans
+     * virgule flottante binaire). ',' et '.' sont acceptés comme séparateur décimal ; lorsque les deux
+     * apparaissent, le dernier est le séparateur décimal et les autres sont des séparateurs de milliers,
+     * comme les espaces. Les décimales supplémentaires sont arrondies au plus proche.</p>
+     *
+     * @param text The amount, e.g. {@code 12,50} or {@code 1 234.5}. / Le montant, par ex. {@code 12,50} ou {@code 1 234.5}.
+     * @return The amount in cents. / Le montant en centimes.
+     * @throws NumberFormatException If the text is not a valid amount. / Si le texte n'est pas un montant valide.
+     */
+    public static long parseCents(String text) {
+        StringBuilder digits = new StringBuilder(text.length());
+        int decimalSeparator = Math.max(text.lastIndexOf(','), text.lastIndexOf('.'));
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (i == decimalSeparator) {
+                digits.append('.');
+            } else if (c != ',' && c != '.' && !Character.isSpaceChar(c) && !Character.isWhitespace(c)) {
+                digits.append(c);
+            }
+        }
+        try {
+            return new BigDecimal(digits.toString()).movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+        } catch (ArithmeticException e) { // Out of range / Hors limites
+            throw new NumberFormatException("Montant hors limites: " + text);
+        }
+    }
+
+    /**
+     * Formats an amount in cents as a French currency string, e.g. {@code 1 234,56 €}.
+     *
+     * <p>Formate un montant en centimes en chaîne monétaire française, par ex. {@code 1 234,56 €}.</p>
+     *
+     * @param cents The amount in cents. / Le montant en centimes.
+     * @return The formatted amount. / Le montant formaté.
+     */
+    public static String formatCurrency(long cents) {
+        FormatCache cache = CURRENCY_CACHE.get();
+        String cached = cache.get(cents);
+        if (cached == null) {
+            StringBuilder sb = builder();
+            appendCurrency(sb, cents);
+            cached = sb.toString();
+            cache.put(cents, cached);
+        }
+        return cached;
+    }
+
+    /**
+     * Formats an amount in cents with two decimals, no currency and no grouping, e.g. {@code 1234,56}.
+     *
+     * <p>Formate un montant en centimes avec deux décimales, sans devise ni séparateur de milliers, par ex. {@code 1234,56}.</p>
+     *
+     * @param cents The amount in cents. / Le montant en centimes.
+     * @return The formatted amount. / Le montant formaté.
+     */
+    public static String formatAmount(long cents) {
+        FormatCache cache = AMOUNT_CACHE.get();
+        String cached = cache.get(cents);
+        if (cached == null) {
+            StringBuilder sb = builder();
+            appendAmount(sb, cents);
+            cached = sb.toString();
+            cache.put(cents, cached);
+        }
+        return cached;
+    }
+
+    /**
+     * Parses a date typed by the user as {@code dd/MM/yyyy}; impossible dates such as 31/02 are rejected.
+     *
+     * <p>Analyse une date saisie par l'utilisateur au format {@code dd/MM/yyyy} ; les dates impossibles comme
+     * le 31/02 sont refusées.</p>
+     *
+     * @param text The date, e.g. {@code 05/01/2024}. / La date, par ex. {@code 05/01/2024}.
+     * @return The date. / La date.
+     * @throws java.time.format.DateTimeParseException If the text is not a valid date. / Si le texte n'est pas une date valide.
+     */
+    public static LocalDate parseDate(String text) {
+        return LocalDate.parse(text.trim(), DATE_FORMAT);
+    }
+
+    /**
+     * Formats a date as {@code dd/MM/yyyy}.
+     *
+     * <p>Formate une date au format {@code dd/MM/yyyy}.</p>
+     *
+     * @param date The date. / La date.
+     * @return The formatted date. / La date formatée.
+     */
+    public static String formatDate(LocalDate date) {
+        long epochDay = date.toEpochDay();
+        FormatCache cache = DATE_CACHE.get();
+        String cached = cache.get(epochDay);
+        if (cached == null) {
+            StringBuilder sb = builder();
+            appendDate(sb, date);
+            cached = sb.toString();
+            cache.put(epochDay, cached);
+        }
+        return cached;
+    }
+
+    /**
+     * Appends an amount in cents as a French currency string.
+     *
+     * <p>Ajoute un montant en centimes sous forme de chaîne monétaire française.</p>
+     *
+     * @param sb The destination. / La destination.
+     * @param cents The amount in cents. / Le montant en centimes.
+     */
+    public static void appendCurrency(StringBuilder sb, long cents) {
+        boolean negative = cents < 0;
+        sb.append(negative ? NEGATIVE_PREFIX : POSITIVE_PREFIX);
+        appendDigits(sb, cents, GROUPING_SEPARATOR, DECIMAL_SEPARATOR);
+        sb.append(negative ? NEGATIVE_SUFFIX : POSITIVE_SUFFIX);
+    }
+
+    /**
+     * Appends an amount in cents with two decimals, no currency and no grouping.
+     *
+     * <p>Ajoute un montant en centimes avec deux décimales, sans devise ni séparateur de milliers.</p>
+     *
+     * @param sb The destination. / La destination.
+     * @param cents The amount in cents. / Le montant en centimes.
+     */
+    public static void appendAmount(StringBuilder sb, long cents) {
+        if (cents < 0) {
+            sb.append('-');
+        }
+        appendDigits(sb, cents, (char) 0, PLAIN_DECIMAL_SEPARATOR);
+    }
+
+    /**
+     * Appends an amount in cents with a dot and two decimals, as in the CSV files, e.g. {@code -0.50}.
+     * Formatted from the long, so large amounts never turn into scientific notation.
+     *
+     * <p>Ajoute un montant en centimes avec un point et deux décimales, comme dans les fichiers CSV, par ex.
+     * {@code -0.50}. Formaté à partir du long : les grands montants ne passent jamais en notation scientifique.</p>
+     *
+     * @param sb The destination. / La destination.
+     * @param cents The amount in cents. / Le montant en centimes.
+     */
+    public static void appendDecimal(StringBuilder sb, long cents) {
+        if (cents < 0) { // Also for -0.50, whose units are 0 / Aussi pour -0.50, dont les unités valent 0
+            sb.append('-');
+        }
+        appendDigits(sb, cents, (char) 0, '.');
+    }
+
+    /**
+     * Appends a date as {@code dd/MM/yyyy}.
+     *
+     * <p>Ajoute une date au format {@code dd/MM/yyyy}.</p>
+     *
+     * @param sb The destination. / La destination.
+     * @param date The date. / La date.
+     */
+    public static void appendDate(StringBuilder sb, LocalDate date) {
+        appendTwoDigits(sb, date.getDayOfMonth());
+        sb.append('/');
+        appendTwoDigits(sb, date.getMonthValue());
+        sb.append('/');
+        int year = date.getYear();
+        if (year >= 0 && year < 1000) {
+            sb.append(year < 10 ? "000" : year < 100 ? "00" : "0");
+        }
+        sb.append(year);
+    }
+
+    private static void appendTwoDigits(StringBuilder sb, int value) {
+        sb.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+
+    private static void appendDigits(StringBuilder sb, long cents, char groupingSeparator, char decimalSeparator) {
+        // Unsigned magnitude, safe for Long.MIN_VALUE / Valeur absolue non signée, sûre pour Long.MIN_VALUE
+        long magnitude = cents < 0 ? -cents : cents;
+        long units = Long.divideUnsigned(magnitude, 100); // Below 2^57, signed arithmetic from here / Inférieur à 2^57, arithmétique signée ensuite
+        int fraction = (int) Long.remainderUnsigned(magnitude, 100);
+        // Units written from the last digit, then reversed in place: no intermediate String
+        // Unités écrites depuis le dernier chiffre, puis inversées sur place : aucune String intermédiaire
+        int start = sb.length();
+        int count = 0;
+        do {
+            if (groupingSeparator != 0 && count > 0 && count % 3 == 0) {
+                sb.append(groupingSeparator);
+            }
+            sb.append((char) ('0' + units % 10));
+            units /= 10;
+            count++;
+        } while (units != 0);
+        for (int i = start, j = sb.length() - 1; i < j; i++, j--) {
+            char c = sb.charAt(i);
+            sb.setCharAt(i, sb.charAt(j));
+            sb.setCharAt(j, c);
+        }
+        sb.append(decimalSeparator);
+        appendTwoDigits(sb, fraction);
+    }
+
+    private static StringBuilder builder() {
+        StringBuilder sb = BUILDER.get();
+        sb.setLength(0);
+        return sb;
+    }
+}
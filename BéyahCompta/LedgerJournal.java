@@ -0,0 +1,385 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead journal of ledger mutations. Each add, edit, delete or budget change is
+ * appended as a small binary record and flushed to disk by a background thread with group commit,
+ * so the cost of durability is O(1) per mutation. At startup the journal is replayed on top of the
+ * last snapshot; replay is idempotent, so a crash between a snapshot and a journal compaction is harmless.
+ *
+ * <p>Journal d'écriture anticipée, en ajout seul, des mutations du grand livre. Chaque ajout,
+ * modification, suppression ou changement de budget est ajouté sous forme d'un petit enregistrement
+ * binaire et écrit sur disque par un thread d'arrière-plan avec validation groupée, de sorte que
+ * le coût de la durabilité est O(1) par mutation. Au démarrage, le journal est rejoué par-dessus le
+ * dernier instantané ; le rejeu est idempotent, un arrêt brutal entre un instantané et le
+ * compactage du journal est donc sans conséquence.</p>
+ *
+ * <p>Record layout / Format d'un enregistrement :
+ * {@code [int length][int crc32][byte op][long id][long epochDay][byte type][byte category][long amountCents][int accountLen][account][int descLen][description]}
+ * Version 1 stored the amount as a {@code double}; such a journal is still replayed and is converted when opened.
+ * A delete carries the date of the removed row, or 0 if it was written before deletes logged it.
+ * / La version 1 stockait le montant en {@code double} ; un tel journal est toujours rejoué et est converti à l'ouverture.
+ * Une suppression porte la date de la ligne supprimée, ou 0 si elle a été écrite avant que les suppressions la journalisent.</p>
+ */
+class LedgerJournal implements AutoCloseable {
+
+    private static final int MAGIC = 0x42594A4C; // "BYJL"
+    private static final short VERSION = 2;
+    private static final short VERSION_DOUBLE_AMOUNTS = 1;
+    private static final int HEADER_SIZE = 6;
+    private static final int RECORD_PREFIX_SIZE = 8; // length + crc32
+    private static final int FIXED_PAYLOAD_SIZE = 1 + 8 + 8 + 1 + 1 + 8 + 4 + 4;
+    private static final int AMOUNT_OFFSET = 1 + 8 + 8 + 1 + 1; // Within the payload / Dans la charge utile
+    private static final long GROUP_COMMIT_DELAY_MS = 50;
+
+    private static final byte OP_ADD = 1;
+    private static final byte OP_EDIT = 2;
+    private static final byte OP_DELETE = 3;
+    private static final byte OP_BUDGET = 4;
+
+    /**
+     * Receives the records read back from the journal during replay.
+     *
+     * <p>Reçoit les enregistrements relus depuis le journal pendant le rejeu.</p>
+     */
+    interface Handler {
+        void onAdd(Transaction transaction);
+        void onEdit(Transaction transaction);
+        void onDelete(long transactionId, LocalDate date);
+        void onBudget(BeyahCompta.TransactionCategory category, long amountCents);
+    }
+
+    private final Path path;
+    private final ScheduledExecutorService flusher;
+    private final Object writeLock = new Object(); // Serializes flushes and compactions / Sérialise les écritures et compactages
+    private FileChannel channel; // Replaced by a compaction, guarded by writeLock / Remplacé par un compactage, protégé par writeLock
+    private ByteBuffer pending = ByteBuffer.allocate(64 * 1024);
+    private ByteBuffer spare = ByteBuffer.allocate(64 * 1024);
+    private boolean flushScheduled;
+    private long length; // Bytes written or pending, header included / Octets écrits ou en attente, en-tête compris
+
+    /**
+     * Opens the journal for appending, creating it if needed. A torn record left by a crash at the end
+     * of the file is cut off so that new records follow the last valid one, and a version 1 journal is
+     * first converted to the current version.
+     *
+     * <p>Ouvre le journal en ajout en le créant si nécessaire. Un enregistrement incomplet laissé par un
+     * arrêt brutal en fin de fichier est supprimé pour que les nouveaux enregistrements suivent le dernier
+     * valide, et un journal de version 1 est d'abord converti vers la version actuelle.</p>
+     *
+     * @param path The journal file. / Le fichier journal.
+     * @param validLength The length of the valid prefix returned by {@link #replay}. / La longueur du préfixe valide retournée par {@link #replay}.
+     * @throws IOException If the file cannot be opened. / Si le fichier ne peut pas être ouvert.
+     */
+    public LedgerJournal(Path path, long validLength) throws IOException {
+        if (validLength >= HEADER_SIZE) {
+            upgrade(path, validLength);
+        }
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (validLength < HEADER_SIZE) {
+            channel.truncate(0);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putShort(VERSION);
+            header.flip();
+            channel.write(header, 0);
+            validLength = HEADER_SIZE;
+        } else if (channel.size() > validLength) {
+            channel.truncate(validLength);
+        }
+        channel.position(validLength);
+        channel.force(true);
+        this.length = validLength;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "BeyahCompta-journal");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Replays every valid record of the journal into the handler, stopping at the first torn or corrupted record.
+     *
+     * <p>Rejoue chaque enregistrement valide du journal dans le gestionnaire, en s'arrêtant au premier
+     * enregistrement incomplet ou corrompu.</p>
+     *
+     * @param path The journal file. / Le fichier journal.
+     * @param handler The receiver of the records. / Le destinataire des enregistrements.
+     * @return The length of the valid prefix of the file (0 if there is no usable journal). / La longueur du préfixe valide du fichier (0 s'il n'y a pas de journal exploitable).
+     * @throws IOException If the file cannot be read. / Si le fichier ne peut pas être lu.
+     */
+    public static long replay(Path path, Handler handler) throws IOException {
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        short version = buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC ? 0 : buffer.getShort();
+        if (version != VERSION && version != VERSION_DOUBLE_AMOUNTS) {
+            System.err.println("Journal illisible ou de version inconnue, ignoré: " + path);
+            return 0;
+        }
+        CRC32 crc = new CRC32();
+        long validLength = HEADER_SIZE;
+        while (buffer.remaining() >= RECORD_PREFIX_SIZE) {
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length < 1 || length > buffer.remaining()) {
+                break; // Torn tail / Fin incomplète
+            }
+            crc.reset();
+            crc.update(buffer.array(), buffer.position(), length);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            ByteBuffer payload = buffer.slice();
+            payload.limit(length);
+            buffer.position(buffer.position() + length);
+            if (!dispatch(payload, version, handler)) {
+                break;
+            }
+            validLength = buffer.position();
+        }
+        return validLength;
+    }
+
+    private static boolean dispatch(ByteBuffer payload, short version, Handler handler) {
+        byte op = payload.get();
+        long id = payload.getLong();
+        long epochDay = payload.getLong();
+        BeyahCompta.TransactionType type = BeyahCompta.TransactionType.values()[payload.get()];
+        BeyahCompta.TransactionCategory category = BeyahCompta.TransactionCategory.values()[payload.get()];
+        long amount = version == VERSION_DOUBLE_AMOUNTS ? Math.round(payload.getDouble() * 100) : payload.getLong();
+        String account = readString(payload);
+        String description = readString(payload);
+        switch (op) {
+            case OP_ADD:
+                handler.onAdd(new Transaction(id, LocalDate.ofEpochDay(epochDay), account, type, category, description, amount));
+                return true;
+            case OP_EDIT:
+                handler.onEdit(new Transaction(id, LocalDate.ofEpochDay(epochDay), account, type, category, description, amount));
+                return true;
+            case OP_DELETE:
+                handler.onDelete(id, epochDay == 0 ? null : LocalDate.ofEpochDay(epochDay));
+                return true;
+            case OP_BUDGET:
+                handler.onBudget(category, amount);
+                return true;
+            default:
+                System.err.println("Enregistrement de journal inconnu (" + op + "), rejeu interrompu.");
+                return false;
+        }
+    }
+
+    /**
+     * Rewrites the valid prefix of a version 1 journal in the current format: amounts become cents and
+     * checksums are recomputed. The converted file replaces the old one atomically.
+     *
+     * <p>Réécrit le préfixe valide d'un journal de version 1 au format actuel : les montants deviennent
+     * des centimes et les sommes de contrôle sont recalculées. Le fichier converti remplace l'ancien de
+     * façon atomique.</p>
+     */
+    private static void upgrade(Path path, long validLength) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        byte[] bytes = Files.readAllBytes(path);
+        int length = (int) Math.min(validLength, bytes.length);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, length);
+        if (length < HEADER_SIZE || buffer.getInt() != MAGIC || buffer.getShort() != VERSION_DOUBLE_AMOUNTS) {
+            return;
+        }
+        CRC32 crc = new CRC32();
+        while (buffer.remaining() >= RECORD_PREFIX_SIZE) { // Records already validated by replay / Enregistrements déjà validés par le rejeu
+            int recordStart = buffer.position();
+            int payloadLength = buffer.getInt();
+            buffer.getInt();
+            int payloadStart = buffer.position();
+            buffer.putLong(payloadStart + AMOUNT_OFFSET, Math.round(buffer.getDouble(payloadStart + AMOUNT_OFFSET) * 100));
+            crc.reset();
+            crc.update(bytes, payloadStart, payloadLength);
+            buffer.putInt(recordStart + 4, (int) crc.getValue());
+            buffer.position(payloadStart + payloadLength);
+        }
+        buffer.putShort(4, VERSION);
+        Path upgraded = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(upgraded, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer content = ByteBuffer.wrap(bytes, 0, length);
+            while (content.hasRemaining()) {
+                out.write(content);
+            }
+            out.force(true);
+        }
+        Files.move(upgraded, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String readString(ByteBuffer payload) {
+        int length = payload.getInt();
+        String value = new String(payload.array(), payload.arrayOffset() + payload.position(), length, StandardCharsets.UTF_8);
+        payload.position(payload.position() + length);
+        return value;
+    }
+
+    // --- Recording / Enregistrement ---
+    public void recordAdd(Transaction t) { append(OP_ADD, t); }
+    public void recordEdit(Transaction t) { append(OP_EDIT, t); }
+
+    public void recordDelete(Transaction t) { // The date lets the replay load only its month / La date permet au rejeu de ne charger que son mois
+        append(OP_DELETE, t.getId(), t.getDate().toEpochDay(), BeyahCompta.TransactionType.DEBIT, BeyahCompta.TransactionCategory.GENERAL, 0L, "", "");
+    }
+
+    public void recordBudget(BeyahCompta.TransactionCategory category, long amountCents) {
+        append(OP_BUDGET, 0L, 0L, BeyahCompta.TransactionType.DEBIT, category, amountCents, "", "");
+    }
+
+    private void append(byte op, Transaction t) {
+        append(op, t.getId(), t.getDate().toEpochDay(), t.getType(), t.getCategory(), t.getMontantCents(), t.getAccount(), t.getDescription());
+    }
+
+    private void append(byte op, long id, long epochDay, BeyahCompta.TransactionType type, BeyahCompta.TransactionCategory category,
+                        long amountCents, String account, String description) {
+        byte[] accountBytes = account.getBytes(StandardCharsets.UTF_8);
+        byte[] descriptionBytes = description.getBytes(StandardCharsets.UTF_8);
+        int length = FIXED_PAYLOAD_SIZE + accountBytes.length + descriptionBytes.length;
+        ByteBuffer record = ByteBuffer.allocate(RECORD_PREFIX_SIZE + length);
+        record.position(RECORD_PREFIX_SIZE);
+        record.put(op).putLong(id).putLong(epochDay).put((byte) type.ordinal()).put((byte) category.ordinal()).putLong(amountCents);
+        record.putInt(accountBytes.length).put(accountBytes);
+        record.putInt(descriptionBytes.length).put(descriptionBytes);
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), RECORD_PREFIX_SIZE, length);
+        record.putInt(0, length).putInt(4, (int) crc.getValue());
+        record.flip();
+
+        synchronized (this) {
+            if (pending.remaining() < record.remaining()) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + record.remaining()));
+                pending.flip();
+                pending = grown.put(pending);
+            }
+            this.length += record.remaining();
+            pending.put(record);
+            if (!flushScheduled) { // Group commit: one fsync for every record of the window / Validation groupée : un fsync pour tous les enregistrements de la fenêtre
+                flushScheduled = true;
+                flusher.schedule(this::flushQuietly, GROUP_COMMIT_DELAY_MS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Writes every pending record to disk and forces it to the storage device.
+     *
+     * <p>Écrit tous les enregistrements en attente sur disque et les force sur le support de stockage.</p>
+     *
+     * @throws IOException If the write fails. / Si l'écriture échoue.
+     */
+    public void flush() throws IOException {
+        synchronized (writeLock) {
+            ByteBuffer batch;
+            synchronized (this) {
+                flushScheduled = false;
+                if (pending.position() == 0) {
+                    return;
+                }
+                batch = pending;
+                pending = spare; // Appends continue in the other buffer / Les ajouts continuent dans l'autre tampon
+                spare = batch;
+            }
+            batch.flip();
+            while (batch.hasRemaining()) {
+                channel.write(batch);
+            }
+            channel.force(false);
+            batch.clear();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            System.err.println("Erreur lors de l'écriture du journal: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Returns the length of the journal, records not flushed yet included. Taken with a snapshot, it
+     * tells {@link #compact} which records the snapshot covers.
+     *
+     * <p>Retourne la longueur du journal, enregistrements non encore écrits compris. Relevée avec un
+     * instantané, elle indique à {@link #compact} quels enregistrements l'instantané couvre.</p>
+     *
+     * @return The length in bytes. / La longueur en octets.
+     */
+    public synchronized long length() {
+        return length;
+    }
+
+    /**
+     * Drops the records covered by a fresh snapshot, while records keep being appended. When records
+     * were appended after the snapshot was taken, they are copied behind a new header into a temporary
+     * file that replaces the journal atomically; otherwise the journal is simply truncated. A crash
+     * leaves either journal, and replaying the old one on top of the snapshot is harmless since replay
+     * is idempotent. Snapshots must be compacted one at a time, in the order they were taken.
+     *
+     * <p>Supprime les enregistrements couverts par un nouvel instantané, pendant que des enregistrements
+     * continuent d'être ajoutés. Si des enregistrements ont été ajoutés après la prise de l'instantané, ils
+     * sont copiés derrière un nouvel en-tête dans un fichier temporaire qui remplace le journal de façon
+     * atomique ; sinon le journal est simplement tronqué. Un arrêt brutal laisse l'un ou l'autre journal, et
+     * rejouer l'ancien par-dessus l'instantané est sans conséquence puisque le rejeu est idempotent. Les
+     * instantanés doivent être compactés un par un, dans l'ordre de leur prise.</p>
+     *
+     * @param snapshotLength The {@link #length} when the snapshot was taken. / La {@link #length} lors de la prise de l'instantané.
+     * @throws IOException If the journal cannot be rewritten; it is then unchanged. / Si le journal ne peut pas être réécrit ; il est alors inchangé.
+     */
+    public void compact(long snapshotLength) throws IOException {
+        if (snapshotLength <= HEADER_SIZE) {
+            return; // Nothing is covered / Rien n'est couvert
+        }
+        synchronized (writeLock) {
+            flush(); // The covered records are now all in the file / Les enregistrements couverts sont maintenant tous dans le fichier
+            long fileLength = channel.position();
+            if (fileLength <= snapshotLength) {
+                channel.truncate(HEADER_SIZE);
+                channel.position(HEADER_SIZE);
+                channel.force(true);
+            } else {
+                FileChannel current = channel;
+                AtomicFiles.write(path, out -> {
+                    out.write(ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putShort(VERSION).array());
+                    WritableByteChannel target = Channels.newChannel(out);
+                    for (long position = snapshotLength; position < fileLength; ) {
+                        position += current.transferTo(position, fileLength - position, target);
+                    }
+                });
+                channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                channel.position(channel.size());
+                current.close();
+            }
+            synchronized (this) {
+                length -= Math.min(snapshotLength, fileLength) - HEADER_SIZE; // Pending records are kept / Les enregistrements en attente sont conservés
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flusher.shutdown();
+        synchronized (writeLock) {
+            flush();
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Budgets as stored in data.ser, read independently of the user interface so that the headless entry
+ * point can load them too. Older files stored euros as {@code Double} and budgets keyed by category
+ * name; both are converted. The file starts with a map of account balances, written empty since the
+ * balances are rebuilt from the transactions and skipped on reading: stored apart from the segments,
+ * they could not be kept in step with them across a failed or interrupted save.
+ *
+ * <p>Budgets tels que stockés dans data.ser, lus indépendamment de l'interface utilisateur afin que le
+ * point d'entrée sans affichage puisse aussi les charger. Les anciens fichiers stockaient des euros en
+ * {@code Double} et des budgets indexés par nom de catégorie ; les deux sont convertis. Le fichier commence
+ * par une carte des soldes de compte, écrite vide puisque les soldes sont reconstruits à partir des
+ * transactions et ignorée à la lecture : stockés à part des segments, ils ne pouvaient pas rester en
+ * accord avec eux après une sauvegarde échouée ou interrompue.</p>
+ */
+final class LedgerSettings {
+
+    private final Map<BeyahCompta.TransactionCategory, Long> budgets; // Null if the stored budgets are unusable / Null si les budgets stockés sont inutilisables
+
+    private LedgerSettings(Map<BeyahCompta.TransactionCategory, Long> budgets) {
+        this.budgets = budgets;
+    }
+
+    // --- Getters (cents) / Accesseurs (centimes) ---
+    public Map<BeyahCompta.TransactionCategory, Long> getBudgets() { return budgets; }
+
+    /**
+     * Reads the budgets, falling back to the backup if the primary file is missing or corrupted.
+     *
+     * <p>Lit les budgets, avec repli sur la sauvegarde si le fichier principal est absent ou corrompu.</p>
+     *
+     * @param file The data.ser file. / Le fichier data.ser.
+     * @param backup Its backup. / Sa sauvegarde.
+     * @return The settings, or null if neither file could be read. / Les réglages, ou null si aucun des deux fichiers n'a pu être lu.
+     */
+    static LedgerSettings read(Path file, Path backup) {
+        try {
+            LedgerSettings settings = readFile(file);
+            System.out.println("Budgets chargés via sérialisation.");
+            return settings;
+        } catch (IOException | ClassNotFoundException e) {
+            System.err.println("Erreur lors du chargement des budgets ou fichier non trouvé. Tentative de chargement depuis la sauvegarde. " + e.getMessage());
+        }
+        try {
+            LedgerSettings settings = readFile(backup);
+            System.out.println("Budgets chargés depuis la sauvegarde.");
+            return settings;
+        } catch (IOException | ClassNotFoundException e) {
+            System.err.println("Échec du chargement de la sauvegarde des budgets. Utilisation des valeurs par défaut. " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static LedgerSettings readFile(Path file) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream ois = new ObjectInputStream(Files.newInputStream(file))) {
+            ois.readObject(); // Balances, rebuilt from the transactions / Soldes, reconstruits à partir des transactions
+            // Attempt to read budgets, allowing for older String-based keys
+            Object readBudgets = ois.readObject();
+            if (!(readBudgets instanceof Map)) {
+                System.err.println("Warning: Deserialized budget object is not a Map. Initializing budgets to default values.");
+                return new LedgerSettings(null);
+            }
+            Map<BeyahCompta.TransactionCategory, Long> budgets = new EnumMap<>(BeyahCompta.TransactionCategory.class);
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) readBudgets).entrySet()) {
+                if (entry.getKey() instanceof String) {
+                    try {
+                        // Convert old String key to new enum key
+                        budgets.put(BeyahCompta.TransactionCategory.fromString((String) entry.getKey()), toCents(entry.getValue()));
+                    } catch (IllegalArgumentException e) {
+                        System.err.println("Warning: Could not convert old budget category string '" + entry.getKey() + "' to enum. Assigning to 'Autre'.");
+                        budgets.put(BeyahCompta.TransactionCategory.AUTRE, toCents(entry.getValue()));
+                    }
+                } else if (entry.getKey() instanceof BeyahCompta.TransactionCategory) {
+                    // Key is already the correct enum type
+                    budgets.put((BeyahCompta.TransactionCategory) entry.getKey(), toCents(entry.getValue()));
+                } else {
+                    System.err.println("Warning: Unexpected type for budget category key: " + entry.getKey().getClass().getName() + ". Skipping entry.");
+                }
+            }
+            return new LedgerSettings(budgets);
+        }
+    }
+
+    /**
+     * Converts an amount read from data.ser to cents. Older files stored euros as {@code Double}.
+     *
+     * <p>Convertit en centimes un montant lu depuis data.ser. Les anciens fichiers stockaient des euros en {@code Double}.</p>
+     *
+     * @param value The stored amount. / Le montant stocké.
+     * @return The amount in cents. / Le montant en centimes.
+     */
+    private static long toCents(Object value) {
+        if (value instanceof Long) {
+            return (Long) value;
+        }
+        return Math.round(((Number) value).doubleValue() * 100);
+    }
+}
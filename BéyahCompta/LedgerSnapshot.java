@@ -0,0 +1,162 @@
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable view of the ledger at one point in time, for readers outside the EDT such as the HTTP API.
+ * The rows in memory are a {@link Ledger.Rows} view shared with the ledger; the balances, the totals and
+ * the budgets are copied when the snapshot is taken; the months still on disk are only listed, and read
+ * from their segment by whoever walks the snapshot, since a month cannot change before being loaded.
+ *
+ * <p>Vue immuable du grand livre à un instant donné, pour les lecteurs hors de l'EDT comme l'API HTTP.
+ * Les lignes en mémoire sont une vue {@link Ledger.Rows} partagée avec le grand livre ; les soldes, les
+ * totaux et les budgets sont copiés à la prise de l'instantané ; les mois encore sur disque sont seulement
+ * listés, et lus depuis leur segment par celui qui parcourt l'instantané, puisqu'un mois ne peut pas
+ * changer avant d'être chargé.</p>
+ */
+final class LedgerSnapshot {
+
+    private static final BeyahCompta.TransactionCategory[] CATEGORIES = BeyahCompta.TransactionCategory.values();
+
+    /**
+     * Reads the rows of a month still on disk.
+     *
+     * <p>Lit les lignes d'un mois encore sur disque.</p>
+     */
+    interface MonthReader {
+        List<Transaction> read(YearMonth month) throws IOException;
+    }
+
+    /**
+     * Receives the rows of the snapshot, one batch at a time.
+     *
+     * <p>Reçoit les lignes de l'instantané, un lot à la fois.</p>
+     */
+    interface RowSink {
+        void accept(List<Transaction> rows) throws IOException;
+    }
+
+    private final long version;
+    private final List<LedgerStore.Summary> diskMonths;
+    private final MonthReader reader;
+    private final List<Transaction> rows; // Immutable, possibly with null tombstones / Immuables, éventuellement avec des pierres tombales null
+    private volatile List<Transaction> datedRows; // The rows in date order, on first walk / Les lignes dans l'ordre des dates, au premier parcours
+    private final Map<String, Long> balances; // In display order / Dans l'ordre d'affichage
+    private final long totalBalance;
+    private final long totalDebit;
+    private final long totalCredit;
+    private final long[] categorySpend = new long[CATEGORIES.length];
+    private final YearMonth period;
+    private final boolean[] budgeted = new boolean[CATEGORIES.length];
+    private final long[] budgets = new long[CATEGORIES.length];
+    private final long[] periodSpend = new long[CATEGORIES.length];
+    private final CategoryStats.BudgetStatus[] budgetStatus = new CategoryStats.BudgetStatus[CATEGORIES.length];
+
+    private LedgerSnapshot(long version, List<LedgerStore.Summary> diskMonths, MonthReader reader, List<Transaction> rows,
+                           AccountRegistry accounts, LedgerAggregates aggregates, LocalDate today) {
+        this.version = version;
+        this.diskMonths = Collections.unmodifiableList(new ArrayList<>(diskMonths));
+        this.reader = reader;
+        this.rows = rows;
+        Map<String, Long> byName = new LinkedHashMap<>();
+        for (int accountId : accounts.displayOrder()) {
+            byName.put(accounts.name(accountId), accounts.balance(accountId));
+        }
+        this.balances = Collections.unmodifiableMap(byName);
+        this.totalBalance = accounts.totalBalance();
+        this.totalDebit = aggregates.getTotalDebit();
+        this.totalCredit = aggregates.getTotalCredit();
+        CategoryStats stats = aggregates.getCategoryStats(today);
+        this.period = stats.getPeriod();
+        for (BeyahCompta.TransactionCategory category : CATEGORIES) {
+            int i = category.ordinal();
+            categorySpend[i] = aggregates.getCategorySpend(category);
+            budgeted[i] = stats.hasBudget(category);
+            budgets[i] = stats.getBudget(category);
+            periodSpend[i] = stats.getPeriodSpend(category);
+            budgetStatus[i] = stats.getBudgetStatus(category);
+        }
+    }
+
+    /**
+     * Takes a snapshot. Must run under the write lock of the ledger, see {@link Ledger#capture}.
+     *
+     * <p>Prend un instantané. Doit s'exécuter sous le verrou d'écriture du grand livre, voir {@link Ledger#capture}.</p>
+     *
+     * @param version Incremented for each snapshot of a ledger that changed. / Incrémentée à chaque instantané d'un grand livre qui a changé.
+     * @param diskMonths The summaries of the months not in memory, in month order. / Les synthèses des mois absents de la mémoire, dans l'ordre des mois.
+     * @param reader Reads those months. / Lit ces mois.
+     * @param rows The rows in memory, immutable, possibly with null tombstones. / Les lignes en mémoire, immuables, éventuellement avec des pierres tombales null.
+     * @param accounts The accounts and their balances. / Les comptes et leurs soldes.
+     * @param aggregates The totals, spend and budgets. / Les totaux, dépenses et budgets.
+     * @param today The day that sets the budget period. / Le jour qui fixe la période budgétaire.
+     * @return The snapshot. / L'instantané.
+     */
+    static LedgerSnapshot capture(long version, List<LedgerStore.Summary> diskMonths, MonthReader reader, List<Transaction> rows,
+                                  AccountRegistry accounts, LedgerAggregates aggregates, LocalDate today) {
+        return new LedgerSnapshot(version, diskMonths, reader, rows, accounts, aggregates, today);
+    }
+
+    /**
+     * Walks the rows that may match a query, in date order: the months on disk whose summary may match,
+     * one at a time, between the rows in memory that come before and after them. The batches may hold
+     * rows that do not match, see {@link TransactionQuery#matches}.
+     *
+     * <p>Parcourt les lignes qui peuvent correspondre à une requête, dans l'ordre des dates : les mois sur
+     * disque dont la synthèse peut correspondre, un à la fois, entre les lignes en mémoire qui les précèdent
+     * et les suivent. Les lots peuvent contenir des lignes qui ne correspondent pas, voir
+     * {@link TransactionQuery#matches}.</p>
+     *
+     * @param query The filters. / Les filtres.
+     * @param sink The receiver of the batches. / Le destinataire des lots.
+     * @throws IOException If a month cannot be read. / Si un mois ne peut pas être lu.
+     */
+    void forEachBatch(TransactionQuery query, RowSink sink) throws IOException {
+        List<Transaction> memory = datedRows;
+        if (memory == null) { // Computed at most a few times by concurrent walks / Calculé au plus quelques fois par des parcours concurrents
+            memory = datedRows = TransactionQuery.inDateOrder(rows);
+        }
+        int from = 0;
+        for (LedgerStore.Summary summary : diskMonths) {
+            if (query.mayMatch(summary)) {
+                int to = firstOnOrAfter(memory, from, summary.getMonth().atDay(1));
+                sink.accept(memory.subList(from, to));
+                from = to;
+                sink.accept(TransactionQuery.inDateOrder(reader.read(summary.getMonth())));
+            }
+        }
+        sink.accept(memory.subList(from, memory.size()));
+    }
+
+    private static int firstOnOrAfter(List<Transaction> dated, int from, LocalDate date) {
+        int low = from;
+        int high = dated.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (dated.get(middle).getDate().isBefore(date)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // --- Getters (cents) / Accesseurs (centimes) ---
+    public long getVersion() { return version; }
+    public Map<String, Long> getBalances() { return balances; }
+    public long getTotalBalance() { return totalBalance; }
+    public long getTotalDebit() { return totalDebit; }
+    public long getTotalCredit() { return totalCredit; }
+    public long getCategorySpend(BeyahCompta.TransactionCategory category) { return categorySpend[category.ordinal()]; }
+    public YearMonth getPeriod() { return period; }
+    public boolean hasBudget(BeyahCompta.TransactionCategory category) { return budgeted[category.ordinal()]; }
+    public long getBudget(BeyahCompta.TransactionCategory category) { return budgets[category.ordinal()]; }
+    public long getPeriodSpend(BeyahCompta.TransactionCategory category) { return periodSpend[category.ordinal()]; }
+    public CategoryStats.BudgetStatus getBudgetStatus(BeyahCompta.TransactionCategory category) { return budgetStatus[category.ordinal()]; }
+}
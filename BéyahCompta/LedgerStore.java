@@ -0,0 +1,610 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Month-partitioned storage of the ledger: one segment file per month ({@code 2024-05.seg}), made of a
+ * small summary header (totals per category and per account) followed by the month's rows in
+ * {@link TransactionSnapshot} format. Opening the store only reads the summaries, which are enough for
+ * the reports; the rows of a month are read when the application pages it in. Only the months changed
+ * since the last save are rewritten, each through a temporary file moved into place, after a backup of
+ * the previous version.
+ *
+ * <p>Stockage du grand livre partitionné par mois : un fichier de segment par mois ({@code 2024-05.seg}),
+ * composé d'un petit en-tête de synthèse (totaux par catégorie et par compte) suivi des lignes du mois au
+ * format {@link TransactionSnapshot}. L'ouverture du stockage ne lit que les synthèses, qui suffisent aux
+ * rapports ; les lignes d'un mois sont lues lorsque l'application le charge. Seuls les mois modifiés
+ * depuis la dernière sauvegarde sont réécrits, chacun au travers d'un fichier temporaire déplacé à sa
+ * place, après une sauvegarde de la version précédente.</p>
+ *
+ * <p>Layout / Format :
+ * {@code [int magic][short version][int summaryLength][summary][snapshot]}, the summary being
+ * {@code [int year][byte month][int rowCount][long maxId][long totalDebit][long totalCredit][int debitCount]
+ * [int creditCount][int categoryCount][categoryCount x (int count, long spend)][int accountCount]
+ * [accountCount x (int length, UTF-8 bytes, long net)]}.</p>
+ *
+ * <p>Thread-safe: segments may be read in the background while the EDT pages months in and saves.
+ * / Thread-safe : les segments peuvent être lus en arrière-plan pendant que l'EDT charge des mois et sauvegarde.</p>
+ */
+class LedgerStore {
+
+    private static final int MAGIC = 0x42595347; // "BYSG"
+    private static final short VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 2 + 4;
+    private static final int MAX_SUMMARY_SIZE = 1 << 24;
+    private static final int CATEGORY_COUNT = BeyahCompta.TransactionCategory.values().length;
+    private static final String SEGMENT_EXTENSION = ".seg";
+    private static final String BACKUP_EXTENSION = ".bak";
+    private static final String TEMPORARY_EXTENSION = ".tmp";
+
+    private final Path directory;
+    private final NavigableMap<YearMonth, Summary> summaries = new TreeMap<>(); // Months with a segment / Mois ayant un segment
+    private final Map<YearMonth, Path> sources = new HashMap<>(); // Segment or backup each summary was read from / Segment ou sauvegarde d'où vient chaque synthèse
+    private final Map<YearMonth, Long> sizes = new HashMap<>(); // Bytes of each source / Octets de chaque source
+    private long sizeOnDisk;
+    private final Set<YearMonth> loaded = new HashSet<>();
+    private final TreeSet<YearMonth> dirty = new TreeSet<>();
+
+    /**
+     * Summary of one month, stored in the header of its segment.
+     *
+     * <p>Synthèse d'un mois, stockée dans l'en-tête de son segment.</p>
+     */
+    static final class Summary {
+        private final YearMonth month;
+        private final int rowCount;
+        private final long maxId;
+        private final long totalDebit;
+        private final long totalCredit;
+        private final int debitCount;
+        private final int creditCount;
+        private final long[] categorySpend; // Debits by ordinal, in cents / Débits par ordinal, en centimes
+        private final int[] categoryCounts; // Transactions by ordinal / Transactions par ordinal
+        private final Map<String, Long> accountNets; // Credits minus debits by account, in cents / Crédits moins débits par compte, en centimes
+
+        private Summary(YearMonth month, int rowCount, long maxId, long totalDebit, long totalCredit, int debitCount,
+                        int creditCount, long[] categorySpend, int[] categoryCounts, Map<String, Long> accountNets) {
+            this.month = month;
+            this.rowCount = rowCount;
+            this.maxId = maxId;
+            this.totalDebit = totalDebit;
+            this.totalCredit = totalCredit;
+            this.debitCount = debitCount;
+            this.creditCount = creditCount;
+            this.categorySpend = categorySpend;
+            this.categoryCounts = categoryCounts;
+            this.accountNets = Collections.unmodifiableMap(accountNets);
+        }
+
+        /**
+         * Computes the summary of the rows of a month.
+         *
+         * <p>Calcule la synthèse des lignes d'un mois.</p>
+         *
+         * @param month The month. / Le mois.
+         * @param rows The live rows of that month. / Les lignes vivantes de ce mois.
+         * @return The summary. / La synthèse.
+         */
+        static Summary of(YearMonth month, List<Transaction> rows) {
+            long maxId = 0;
+            long totalDebit = 0;
+            long totalCredit = 0;
+            int debitCount = 0;
+            int creditCount = 0;
+            long[] categorySpend = new long[CATEGORY_COUNT];
+            int[] categoryCounts = new int[CATEGORY_COUNT];
+            Map<String, Long> accountNets = new TreeMap<>();
+            for (Transaction t : rows) {
+                maxId = Math.max(maxId, t.getId());
+                int category = t.getCategory().ordinal();
+                categoryCounts[category]++;
+                long amount = t.getMontantCents();
+                if (t.getType() == BeyahCompta.TransactionType.CREDIT) {
+                    totalCredit += amount;
+                    creditCount++;
+                    accountNets.merge(t.getAccount(), amount, Long::sum);
+                } else {
+                    totalDebit += amount;
+                    debitCount++;
+                    categorySpend[category] += amount;
+                    accountNets.merge(t.getAccount(), -amount, Long::sum);
+                }
+            }
+            return new Summary(month, rows.size(), maxId, totalDebit, totalCredit, debitCount, creditCount,
+                    categorySpend, categoryCounts, accountNets);
+        }
+
+        private byte[] toBytes() throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(month.getYear());
+            out.writeByte(month.getMonthValue());
+            out.writeInt(rowCount);
+            out.writeLong(maxId);
+            out.writeLong(totalDebit);
+            out.writeLong(totalCredit);
+            out.writeInt(debitCount);
+            out.writeInt(creditCount);
+            out.writeInt(CATEGORY_COUNT);
+            for (int c = 0; c < CATEGORY_COUNT; c++) {
+                out.writeInt(categoryCounts[c]);
+                out.writeLong(categorySpend[c]);
+            }
+            out.writeInt(accountNets.size());
+            for (Map.Entry<String, Long> entry : accountNets.entrySet()) {
+                byte[] name = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                out.writeInt(name.length);
+                out.write(name);
+                out.writeLong(entry.getValue());
+            }
+            return bytes.toByteArray();
+        }
+
+        private static Summary fromBytes(ByteBuffer buffer) {
+            YearMonth month = YearMonth.of(buffer.getInt(), buffer.get());
+            int rowCount = buffer.getInt();
+            long maxId = buffer.getLong();
+            long totalDebit = buffer.getLong();
+            long totalCredit = buffer.getLong();
+            int debitCount = buffer.getInt();
+            int creditCount = buffer.getInt();
+            int storedCategories = buffer.getInt();
+            if (storedCategories > CATEGORY_COUNT) {
+                throw new IllegalArgumentException("Catégories inconnues: " + storedCategories);
+            }
+            long[] categorySpend = new long[CATEGORY_COUNT];
+            int[] categoryCounts = new int[CATEGORY_COUNT];
+            for (int c = 0; c < storedCategories; c++) {
+                categoryCounts[c] = buffer.getInt();
+                categorySpend[c] = buffer.getLong();
+            }
+            int accountCount = buffer.getInt();
+            Map<String, Long> accountNets = new TreeMap<>();
+            for (int i = 0; i < accountCount; i++) {
+                byte[] name = new byte[buffer.getInt()];
+                buffer.get(name);
+                accountNets.put(new String(name, StandardCharsets.UTF_8), buffer.getLong());
+            }
+            return new Summary(month, rowCount, maxId, totalDebit, totalCredit, debitCount, creditCount,
+                    categorySpend, categoryCounts, accountNets);
+        }
+
+        // --- Getters (amounts in cents) / Accesseurs (montants en centimes) ---
+        public YearMonth getMonth() { return month; }
+        public int getRowCount() { return rowCount; }
+        public long getMaxId() { return maxId; }
+        public long getTotalDebit() { return totalDebit; }
+        public long getTotalCredit() { return totalCredit; }
+        public int getDebitCount() { return debitCount; }
+        public int getCreditCount() { return creditCount; }
+        public long getCategorySpend(int ordinal) { return categorySpend[ordinal]; }
+        public int getCategoryCount(int ordinal) { return categoryCounts[ordinal]; }
+        public Map<String, Long> getAccountNets() { return accountNets; }
+    }
+
+    /**
+     * Constructs a store over a directory, which is created by the first save.
+     *
+     * <p>Construit un stockage sur un répertoire, créé par la première sauvegarde.</p>
+     *
+     * @param directory The segment directory. / Le répertoire des segments.
+     */
+    public LedgerStore(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Tells whether the segment directory exists, i.e. whether the ledger was already saved in segments.
+     *
+     * <p>Indique si le répertoire des segments existe, c'est-à-dire si le grand livre a déjà été sauvegardé en segments.</p>
+     *
+     * @return True if the directory exists. / Vrai si le répertoire existe.
+     */
+    public boolean exists() {
+        return Files.isDirectory(directory);
+    }
+
+    /**
+     * Reads the summary of every segment, falling back to its backup when a segment is unreadable.
+     * No month is loaded afterwards.
+     *
+     * <p>Lit la synthèse de chaque segment, avec repli sur sa sauvegarde lorsqu'un segment est illisible.
+     * Aucun mois n'est chargé ensuite.</p>
+     *
+     * @throws IOException If the directory cannot be listed. / Si le répertoire ne peut pas être listé.
+     */
+    public synchronized void open() throws IOException {
+        summaries.clear();
+        sources.clear();
+        sizes.clear();
+        sizeOnDisk = 0;
+        loaded.clear();
+        dirty.clear();
+        if (!exists()) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SEGMENT_EXTENSION)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                YearMonth month;
+                try {
+                    month = YearMonth.parse(name.substring(0, name.length() - SEGMENT_EXTENSION.length()));
+                } catch (DateTimeParseException e) {
+                    System.err.println("Fichier ignoré dans le répertoire des segments: " + file);
+                    continue;
+                }
+                for (Path candidate : new Path[]{file, sibling(file, BACKUP_EXTENSION)}) {
+                    try {
+                        Summary summary = readSummary(candidate);
+                        if (!summary.getMonth().equals(month)) {
+                            throw new IOException("Segment d'un autre mois (" + summary.getMonth() + ")");
+                        }
+                        long size = Files.size(candidate);
+                        summaries.put(month, summary);
+                        sources.put(month, candidate);
+                        sizes.put(month, size);
+                        sizeOnDisk += size;
+                        break;
+                    } catch (IOException e) {
+                        System.err.println("Erreur lors de la lecture du segment " + candidate + ": " + e.getMessage());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the summaries of all the segments, in month order.
+     *
+     * <p>Retourne les synthèses de tous les segments, dans l'ordre des mois.</p>
+     *
+     * @return A new list of summaries. / Une nouvelle liste de synthèses.
+     */
+    public synchronized List<Summary> getSummaries() {
+        return new ArrayList<>(summaries.values());
+    }
+
+    /**
+     * Returns the total size of the segments, the size of the last snapshot of the ledger.
+     *
+     * <p>Retourne la taille totale des segments, la taille du dernier instantané du grand livre.</p>
+     *
+     * @return The size in bytes, 0 before the first save. / La taille en octets, 0 avant la première sauvegarde.
+     */
+    public synchronized long getSizeOnDisk() {
+        return sizeOnDisk;
+    }
+
+    /**
+     * Returns the highest transaction ID found in the summaries.
+     *
+     * <p>Retourne le plus grand ID de transaction présent dans les synthèses.</p>
+     *
+     * @return The highest ID, 0 if there is none. / Le plus grand ID, 0 s'il n'y en a aucun.
+     */
+    public synchronized long getMaxId() {
+        long maxId = 0;
+        for (Summary summary : summaries.values()) {
+            maxId = Math.max(maxId, summary.getMaxId());
+        }
+        return maxId;
+    }
+
+    /**
+     * Tells whether a month has rows on disk that are not in memory yet.
+     *
+     * <p>Indique si un mois a sur disque des lignes qui ne sont pas encore en mémoire.</p>
+     *
+     * @param month The month. / Le mois.
+     * @return True if the month must be read before being changed. / Vrai si le mois doit être lu avant d'être modifié.
+     */
+    public synchronized boolean needsLoading(YearMonth month) {
+        return summaries.containsKey(month) && !loaded.contains(month);
+    }
+
+    /**
+     * Returns the months whose rows are on disk only, in month order.
+     *
+     * <p>Retourne les mois dont les lignes ne sont que sur disque, dans l'ordre des mois.</p>
+     *
+     * @return A new list of months. / Une nouvelle liste de mois.
+     */
+    public synchronized List<Summary> getUnloadedSummaries() {
+        List<Summary> unloaded = new ArrayList<>();
+        for (Summary summary : summaries.values()) {
+            if (!loaded.contains(summary.getMonth())) {
+                unloaded.add(summary);
+            }
+        }
+        return unloaded;
+    }
+
+    /**
+     * Reads the rows of a month from its segment. The month is not marked as loaded. The segment is read
+     * into the heap rather than mapped: a mapping stays open until collected, and on Windows a mapped file
+     * cannot be replaced by the next save.
+     *
+     * <p>Lit les lignes d'un mois depuis son segment. Le mois n'est pas marqué comme chargé. Le segment est
+     * lu dans le tas plutôt que mappé : un mappage reste ouvert jusqu'à sa collecte, et sous Windows un
+     * fichier mappé ne peut pas être remplacé par la sauvegarde suivante.</p>
+     *
+     * @param month The month. / Le mois.
+     * @return The rows, empty if the month has no segment. / Les lignes, vide si le mois n'a pas de segment.
+     * @throws IOException If the segment cannot be read. / Si le segment ne peut pas être lu.
+     */
+    public List<Transaction> read(YearMonth month) throws IOException {
+        Path source;
+        synchronized (this) {
+            source = sources.get(month);
+        }
+        if (source == null) {
+            return new ArrayList<>();
+        }
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Segment trop volumineux: " + source);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size); // Small: one month / Petit : un mois
+            readFully(channel, buffer, source);
+            int summaryLength = readHeader(buffer, source);
+            buffer.position(buffer.position() + summaryLength);
+            return TransactionSnapshot.read(buffer.slice(), source);
+        } catch (IllegalArgumentException e) { // Position beyond the end / Position au-delà de la fin
+            throw new IOException("Segment tronqué: " + source, e);
+        }
+    }
+
+    /**
+     * Records that the rows of a month are now in memory.
+     *
+     * <p>Enregistre que les lignes d'un mois sont désormais en mémoire.</p>
+     *
+     * @param month The month. / Le mois.
+     */
+    public synchronized void markLoaded(YearMonth month) {
+        loaded.add(month);
+    }
+
+    /**
+     * Records that a month changed in memory and must be rewritten by the next save. Its rows must be loaded.
+     *
+     * <p>Enregistre qu'un mois a changé en mémoire et doit être réécrit par la prochaine sauvegarde. Ses lignes doivent être chargées.</p>
+     *
+     * @param month The month. / Le mois.
+     * @throws IllegalStateException If the month still has rows on disk only. / Si le mois a encore des lignes uniquement sur disque.
+     */
+    public synchronized void markDirty(YearMonth month) {
+        if (needsLoading(month)) { // Saving it would drop the rows on disk / Le sauvegarder perdrait les lignes sur disque
+            throw new IllegalStateException("Mois non chargé: " + month);
+        }
+        loaded.add(month);
+        dirty.add(month);
+    }
+
+    /**
+     * Takes the set of changed months, which are then no longer marked as changed. Their rows are
+     * gathered afterwards by {@link #groupByMonth}, from a snapshot taken at the same time.
+     *
+     * <p>Prend l'ensemble des mois modifiés, qui ne sont alors plus marqués comme modifiés. Leurs lignes
+     * sont rassemblées ensuite par {@link #groupByMonth}, depuis un instantané pris au même moment.</p>
+     *
+     * @return The changed months, in order. / Les mois modifiés, dans l'ordre.
+     */
+    public synchronized SortedSet<YearMonth> takeChangedMonths() {
+        SortedSet<YearMonth> months = new TreeSet<>(dirty);
+        dirty.clear();
+        return months;
+    }
+
+    /**
+     * Gathers the rows of some months, on any thread. The rows are not copied: the ledger must not
+     * modify them, as is the case for a {@link Ledger} snapshot.
+     *
+     * <p>Rassemble les lignes de certains mois, sur n'importe quel thread. Les lignes ne sont pas copiées :
+     * le grand livre ne doit pas les modifier, comme c'est le cas pour un instantané de {@link Ledger}.</p>
+     *
+     * @param transactions The ledger, possibly with null tombstones. / Le grand livre, éventuellement avec des pierres tombales null.
+     * @param months The months to gather. / Les mois à rassembler.
+     * @return The rows by month, empty for a month without rows. / Les lignes par mois, vide pour un mois sans lignes.
+     */
+    public static Map<YearMonth, List<Transaction>> groupByMonth(List<Transaction> transactions, SortedSet<YearMonth> months) {
+        Map<YearMonth, List<Transaction>> changes = new TreeMap<>();
+        if (months.isEmpty()) {
+            return changes;
+        }
+        // Months indexed as year * 12 + month from the first changed one, found without allocating per row
+        // Mois indexés sous la forme année * 12 + mois depuis le premier modifié, trouvés sans allocation par ligne
+        int first = monthIndex(months.first());
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        List<Transaction>[] groups = new List[monthIndex(months.last()) - first + 1];
+        for (YearMonth month : months) {
+            List<Transaction> rows = new ArrayList<>();
+            groups[monthIndex(month) - first] = rows;
+            changes.put(month, rows);
+        }
+        for (Transaction t : transactions) {
+            if (t != null) { // Skip deleted rows / Ignorer les lignes supprimées
+                int g = t.getDate().getYear() * 12 + t.getDate().getMonthValue() - first;
+                if (g >= 0 && g < groups.length && groups[g] != null) {
+                    groups[g].add(t);
+                }
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Writes the rows of the months taken by {@link #takeChangedMonths}, as gathered by {@link #groupByMonth};
+     * a month left empty loses its segment.
+     * The first save writes every segment into a temporary directory that is then renamed, so a ledger
+     * is never half migrated. The store stays usable from other threads during the write.
+     *
+     * <p>Écrit les lignes des mois pris par {@link #takeChangedMonths}, telles que rassemblées par
+     * {@link #groupByMonth} ; un mois devenu vide perd son segment.
+     * La première sauvegarde écrit tous les segments dans un répertoire temporaire ensuite renommé : un
+     * grand livre n'est jamais à moitié migré. Le stockage reste utilisable depuis d'autres threads pendant l'écriture.</p>
+     *
+     * @param changes The rows by month. / Les lignes par mois.
+     * @throws IOException If a segment cannot be written; the months not written are marked as changed again. / Si un segment ne peut pas être écrit ; les mois non écrits sont de nouveau marqués comme modifiés.
+     */
+    public void write(Map<YearMonth, List<Transaction>> changes) throws IOException {
+        if (changes.isEmpty()) {
+            return;
+        }
+        boolean migrating = !exists();
+        Path target = migrating ? sibling(directory, TEMPORARY_EXTENSION) : directory;
+        Set<YearMonth> unwritten = new TreeSet<>(changes.keySet());
+        Map<YearMonth, Summary> written = new HashMap<>(); // Null for a removed segment / Null pour un segment supprimé
+        Map<YearMonth, Long> writtenSizes = new HashMap<>();
+        try {
+            if (migrating) {
+                deleteDirectory(target); // Left over by an interrupted migration / Laissé par une migration interrompue
+                Files.createDirectories(target);
+            }
+            for (Map.Entry<YearMonth, List<Transaction>> entry : changes.entrySet()) {
+                YearMonth month = entry.getKey();
+                Path file = target.resolve(month + SEGMENT_EXTENSION);
+                if (entry.getValue().isEmpty()) {
+                    Files.deleteIfExists(file);
+                    written.put(month, null);
+                } else {
+                    Summary summary = Summary.of(month, entry.getValue());
+                    writeSegment(file, summary, entry.getValue());
+                    written.put(month, summary);
+                    writtenSizes.put(month, Files.size(file));
+                }
+                if (!migrating) {
+                    publish(written, writtenSizes);
+                    unwritten.remove(month);
+                }
+            }
+            if (migrating) {
+                Files.move(target, directory, StandardCopyOption.ATOMIC_MOVE);
+                AtomicFiles.forceDirectory(directory.toAbsolutePath().getParent());
+                publish(written, writtenSizes);
+                unwritten.clear();
+            }
+        } finally {
+            if (!unwritten.isEmpty()) {
+                synchronized (this) {
+                    dirty.addAll(unwritten);
+                }
+            }
+        }
+    }
+
+    private synchronized void publish(Map<YearMonth, Summary> written, Map<YearMonth, Long> writtenSizes) {
+        for (Map.Entry<YearMonth, Summary> entry : written.entrySet()) {
+            YearMonth month = entry.getKey();
+            Long previousSize = sizes.remove(month);
+            if (previousSize != null) {
+                sizeOnDisk -= previousSize;
+            }
+            if (entry.getValue() == null) {
+                summaries.remove(month);
+                sources.remove(month);
+            } else {
+                long size = writtenSizes.get(month);
+                summaries.put(month, entry.getValue());
+                sources.put(month, directory.resolve(month + SEGMENT_EXTENSION));
+                sizes.put(month, size);
+                sizeOnDisk += size;
+            }
+        }
+        written.clear();
+        writtenSizes.clear();
+    }
+
+    private static int monthIndex(YearMonth month) {
+        return month.getYear() * 12 + month.getMonthValue();
+    }
+
+    private static void writeSegment(Path file, Summary summary, List<Transaction> rows) throws IOException {
+        AtomicFiles.backup(file, sibling(file, BACKUP_EXTENSION)); // Keep the previous version / Conserver la version précédente
+        byte[] summaryBytes = summary.toBytes();
+        AtomicFiles.write(file, stream -> {
+            DataOutputStream out = new DataOutputStream(stream);
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeInt(summaryBytes.length);
+            out.write(summaryBytes);
+            TransactionSnapshot.write(out, rows);
+            out.flush();
+        });
+    }
+
+    private static Summary readSummary(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(channel, header, file);
+            int summaryLength = readHeader(header, file);
+            ByteBuffer summary = ByteBuffer.allocate(summaryLength);
+            readFully(channel, summary, file);
+            return Summary.fromBytes(summary);
+        } catch (RuntimeException e) { // Buffer underflow or invalid month / Dépassement de tampon ou mois invalide
+            throw new IOException("Synthèse de segment corrompue: " + file, e);
+        }
+    }
+
+    private static int readHeader(ByteBuffer buffer, Path file) throws IOException {
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+            throw new IOException("Fichier de segment invalide: " + file);
+        }
+        short version = buffer.getShort();
+        if (version != VERSION) {
+            throw new IOException("Version de segment non prise en charge (" + version + "): " + file);
+        }
+        int summaryLength = buffer.getInt();
+        if (summaryLength < 0 || summaryLength > MAX_SUMMARY_SIZE) {
+            throw new IOException("Synthèse de segment corrompue: " + file);
+        }
+        return summaryLength;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, Path file) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Segment tronqué: " + file);
+            }
+        }
+        buffer.flip();
+    }
+
+    private static Path sibling(Path file, String extension) {
+        return file.resolveSibling(file.getFileName() + extension);
+    }
+
+    private static void deleteDirectory(Path path) throws IOException {
+        if (!Files.isDirectory(path)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(path)) { // Segments only, no subdirectory / Segments uniquement, sans sous-répertoire
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(path);
+    }
+}
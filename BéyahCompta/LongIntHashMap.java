@@ -0,0 +1,170 @@
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from primitive {@code long} keys to primitive {@code int} values, with no boxing.
+ * Removed entries leave a tombstone so that probe chains stay intact; the table is rehashed (compacted)
+ * when live entries plus tombstones exceed the load factor.
+ *
+ * <p>Table de hachage à adressage ouvert associant des clés {@code long} primitives à des valeurs
+ * {@code int} primitives, sans boxing. Les entrées supprimées laissent une pierre tombale pour que les
+ * chaînes de sondage restent intactes ; la table est rehachée (compactée) lorsque les entrées vivantes
+ * plus les pierres tombales dépassent le facteur de charge.</p>
+ */
+class LongIntHashMap {
+
+    private static final byte FREE = 0;
+    private static final byte USED = 1;
+    private static final byte TOMBSTONE = 2;
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private int[] values;
+    private byte[] states;
+    private int size;
+    private int tombstones;
+
+    /**
+     * Constructs an empty map.
+     *
+     * <p>Construit une table vide.</p>
+     */
+    public LongIntHashMap() {
+        allocate(MIN_CAPACITY);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        states = new byte[capacity];
+        size = 0;
+        tombstones = 0;
+    }
+
+    private static int hash(long key) {
+        key ^= key >>> 33; // Murmur3 finalizer / Finaliseur Murmur3
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    private int slotOf(long key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (states[slot] != FREE) {
+            if (states[slot] == USED && keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the value associated with a key.
+     *
+     * <p>Retourne la valeur associée à une clé.</p>
+     *
+     * @param key The key. / La clé.
+     * @return The value, or -1 if the key is absent. / La valeur, ou -1 si la clé est absente.
+     */
+    public int get(long key) {
+        int slot = slotOf(key);
+        return slot < 0 ? -1 : values[slot];
+    }
+
+    /**
+     * Associates a value with a key, replacing any previous value.
+     *
+     * <p>Associe une valeur à une clé, en remplaçant toute valeur précédente.</p>
+     *
+     * @param key The key. / La clé.
+     * @param value The value. / La valeur.
+     */
+    public void put(long key, int value) {
+        int existing = slotOf(key);
+        if (existing >= 0) {
+            values[existing] = value;
+            return;
+        }
+        if ((size + tombstones + 1) * 4L > keys.length * 3L) {
+            // Grow when mostly live, otherwise only purge tombstones / Agrandir si surtout vivante, sinon purger les pierres tombales
+            rehash(size * 2 >= keys.length / 2 ? keys.length * 2 : keys.length);
+        }
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (states[slot] == USED) {
+            slot = (slot + 1) & mask;
+        }
+        if (states[slot] == TOMBSTONE) {
+            tombstones--;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        states[slot] = USED;
+        size++;
+    }
+
+    /**
+     * Removes a key, leaving a tombstone in its slot.
+     *
+     * <p>Supprime une clé, en laissant une pierre tombale à sa place.</p>
+     *
+     * @param key The key. / La clé.
+     * @return The removed value, or -1 if the key was absent. / La valeur supprimée, ou -1 si la clé était absente.
+     */
+    public int remove(long key) {
+        int slot = slotOf(key);
+        if (slot < 0) {
+            return -1;
+        }
+        states[slot] = TOMBSTONE;
+        size--;
+        tombstones++;
+        return values[slot];
+    }
+
+    /**
+     * Removes every entry, keeping a capacity suited to the given number of entries.
+     *
+     * <p>Supprime toutes les entrées, en conservant une capacité adaptée au nombre d'entrées donné.</p>
+     *
+     * @param expectedSize The number of entries about to be inserted. / Le nombre d'entrées sur le point d'être insérées.
+     */
+    public void clear(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * 3L < expectedSize * 4L + 4) {
+            capacity <<= 1;
+        }
+        if (capacity == keys.length) {
+            Arrays.fill(states, FREE);
+            size = 0;
+            tombstones = 0;
+        } else {
+            allocate(capacity);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        byte[] oldStates = states;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldStates[i] == USED) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (states[slot] == USED) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+                states[slot] = USED;
+                size++;
+            }
+        }
+    }
+}
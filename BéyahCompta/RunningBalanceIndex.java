@@ -0,0 +1,271 @@
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Per-account prefix sums of the flows of the transactions in date then ID order, giving the balance of
+ * an account just after any of its transactions in O(log rows). Each account keeps its sorted keys, their
+ * flows and the prefix sums of those flows. Inserting, editing or removing a row only shifts the keys
+ * after it; the prefix sums of the suffix are marked stale and recomputed lazily, up to the row asked
+ * for, by the next query. A month still on disk counts as one entry, after its last day, holding the
+ * net flow of the account in that month. Keys pack the epoch day with the ID, which must stay below
+ * 2<sup>40</sup>. Not thread-safe: the {@link Ledger} guards it.
+ *
+ * <p>Sommes préfixes par compte des flux des transactions dans l'ordre date puis ID, donnant le solde
+ * d'un compte juste après n'importe laquelle de ses transactions en O(log lignes). Chaque compte garde
+ * ses clés triées, leurs flux et les sommes préfixes de ces flux. Insérer, modifier ou supprimer une
+ * ligne ne décale que les clés qui la suivent ; les sommes préfixes du suffixe sont marquées périmées
+ * et recalculées paresseusement, jusqu'à la ligne demandée, par la requête suivante. Un mois encore sur
+ * disque compte comme une seule entrée, après son dernier jour, portant le flux net du compte dans ce
+ * mois. Les clés combinent le jour epoch et l'ID, qui doit rester inférieur à 2<sup>40</sup>. Non
+ * thread-safe : le {@link Ledger} le protège.</p>
+ */
+final class RunningBalanceIndex {
+
+    private static final int ID_BITS = 40;
+    private static final long MONTH_ID = (1L << ID_BITS) - 1; // After every transaction of the day / Après toutes les transactions du jour
+
+    /**
+     * The entries of one account, sorted by key.
+     *
+     * <p>Les entrées d'un compte, triées par clé.</p>
+     */
+    private static final class Entries {
+        private long[] keys = new long[16];
+        private long[] flows = new long[16];
+        private long[] prefix = new long[16];
+        private int size;
+        private int valid; // Prefix sums below are up to date / Les sommes préfixes en dessous sont à jour
+        private long total;
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > keys.length) {
+                int grown = Math.max(capacity, keys.length * 2);
+                keys = Arrays.copyOf(keys, grown);
+                flows = Arrays.copyOf(flows, grown);
+                prefix = Arrays.copyOf(prefix, grown);
+            }
+        }
+
+        private void put(long key, long flow) {
+            int position = Arrays.binarySearch(keys, 0, size, key);
+            if (position >= 0) { // Edited in place / Modifiée sur place
+                total += flow - flows[position];
+                flows[position] = flow;
+            } else {
+                position = -position - 1;
+                ensureCapacity(size + 1);
+                System.arraycopy(keys, position, keys, position + 1, size - position);
+                System.arraycopy(flows, position, flows, position + 1, size - position);
+                keys[position] = key;
+                flows[position] = flow;
+                size++;
+                total += flow;
+            }
+            valid = Math.min(valid, position);
+        }
+
+        private void remove(long key) {
+            int position = Arrays.binarySearch(keys, 0, size, key);
+            if (position < 0) {
+                return;
+            }
+            total -= flows[position];
+            System.arraycopy(keys, position + 1, keys, position, size - position - 1);
+            System.arraycopy(flows, position + 1, flows, position, size - position - 1);
+            size--;
+            valid = Math.min(valid, position);
+        }
+
+        private void merge(long[] addedKeys, long[] addedFlows, int count) {
+            ensureCapacity(size + count);
+            int i = size - 1;
+            int k = size + count - 1;
+            for (int j = count - 1; j >= 0; k--) { // From the end, so only the entries after the first added key move / Depuis la fin : seules les entrées après la première clé ajoutée bougent
+                if (i >= 0 && keys[i] > addedKeys[j]) {
+                    keys[k] = keys[i];
+                    flows[k] = flows[i--];
+                } else {
+                    keys[k] = addedKeys[j];
+                    flows[k] = addedFlows[j];
+                    total += addedFlows[j--];
+                }
+            }
+            size += count;
+            valid = Math.min(valid, k + 1);
+        }
+
+        private long flowThrough(long key) {
+            int position = Arrays.binarySearch(keys, 0, size, key);
+            int last = position >= 0 ? position : -position - 2; // Last entry not after the key / Dernière entrée non postérieure à la clé
+            if (last < 0) {
+                return 0;
+            }
+            for (int i = valid; i <= last; i++) { // Lazy: only up to the entry asked for / Paresseux : seulement jusqu'à l'entrée demandée
+                prefix[i] = (i == 0 ? 0 : prefix[i - 1]) + flows[i];
+            }
+            valid = Math.max(valid, last + 1);
+            return prefix[last];
+        }
+    }
+
+    private Entries[] accounts = new Entries[0]; // By account id / Par identifiant de compte
+
+    /**
+     * Drops every entry.
+     *
+     * <p>Supprime toutes les entrées.</p>
+     */
+    public void clear() {
+        accounts = new Entries[0];
+    }
+
+    /**
+     * Adds a transaction, or updates its flow if a transaction with the same date and ID is already there.
+     *
+     * <p>Ajoute une transaction, ou met à jour son flux si une transaction de même date et même ID s'y trouve déjà.</p>
+     *
+     * @param t The transaction. / La transaction.
+     */
+    public void put(Transaction t) {
+        entries(t.getAccountId()).put(key(t.getDate(), t.getId()), flow(t));
+    }
+
+    /**
+     * Removes a transaction.
+     *
+     * <p>Supprime une transaction.</p>
+     *
+     * @param t The transaction as it was added. / La transaction telle qu'elle a été ajoutée.
+     */
+    public void remove(Transaction t) {
+        entries(t.getAccountId()).remove(key(t.getDate(), t.getId()));
+    }
+
+    /**
+     * Adds many transactions at once, in O(rows + added log added) per account instead of one shift per row.
+     *
+     * <p>Ajoute de nombreuses transactions d'un coup, en O(lignes + ajoutées log ajoutées) par compte au
+     * lieu d'un décalage par ligne.</p>
+     *
+     * @param rows The transactions, possibly with null tombstones; none already present. / Les transactions, éventuellement avec des pierres tombales null ; aucune déjà présente.
+     */
+    public void addAll(List<Transaction> rows) {
+        int[] counts = new int[0];
+        for (Transaction t : rows) {
+            if (t != null) {
+                int accountId = t.getAccountId();
+                if (accountId >= counts.length) {
+                    counts = Arrays.copyOf(counts, Math.max(accountId + 1, counts.length * 2));
+                }
+                counts[accountId]++;
+            }
+        }
+        long[][] keys = new long[counts.length][];
+        LongIntHashMap positions = new LongIntHashMap(); // Key -> row, keys being unique / Clé -> ligne, les clés étant uniques
+        int[] filled = new int[counts.length];
+        for (int row = 0; row < rows.size(); row++) {
+            Transaction t = rows.get(row);
+            if (t != null) {
+                int accountId = t.getAccountId();
+                if (keys[accountId] == null) {
+                    keys[accountId] = new long[counts[accountId]];
+                }
+                long key = key(t.getDate(), t.getId());
+                keys[accountId][filled[accountId]++] = key;
+                positions.put(key, row);
+            }
+        }
+        for (int accountId = 0; accountId < counts.length; accountId++) {
+            long[] accountKeys = keys[accountId];
+            if (accountKeys == null) {
+                continue;
+            }
+            Arrays.sort(accountKeys);
+            long[] accountFlows = new long[accountKeys.length];
+            for (int i = 0; i < accountKeys.length; i++) {
+                accountFlows[i] = flow(rows.get(positions.get(accountKeys[i])));
+            }
+            entries(accountId).merge(accountKeys, accountFlows, accountKeys.length);
+        }
+    }
+
+    /**
+     * Adds the net flow of an account in a month still on disk, after the last day of the month.
+     *
+     * <p>Ajoute le flux net d'un compte dans un mois encore sur disque, après le dernier jour du mois.</p>
+     *
+     * @param accountId The account. / Le compte.
+     * @param month The month. / Le mois.
+     * @param netCents Credits minus debits. / Les crédits moins les débits.
+     */
+    public void putMonth(int accountId, YearMonth month, long netCents) {
+        entries(accountId).put(monthKey(month), netCents);
+    }
+
+    /**
+     * Removes the net flow of an account in a month, once its rows are added.
+     *
+     * <p>Supprime le flux net d'un compte dans un mois, une fois ses lignes ajoutées.</p>
+     *
+     * @param accountId The account. / Le compte.
+     * @param month The month. / Le mois.
+     */
+    public void removeMonth(int accountId, YearMonth month) {
+        if (accountId < accounts.length && accounts[accountId] != null) {
+            accounts[accountId].remove(monthKey(month));
+        }
+    }
+
+    /**
+     * Returns the net flow of the account of a transaction up to that transaction, included.
+     *
+     * <p>Retourne le flux net du compte d'une transaction jusqu'à cette transaction, incluse.</p>
+     *
+     * @param t The transaction. / La transaction.
+     * @return The sum of the flows, in cents. / La somme des flux, en centimes.
+     */
+    public long flowThrough(Transaction t) {
+        int accountId = t.getAccountId();
+        if (accountId >= accounts.length || accounts[accountId] == null) {
+            return 0;
+        }
+        return accounts[accountId].flowThrough(key(t.getDate(), t.getId()));
+    }
+
+    /**
+     * Returns the net flow of an account over all its entries.
+     *
+     * <p>Retourne le flux net d'un compte sur toutes ses entrées.</p>
+     *
+     * @param accountId The account. / Le compte.
+     * @return The sum of the flows, in cents. / La somme des flux, en centimes.
+     */
+    public long totalFlow(int accountId) {
+        return accountId < accounts.length && accounts[accountId] != null ? accounts[accountId].total : 0;
+    }
+
+    private Entries entries(int accountId) {
+        if (accountId >= accounts.length) {
+            accounts = Arrays.copyOf(accounts, Math.max(accountId + 1, accounts.length * 2));
+        }
+        Entries entries = accounts[accountId];
+        if (entries == null) {
+            entries = accounts[accountId] = new Entries();
+        }
+        return entries;
+    }
+
+    private static long key(LocalDate date, long id) {
+        return date.toEpochDay() << ID_BITS | id;
+    }
+
+    private static long monthKey(YearMonth month) {
+        return key(month.atEndOfMonth(), MONTH_ID);
+    }
+
+    private static long flow(Transaction t) {
+        return t.getType() == BeyahCompta.TransactionType.DEBIT ? -t.getMontantCents() : t.getMontantCents();
+    }
+}
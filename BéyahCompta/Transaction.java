@@ -0,0 +1,205 @@
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Represents a financial transaction within the BeyahCompta application.
+ * This class is Serializable to allow for persistence.
+ *
+ * <p>Représente une transaction financière au sein de l'application BeyahCompta.
+ * Cette classe est Sérialisable pour permettre la persistance.</p>
+ */
+class Transaction implements Serializable {
+    // IMPORTANT: Reverted serialVersionUID to 1L to ensure backward compatibility with
+    // previously serialized files that had String types for 'type' and 'category' fields.
+    // The custom readObject method below handles the String to Enum conversion.
+    private static final long serialVersionUID = 1L;
+
+    // The serialized form keeps the account name, registry ids are only valid within one run
+    // La forme sérialisée conserve le nom du compte, les identifiants du registre ne valent que pour une exécution
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("id", long.class),
+            new ObjectStreamField("date", LocalDate.class),
+            new ObjectStreamField("account", String.class),
+            new ObjectStreamField("type", BeyahCompta.TransactionType.class),
+            new ObjectStreamField("category", BeyahCompta.TransactionCategory.class),
+            new ObjectStreamField("description", String.class),
+            new ObjectStreamField("montantCents", long.class)
+    };
+
+    /**
+     * The next available ID for a new transaction.
+     * This field is public static to ensure visibility and proper incrementation across instances.
+     *
+     * <p>Le prochain ID disponible pour une nouvelle transaction.
+     * Ce champ est public statique pour assurer la visibilité et l'incrémentation correcte entre les instances.</p>
+     */
+    public static long nextId = 1;
+
+    private long id;
+    private LocalDate date;
+    private int accountId; // Id in the shared account registry / Identifiant dans le registre partagé des comptes
+    private BeyahCompta.TransactionType type; // Using enum / Utilisation de l'énumération
+    private BeyahCompta.TransactionCategory category; // Using enum / Utilisation de l'énumération
+    private String description;
+    private long montantCents; // Amount in cents / Montant en centimes
+
+    /**
+     * Constructor for creating a new transaction. Automatically assigns a unique ID and the current date.
+     *
+     * <p>Constructeur pour créer une nouvelle transaction. Assignée automatiquement un ID unique et la date actuelle.</p>
+     *
+     * @param account The account name associated with the transaction. / Le nom du compte associé à la transaction.
+     * @param type The type of transaction (Debit or Credit). / Le type de transaction (Débit ou Crédit).
+     * @param category The category of the transaction. / La catégorie de la transaction.
+     * @param description A brief description of the transaction. / Une brève description de la transaction.
+     * @param montantCents The amount of the transaction, in cents. / Le montant de la transaction, en centimes.
+     */
+    public Transaction(String account, BeyahCompta.TransactionType type, BeyahCompta.TransactionCategory category, String description, long montantCents) {
+        this.id = nextId++;
+        this.date = LocalDate.now();
+        this.accountId = AccountRegistry.SHARED.register(account);
+        this.type = type;
+        this.category = category;
+        this.description = description;
+        this.montantCents = montantCents;
+    }
+
+    /**
+     * Constructor for loading an existing transaction from persistent storage.
+     * Allows setting the ID and date explicitly.
+     *
+     * <p>Constructeur pour charger une transaction existante à partir du stockage persistant.
+     * Permet de définir explicitement l'ID et la date.</p>
+     *
+     * @param id The unique identifier of the transaction. / L'identifiant unique de la transaction.
+     * @param date The date of the transaction. / La date de la transaction.
+     * @param account The account name. / Le nom du compte.
+     * @param type The type of transaction. / Le type de transaction.
+     * @param category The category of the transaction. / La catégorie de la transaction.
+     * @param description The description of the transaction. / La description de la transaction.
+     * @param montantCents The amount of the transaction, in cents. / Le montant de la transaction, en centimes.
+     */
+    public Transaction(long id, LocalDate date, String account, BeyahCompta.TransactionType type, BeyahCompta.TransactionCategory category, String description, long montantCents) {
+        this.id = id;
+        this.date = date;
+        this.accountId = AccountRegistry.SHARED.register(account);
+        this.type = type;
+        this.category = category;
+        this.description = description;
+        this.montantCents = montantCents;
+    }
+
+    /**
+     * Returns a copy of this transaction, e.g. to save it on another thread while the original can still be edited.
+     *
+     * <p>Retourne une copie de cette transaction, par ex. pour la sauvegarder sur un autre thread pendant que
+     * l'originale peut encore être modifiée.</p>
+     *
+     * @return The copy. / La copie.
+     */
+    public Transaction copy() {
+        return new Transaction(id, date, getAccount(), type, category, description, montantCents);
+    }
+
+    // --- Getters ---
+    public long getId() { return id; }
+    public LocalDate getDate() { return date; }
+    public String getAccount() { return AccountRegistry.SHARED.name(accountId); }
+    public int getAccountId() { return accountId; } // Id in the shared account registry / Identifiant dans le registre partagé des comptes
+    public BeyahCompta.TransactionType getType() { return type; } // Returns enum / Retourne l'énumération
+    public BeyahCompta.TransactionCategory getCategory() { return category; } // Retourne l'énumération
+    public String getDescription() { return description; }
+    public long getMontantCents() { return montantCents; } // Amount in cents / Montant en centimes
+
+    // --- Setters ---
+    public void setAccount(String account) { this.accountId = AccountRegistry.SHARED.register(account); }
+    public void setType(BeyahCompta.TransactionType type) { this.type = type; } // Accepts enum / Accepte l'énumération
+    public void setCategory(BeyahCompta.TransactionCategory category) { this.category = category; } // Accepte l'énumération
+    public void setDescription(String description) { this.description = description; }
+    public void setMontantCents(long montantCents) { this.montantCents = montantCents; }
+
+    /**
+     * Custom serialization method writing the account by name, as declared in {@code serialPersistentFields}.
+     *
+     * <p>Méthode de sérialisation personnalisée écrivant le compte par son nom, comme déclaré dans
+     * {@code serialPersistentFields}.</p>
+     *
+     * @param s The ObjectOutputStream to which to write the object.
+     * @throws IOException If an I/O error occurs.
+     */
+    private void writeObject(ObjectOutputStream s) throws IOException {
+        ObjectOutputStream.PutField fields = s.putFields();
+        fields.put("id", id);
+        fields.put("date", date);
+        fields.put("account", getAccount());
+        fields.put("type", type);
+        fields.put("category", category);
+        fields.put("description", description);
+        fields.put("montantCents", montantCents);
+        s.writeFields();
+    }
+
+    /**
+     * Custom deserialization method to handle backward compatibility.
+     * It addresses the change of 'type' and 'category' fields from String to Enum,
+     * and converts the old 'montant' double field to 'montantCents'.
+     *
+     * <p>Méthode de désérialisation personnalisée pour gérer la compatibilité ascendante.
+     * Elle gère le changement des champs 'type' et 'category' de String à Enum,
+     * et convertit l'ancien champ double 'montant' en 'montantCents'.</p>
+     *
+     * @param s The ObjectInputStream from which to read the object.
+     * @throws IOException If an I/O error occurs.
+     * @throws ClassNotFoundException If the class of a serialized object could not be found.
+     */
+    private void readObject(ObjectInputStream s) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = s.readFields();
+
+        // Read primitive and unchanged object fields directly
+        this.id = fields.get("id", 0L);
+        this.date = (LocalDate) fields.get("date", null);
+        this.accountId = AccountRegistry.SHARED.register((String) fields.get("account", null));
+        this.description = (String) fields.get("description", null);
+        if (fields.getObjectStreamClass().getField("montantCents") != null) {
+            this.montantCents = fields.get("montantCents", 0L);
+        } else { // Old version: amount as a double / Ancienne version : montant en double
+            this.montantCents = Math.round(fields.get("montant", 0.0) * 100);
+        }
+
+        // Handle 'type' field: it could be a String (old version) or TransactionType enum (new version)
+        Object typeObj = fields.get("type", null);
+        if (typeObj instanceof String) {
+            try {
+                this.type = BeyahCompta.TransactionType.fromString((String) typeObj);
+            } catch (IllegalArgumentException e) {
+                System.err.println("Warning: Could not convert old 'type' string '" + typeObj + "' to enum. Assigning DEBIT.");
+                this.type = BeyahCompta.TransactionType.DEBIT; // Default to DEBIT if conversion fails
+            }
+        } else if (typeObj instanceof BeyahCompta.TransactionType) {
+            this.type = (BeyahCompta.TransactionType) typeObj;
+        } else {
+            System.err.println("Warning: Unexpected type for 'type' field during deserialization. Assigning DEBIT.");
+            this.type = BeyahCompta.TransactionType.DEBIT; // Default if unexpected type
+        }
+
+        // Handle 'category' field: it could be a String (old version) or TransactionCategory enum (new version)
+        Object categoryObj = fields.get("category", null);
+        if (categoryObj instanceof String) {
+            try {
+                this.category = BeyahCompta.TransactionCategory.fromString((String) categoryObj);
+            } catch (IllegalArgumentException e) {
+                System.err.println("Warning: Could not convert old 'category' string '" + categoryObj + "' to enum. Assigning AUTRE.");
+                this.category = BeyahCompta.TransactionCategory.AUTRE; // Default to AUTRE if conversion fails
+            }
+        } else if (categoryObj instanceof BeyahCompta.TransactionCategory) {
+            this.category = (BeyahCompta.TransactionCategory) categoryObj;
+        } else {
+            System.err.println("Warning: Unexpected type for 'category' field during deserialization. Assigning AUTRE.");
+            this.category = BeyahCompta.TransactionCategory.AUTRE; // Default if unexpected type
+        }
+    }
+}
@@ -0,0 +1,233 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Immutable description of the transaction table filters (type, category and search text) that can be
+ * evaluated against a ledger snapshot on any thread. Evaluation checks for interruption regularly so that
+ * a query superseded by a newer one stops early.
+ *
+ * <p>Description immuable des filtres du tableau des transactions (type, catégorie et texte recherché)
+ * pouvant être évaluée sur un instantané du grand livre depuis n'importe quel thread. L'évaluation vérifie
+ * régulièrement l'interruption afin qu'une requête remplacée par une plus récente s'arrête au plus tôt.</p>
+ */
+class TransactionQuery {
+
+    private static final int INTERRUPT_CHECK_MASK = 0xFFF; // Check every 4096 rows / Vérifier toutes les 4096 lignes
+
+    private final BeyahCompta.TransactionType type;
+    private final boolean[] categoryMatches;
+    private final String searchText;
+
+    /**
+     * Constructs a query from the filter values.
+     *
+     * <p>Construit une requête à partir des valeurs des filtres.</p>
+     *
+     * @param type The type to keep, or null for all types. / Le type à conserver, ou null pour tous les types.
+     * @param categoryFilter Text the category name must contain, or null for all categories. / Texte que doit contenir le nom de la catégorie, ou null pour toutes les catégories.
+     * @param searchText Text to look for in description, account and category (empty for none). / Texte à chercher dans la description, le compte et la catégorie (vide pour aucun).
+     */
+    public TransactionQuery(BeyahCompta.TransactionType type, String categoryFilter, String searchText) {
+        this.type = type;
+        this.categoryMatches = new boolean[BeyahCompta.TransactionCategory.values().length];
+        for (BeyahCompta.TransactionCategory category : BeyahCompta.TransactionCategory.values()) {
+            categoryMatches[category.ordinal()] = categoryFilter == null
+                    || category.toString().toLowerCase().contains(categoryFilter.toLowerCase());
+        }
+        this.searchText = searchText.trim().toLowerCase();
+    }
+
+    /**
+     * Tells whether the query keeps every row.
+     *
+     * <p>Indique si la requête conserve toutes les lignes.</p>
+     *
+     * @return True if no filter is set. / Vrai si aucun filtre n'est défini.
+     */
+    public boolean isUnfiltered() {
+        if (type != null || !searchText.isEmpty()) {
+            return false;
+        }
+        for (boolean matches : categoryMatches) {
+            if (!matches) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Tells from its summary whether a month not loaded yet may hold matching rows. The search text is
+     * not summarised, so a month with rows may always match it.
+     *
+     * <p>Indique d'après sa synthèse si un mois non encore chargé peut contenir des lignes correspondantes.
+     * Le texte recherché n'est pas résumé : un mois ayant des lignes peut toujours y correspondre.</p>
+     *
+     * @param summary The summary of the month. / La synthèse du mois.
+     * @return False if no row of the month can match. / Faux si aucune ligne du mois ne peut correspondre.
+     */
+    public boolean mayMatch(LedgerStore.Summary summary) {
+        if (type == BeyahCompta.TransactionType.CREDIT && summary.getCreditCount() == 0
+                || type == BeyahCompta.TransactionType.DEBIT && summary.getDebitCount() == 0) {
+            return false;
+        }
+        for (int category = 0; category < categoryMatches.length; category++) {
+            if (categoryMatches[category] && summary.getCategoryCount(category) > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tells whether one row matches the filters, looking for the search text in its description, account
+     * and category like the trigram index does. Used where rows are streamed and no index exists.
+     *
+     * <p>Indique si une ligne correspond aux filtres, en cherchant le texte recherché dans sa description,
+     * son compte et sa catégorie comme le fait l'index de trigrammes. Utilisé là où les lignes sont
+     * parcourues en flux et où aucun index n'existe.</p>
+     *
+     * @param t The row, which may be null (deleted). / La ligne, qui peut être null (supprimée).
+     * @return True if the row matches. / Vrai si la ligne correspond.
+     */
+    public boolean matches(Transaction t) {
+        if (t == null || type != null && t.getType() != type || !categoryMatches[t.getCategory().ordinal()]) {
+            return false;
+        }
+        return searchText.isEmpty()
+                || t.getDescription().toLowerCase().contains(searchText)
+                || t.getAccount().toLowerCase().contains(searchText)
+                || t.getCategory().toString().toLowerCase().contains(searchText);
+    }
+
+    /**
+     * Returns the positions of the snapshot rows matching the filters, in {@link #inDateOrder date order}.
+     *
+     * <p>Retourne les positions des lignes de l'instantané correspondant aux filtres, dans
+     * {@link #inDateOrder l'ordre des dates}.</p>
+     *
+     * @param snapshot The ledger snapshot, possibly with null tombstones. / L'instantané du grand livre, éventuellement avec des pierres tombales null.
+     * @param searchIndex The trigram index over the ledger. / L'index de trigrammes du grand livre.
+     * @return The matching positions. / Les positions correspondantes.
+     * @throws InterruptedException If the query was cancelled. / Si la requête a été annulée.
+     */
+    public int[] run(List<Transaction> snapshot, TrigramIndex searchIndex) throws InterruptedException {
+        // The search text narrows the candidates through the trigram index
+        // Le texte recherché réduit les candidats au moyen de l'index de trigrammes
+        int[] candidates = searchText.isEmpty() ? null : searchIndex.search(searchText);
+        int candidateCount = candidates == null ? snapshot.size() : candidates.length;
+
+        int[] matches = new int[candidateCount];
+        int count = 0;
+        for (int c = 0; c < candidateCount; c++) {
+            if ((c & INTERRUPT_CHECK_MASK) == 0 && Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            int i = candidates == null ? c : candidates[c];
+            if (i >= snapshot.size()) { // Indexed after the snapshot was taken / Indexée après la prise de l'instantané
+                continue;
+            }
+            Transaction t = snapshot.get(i);
+            if (t == null) { // Deleted / Supprimée
+                continue;
+            }
+            if (type != null && t.getType() != type) {
+                continue;
+            }
+            if (!categoryMatches[t.getCategory().ordinal()]) {
+                continue;
+            }
+            matches[count++] = i;
+        }
+        return inDateOrder(snapshot, Arrays.copyOf(matches, count));
+    }
+
+    /**
+     * Sorts positions by the date of their row, rows of the same day keeping their ledger order. The
+     * ledger keeps the rows in the order they arrived, and an older month loaded from disk arrives after
+     * the recent ones, so readers put them back in date order. Positions already in date order, the usual
+     * case, are checked in one pass and not sorted.
+     *
+     * <p>Trie des positions selon la date de leur ligne, les lignes d'un même jour gardant leur ordre dans
+     * le grand livre. Le grand livre garde les lignes dans leur ordre d'arrivée, et un mois ancien chargé
+     * depuis le disque arrive après les récents : les lecteurs les remettent donc dans l'ordre des dates. Des
+     * positions déjà dans l'ordre des dates, le cas habituel, sont vérifiées en une passe et non triées.</p>
+     *
+     * @param rows The rows. / Les lignes.
+     * @param positions Positions of rows that are not null, in increasing order; sorted in place. / Des positions de lignes non null, dans l'ordre croissant ; triées sur place.
+     * @return The positions. / Les positions.
+     */
+    static int[] inDateOrder(List<Transaction> rows, int[] positions) {
+        long previousDay = Long.MIN_VALUE;
+        int i = 0;
+        while (i < positions.length) {
+            long day = rows.get(positions[i]).getDate().toEpochDay();
+            if (day < previousDay) {
+                break;
+            }
+            previousDay = day;
+            i++;
+        }
+        if (i == positions.length) {
+            return positions;
+        }
+        // Day in the high bits, position in the low bits: one primitive sort, ties in ledger order
+        // Jour dans les bits de poids fort, position dans ceux de poids faible : un seul tri primitif, égalités dans l'ordre du grand livre
+        long[] keys = new long[positions.length];
+        for (int k = 0; k < positions.length; k++) {
+            keys[k] = rows.get(positions[k]).getDate().toEpochDay() << 32 | positions[k];
+        }
+        Arrays.sort(keys);
+        for (int k = 0; k < positions.length; k++) {
+            positions[k] = (int) keys[k];
+        }
+        return positions;
+    }
+
+    /**
+     * Returns a view of the rows in date order, without the null tombstones, see {@link #inDateOrder(List, int[])}.
+     *
+     * <p>Retourne une vue des lignes dans l'ordre des dates, sans les pierres tombales null, voir
+     * {@link #inDateOrder(List, int[])}.</p>
+     *
+     * @param rows The rows, possibly with null tombstones; must not change afterwards. / Les lignes, éventuellement avec des pierres tombales null ; ne doivent plus changer ensuite.
+     * @return The rows in date order. / Les lignes dans l'ordre des dates.
+     */
+    static List<Transaction> inDateOrder(List<Transaction> rows) {
+        int[] positions = new int[rows.size()];
+        int count = 0;
+        for (int i = 0; i < positions.length; i++) {
+            if (rows.get(i) != null) {
+                positions[count++] = i;
+            }
+        }
+        return new DateOrderView(rows, inDateOrder(rows, Arrays.copyOf(positions, count)));
+    }
+
+    /**
+     * Rows read through positions, see {@link #inDateOrder(List)}.
+     *
+     * <p>Lignes lues au travers de positions, voir {@link #inDateOrder(List)}.</p>
+     */
+    private static final class DateOrderView extends AbstractList<Transaction> implements RandomAccess {
+        private final List<Transaction> rows;
+        private final int[] positions;
+
+        DateOrderView(List<Transaction> rows, int[] positions) {
+            this.rows = rows;
+            this.positions = positions;
+        }
+
+        @Override
+        public Transaction get(int index) {
+            return rows.get(positions[index]);
+        }
+
+        @Override
+        public int size() {
+            return positions.length;
+        }
+    }
+}
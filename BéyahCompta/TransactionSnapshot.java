@@ -0,0 +1,230 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact, versioned binary snapshot of the transactions. Rows are stored column by column with
+ * fixed widths (id, epoch day, amount in cents, type, category) and accounts and descriptions are
+ * deduplicated in a length-prefixed string table. Loading reads the file into one heap buffer with
+ * bulk channel reads, then decodes the columns in bulk, with none of the reflection done by Java
+ * serialization. The file is not memory-mapped: a mapping stays open until collected, and on Windows
+ * a mapped file cannot be replaced or backed up.
+ *
+ * <p>Instantané binaire compact et versionné des transactions. Les lignes sont stockées colonne
+ * par colonne avec des largeurs fixes (id, jour epoch, montant en centimes, type, catégorie) et les comptes et
+ * descriptions sont dédoublonnés dans une table de chaînes préfixées par leur longueur. Le chargement
+ * lit le fichier dans un seul tampon du tas par des lectures de canal en bloc, puis décode les colonnes
+ * en bloc, sans la réflexion effectuée par la sérialisation Java. Le fichier n'est pas mappé en mémoire :
+ * un mappage reste ouvert jusqu'à sa collecte, et sous Windows un fichier mappé ne peut être ni remplacé
+ * ni sauvegardé.</p>
+ *
+ * <p>Layout / Format :
+ * {@code [int magic][short version][long payloadLength][int rowCount][int stringCount]
+ * [stringCount x (int length, UTF-8 bytes)][long ids][int epochDays][long amountCents]
+ * [byte types][byte categories][int accountRefs][int descriptionRefs]}
+ * Version 1 stored the amounts as {@code double} and is still read. / La version 1 stockait les montants
+ * en {@code double} et reste lisible.</p>
+ */
+class TransactionSnapshot {
+
+    private static final int MAGIC = 0x42594353; // "BYCS"
+    private static final short VERSION = 2;
+    private static final short VERSION_DOUBLE_AMOUNTS = 1;
+    private static final int HEADER_SIZE = 4 + 2 + 8 + 4 + 4;
+
+    private TransactionSnapshot() {
+    }
+
+    /**
+     * Writes the transactions to a snapshot file, replacing its previous content.
+     *
+     * <p>Écrit les transactions dans un fichier d'instantané, en remplaçant son contenu précédent.</p>
+     *
+     * @param path The snapshot file. / Le fichier d'instantané.
+     * @param transactions The transactions to write. / Les transactions à écrire.
+     * @throws IOException If the file cannot be written. / Si le fichier ne peut pas être écrit.
+     */
+    public static void write(Path path, List<Transaction> transactions) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16))) {
+            write(out, transactions);
+        }
+    }
+
+    /**
+     * Writes the transactions in snapshot format to a stream, e.g. after the header of a ledger segment.
+     *
+     * <p>Écrit les transactions au format d'instantané dans un flux, par ex. après l'en-tête d'un segment du grand livre.</p>
+     *
+     * @param out The destination, left open. / La destination, laissée ouverte.
+     * @param transactions The transactions to write. / Les transactions à écrire.
+     * @throws IOException If the stream cannot be written. / Si le flux ne peut pas être écrit.
+     */
+    static void write(DataOutputStream out, List<Transaction> transactions) throws IOException {
+        int rowCount = transactions.size();
+        Map<String, Integer> stringIds = new HashMap<>();
+        List<byte[]> strings = new ArrayList<>();
+        int[] accountRefs = new int[rowCount];
+        int[] descriptionRefs = new int[rowCount];
+        long stringTableSize = 0;
+        for (int i = 0; i < rowCount; i++) {
+            Transaction t = transactions.get(i);
+            for (int pass = 0; pass < 2; pass++) {
+                String value = pass == 0 ? t.getAccount() : t.getDescription();
+                Integer ref = stringIds.get(value);
+                if (ref == null) {
+                    ref = strings.size();
+                    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                    strings.add(bytes);
+                    stringIds.put(value, ref);
+                    stringTableSize += 4 + bytes.length;
+                }
+                if (pass == 0) {
+                    accountRefs[i] = ref;
+                } else {
+                    descriptionRefs[i] = ref;
+                }
+            }
+        }
+        long payloadLength = stringTableSize + (long) rowCount * (8 + 4 + 8 + 1 + 1 + 4 + 4);
+
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeLong(payloadLength);
+        out.writeInt(rowCount);
+        out.writeInt(strings.size());
+        for (byte[] bytes : strings) {
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        for (Transaction t : transactions) out.writeLong(t.getId());
+        for (Transaction t : transactions) out.writeInt((int) t.getDate().toEpochDay());
+        for (Transaction t : transactions) out.writeLong(t.getMontantCents());
+        for (Transaction t : transactions) out.writeByte(t.getType().ordinal());
+        for (Transaction t : transactions) out.writeByte(t.getCategory().ordinal());
+        for (int ref : accountRefs) out.writeInt(ref);
+        for (int ref : descriptionRefs) out.writeInt(ref);
+    }
+
+    /**
+     * Reads a snapshot file into a heap buffer.
+     *
+     * <p>Lit un fichier d'instantané dans un tampon du tas.</p>
+     *
+     * @param path The snapshot file. / Le fichier d'instantané.
+     * @return The transactions, in their saved order. / Les transactions, dans leur ordre de sauvegarde.
+     * @throws IOException If the file is missing, truncated or of an unknown version. / Si le fichier est absent, tronqué ou d'une version inconnue.
+     */
+    public static List<Transaction> read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Instantané trop volumineux: " + path);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new IOException("Instantané tronqué: " + path);
+                }
+            }
+            buffer.flip();
+            return read(buffer, path);
+        }
+    }
+
+    /**
+     * Reads a snapshot from the remaining bytes of a buffer, e.g. the body of a ledger segment.
+     *
+     * <p>Lit un instantané depuis les octets restants d'un tampon, par ex. le corps d'un segment du grand livre.</p>
+     *
+     * @param buffer The snapshot bytes, from its magic number to its end. / Les octets de l'instantané, de son nombre magique à sa fin.
+     * @param path The file the bytes come from, for error messages. / Le fichier d'où viennent les octets, pour les messages d'erreur.
+     * @return The transactions, in their saved order. / Les transactions, dans leur ordre de sauvegarde.
+     * @throws IOException If the snapshot is truncated or of an unknown version. / Si l'instantané est tronqué ou d'une version inconnue.
+     */
+    static List<Transaction> read(ByteBuffer buffer, Path path) throws IOException {
+        try {
+            long size = buffer.remaining();
+            if (size < HEADER_SIZE) {
+                throw new IOException("Instantané tronqué: " + path);
+            }
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Fichier d'instantané invalide: " + path);
+            }
+            short version = buffer.getShort();
+            if (version != VERSION && version != VERSION_DOUBLE_AMOUNTS) {
+                throw new IOException("Version d'instantané non prise en charge (" + version + "): " + path);
+            }
+            long payloadLength = buffer.getLong();
+            if (payloadLength != size - HEADER_SIZE) {
+                throw new IOException("Instantané tronqué: " + path);
+            }
+            int rowCount = buffer.getInt();
+            int stringCount = buffer.getInt();
+
+            String[] strings = new String[stringCount];
+            byte[] scratch = new byte[256];
+            for (int i = 0; i < stringCount; i++) {
+                int length = buffer.getInt();
+                if (length > scratch.length) {
+                    scratch = new byte[Math.max(length, scratch.length * 2)];
+                }
+                buffer.get(scratch, 0, length);
+                strings[i] = new String(scratch, 0, length, StandardCharsets.UTF_8);
+            }
+
+            // Bulk column reads / Lectures des colonnes en bloc
+            long[] ids = new long[rowCount];
+            buffer.asLongBuffer().get(ids);
+            skip(buffer, rowCount * 8L);
+            int[] epochDays = new int[rowCount];
+            buffer.asIntBuffer().get(epochDays);
+            skip(buffer, rowCount * 4L);
+            long[] amounts = new long[rowCount];
+            if (version == VERSION_DOUBLE_AMOUNTS) { // Converted to cents / Convertis en centimes
+                DoubleBuffer doubleAmounts = buffer.asDoubleBuffer();
+                for (int i = 0; i < rowCount; i++) {
+                    amounts[i] = Math.round(doubleAmounts.get(i) * 100);
+                }
+            } else {
+                buffer.asLongBuffer().get(amounts);
+            }
+            skip(buffer, rowCount * 8L);
+            byte[] types = new byte[rowCount];
+            buffer.get(types);
+            byte[] categories = new byte[rowCount];
+            buffer.get(categories);
+            int[] accountRefs = new int[rowCount];
+            buffer.asIntBuffer().get(accountRefs);
+            skip(buffer, rowCount * 4L);
+            int[] descriptionRefs = new int[rowCount];
+            buffer.asIntBuffer().get(descriptionRefs);
+
+            BeyahCompta.TransactionType[] typeValues = BeyahCompta.TransactionType.values();
+            BeyahCompta.TransactionCategory[] categoryValues = BeyahCompta.TransactionCategory.values();
+            List<Transaction> transactions = new ArrayList<>(rowCount);
+            for (int i = 0; i < rowCount; i++) {
+                transactions.add(new Transaction(ids[i], LocalDate.ofEpochDay(epochDays[i]), strings[accountRefs[i]],
+                        typeValues[types[i]], categoryValues[categories[i]], strings[descriptionRefs[i]], amounts[i]));
+            }
+            return transactions;
+        } catch (RuntimeException e) { // Out-of-range reference or buffer underflow / Référence hors limites ou dépassement de tampon
+            throw new IOException("Instantané corrompu: " + path, e);
+        }
+    }
+
+    private static void skip(ByteBuffer buffer, long bytes) {
+        buffer.position((int) (buffer.position() + bytes));
+    }
+}
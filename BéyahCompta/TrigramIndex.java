@@ -0,0 +1,246 @@
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * In-memory trigram inverted index over the searchable text of the ledger (description, account and
+ * category, lower-cased). A substring query intersects the posting lists of its trigrams, then verifies
+ * the few remaining candidates against the normalized text kept for each position, so no string is
+ * lower-cased per row and per query. Positions are those of the ledger list; an edit or a deletion
+ * removes the position from the posting lists of the trigrams its old text no longer has, so the lists
+ * do not grow with the edits.
+ *
+ * <p>Index inversé de trigrammes en mémoire sur le texte recherchable du grand livre (description,
+ * compte et catégorie, en minuscules). Une recherche de sous-chaîne intersecte les listes de postings
+ * de ses trigrammes, puis vérifie les quelques candidats restants contre le texte normalisé conservé
+ * pour chaque position : aucune chaîne n'est mise en minuscules par ligne et par requête. Les positions
+ * sont celles de la liste du grand livre ; une modification ou une suppression retire la position des
+ * listes des trigrammes que son ancien texte n'a plus : les listes ne grossissent pas avec les
+ * modifications.</p>
+ *
+ * <p>Thread-safe: the EDT updates the index while background queries search it.
+ * / Thread-safe : l'EDT met à jour l'index pendant que les requêtes d'arrière-plan l'interrogent.</p>
+ */
+class TrigramIndex {
+
+    private static final char FIELD_SEPARATOR = '\u0000'; // Never typed in a query / Jamais saisi dans une requête
+
+    private String[] texts = new String[16]; // Normalized text by position, null when deleted / Texte normalisé par position, null si supprimé
+    private int textCount;
+    private final LongIntHashMap trigramSlots = new LongIntHashMap();
+    private int[][] postings = new int[64][];
+    private int[] postingSizes = new int[64];
+    private boolean[] postingUnsorted = new boolean[64];
+    private int slotCount;
+
+    /**
+     * Rebuilds the whole index from the ledger.
+     *
+     * <p>Reconstruit tout l'index à partir du grand livre.</p>
+     *
+     * @param transactions The ledger, possibly with null tombstones. / Le grand livre, éventuellement avec des pierres tombales null.
+     */
+    public synchronized void rebuild(List<Transaction> transactions) {
+        texts = new String[Math.max(16, transactions.size())];
+        textCount = 0;
+        trigramSlots.clear(4096);
+        postings = new int[64][];
+        postingSizes = new int[64];
+        postingUnsorted = new boolean[64];
+        slotCount = 0;
+        for (int i = 0; i < transactions.size(); i++) {
+            Transaction t = transactions.get(i);
+            if (t != null) {
+                index(i, t);
+            } else {
+                textCount = i + 1;
+            }
+        }
+    }
+
+    /**
+     * Indexes (or re-indexes after an edit) the transaction stored at a position.
+     *
+     * <p>Indexe (ou réindexe après une modification) la transaction stockée à une position.</p>
+     *
+     * @param position The position in the ledger. / La position dans le grand livre.
+     * @param t The transaction. / La transaction.
+     */
+    public synchronized void index(int position, Transaction t) {
+        if (position >= texts.length) {
+            texts = Arrays.copyOf(texts, Math.max(position + 1, texts.length * 2));
+        }
+        String text = t.getDescription().toLowerCase() + FIELD_SEPARATOR + t.getAccount().toLowerCase()
+                + FIELD_SEPARATOR + t.getCategory().toString().toLowerCase();
+        String oldText = position < textCount ? texts[position] : null;
+        if (oldText != null) { // Re-indexed after an edit / Réindexé après une modification
+            removePostings(position, oldText, text);
+        }
+        texts[position] = text;
+        textCount = Math.max(textCount, position + 1);
+        for (int i = 0; i + 2 < text.length(); i++) {
+            char c0 = text.charAt(i), c1 = text.charAt(i + 1), c2 = text.charAt(i + 2);
+            if (c0 == FIELD_SEPARATOR || c1 == FIELD_SEPARATOR || c2 == FIELD_SEPARATOR
+                    || oldText != null && oldText.contains(text.substring(i, i + 3))) { // Already posted / Déjà présent
+                continue;
+            }
+            addPosting(trigram(c0, c1, c2), position);
+        }
+    }
+
+    /**
+     * Forgets the transaction stored at a position.
+     *
+     * <p>Oublie la transaction stockée à une position.</p>
+     *
+     * @param position The position in the ledger. / La position dans le grand livre.
+     */
+    public synchronized void remove(int position) {
+        if (position < textCount && texts[position] != null) {
+            removePostings(position, texts[position], "");
+            texts[position] = null;
+        }
+    }
+
+    /**
+     * Returns the positions whose text contains the (already lower-cased) query, in ascending order.
+     * Queries shorter than a trigram are answered by scanning the cached normalized texts.
+     *
+     * <p>Retourne les positions dont le texte contient la requête (déjà en minuscules), par ordre croissant.
+     * Les requêtes plus courtes qu'un trigramme sont traitées en parcourant les textes normalisés en cache.</p>
+     *
+     * @param query The lower-cased query. / La requête en minuscules.
+     * @return The matching positions. / Les positions correspondantes.
+     */
+    public synchronized int[] search(String query) {
+        int[] candidates;
+        int candidateCount;
+        if (query.length() < 3) {
+            candidates = null;
+            candidateCount = textCount;
+        } else {
+            // Gather the posting list of every trigram, smallest first / Rassembler la liste de chaque trigramme, la plus petite d'abord
+            int[] slots = new int[query.length() - 2];
+            for (int i = 0; i < slots.length; i++) {
+                int slot = trigramSlots.get(trigram(query.charAt(i), query.charAt(i + 1), query.charAt(i + 2)));
+                if (slot < 0) {
+                    return new int[0];
+                }
+                sortPostings(slot);
+                slots[i] = slot;
+            }
+            Integer[] order = new Integer[slots.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = slots[i];
+            }
+            Arrays.sort(order, (a, b) -> Integer.compare(postingSizes[a], postingSizes[b]));
+            candidates = Arrays.copyOf(postings[order[0]], postingSizes[order[0]]);
+            candidateCount = candidates.length;
+            for (int i = 1; i < order.length && candidateCount > 0; i++) {
+                candidateCount = intersect(candidates, candidateCount, postings[order[i]], postingSizes[order[i]]);
+            }
+        }
+
+        // Verify the candidates against the current text / Vérifier les candidats contre le texte actuel
+        int[] matches = new int[candidateCount];
+        int count = 0;
+        for (int i = 0; i < candidateCount; i++) {
+            int position = candidates == null ? i : candidates[i];
+            String text = texts[position];
+            if (text != null && text.contains(query)) {
+                matches[count++] = position;
+            }
+        }
+        return Arrays.copyOf(matches, count);
+    }
+
+    private static long trigram(char c0, char c1, char c2) {
+        return ((long) c0 << 32) | ((long) c1 << 16) | c2;
+    }
+
+    private void addPosting(long trigram, int position) {
+        int slot = trigramSlots.get(trigram);
+        if (slot < 0) {
+            if (slotCount == postings.length) {
+                postings = Arrays.copyOf(postings, slotCount * 2);
+                postingSizes = Arrays.copyOf(postingSizes, slotCount * 2);
+                postingUnsorted = Arrays.copyOf(postingUnsorted, slotCount * 2);
+            }
+            slot = slotCount++;
+            postings[slot] = new int[4];
+            trigramSlots.put(trigram, slot);
+        }
+        int[] list = postings[slot];
+        int size = postingSizes[slot];
+        if (size > 0 && list[size - 1] == position) {
+            return; // Same trigram twice in one text / Même trigramme deux fois dans un texte
+        }
+        if (size > 0 && list[size - 1] > position) {
+            postingUnsorted[slot] = true; // Re-indexed after an edit / Réindexé après une modification
+        }
+        if (size == list.length) {
+            list = postings[slot] = Arrays.copyOf(list, size * 2);
+        }
+        list[size] = position;
+        postingSizes[slot] = size + 1;
+    }
+
+    /**
+     * Removes a position from the lists of the trigrams of its old text that its new text does not have.
+     *
+     * <p>Retire une position des listes des trigrammes de son ancien texte que son nouveau texte n'a pas.</p>
+     */
+    private void removePostings(int position, String oldText, String newText) {
+        for (int i = 0; i + 2 < oldText.length(); i++) {
+            char c0 = oldText.charAt(i), c1 = oldText.charAt(i + 1), c2 = oldText.charAt(i + 2);
+            if (c0 == FIELD_SEPARATOR || c1 == FIELD_SEPARATOR || c2 == FIELD_SEPARATOR
+                    || newText.contains(oldText.substring(i, i + 3))) { // Kept / Conservé
+                continue;
+            }
+            int slot = trigramSlots.get(trigram(c0, c1, c2));
+            if (slot < 0) {
+                continue;
+            }
+            sortPostings(slot);
+            int[] list = postings[slot];
+            int size = postingSizes[slot];
+            int index = Arrays.binarySearch(list, 0, size, position);
+            if (index >= 0) { // Absent if the trigram appears twice in the old text / Absent si le trigramme apparaît deux fois dans l'ancien texte
+                System.arraycopy(list, index + 1, list, index, size - index - 1);
+                postingSizes[slot] = size - 1;
+            }
+        }
+    }
+
+    private void sortPostings(int slot) {
+        if (!postingUnsorted[slot]) {
+            return;
+        }
+        int[] list = postings[slot];
+        int size = postingSizes[slot];
+        Arrays.sort(list, 0, size);
+        int unique = 0;
+        for (int i = 0; i < size; i++) {
+            if (unique == 0 || list[unique - 1] != list[i]) {
+                list[unique++] = list[i];
+            }
+        }
+        postingSizes[slot] = unique;
+        postingUnsorted[slot] = false;
+    }
+
+    /** Intersects two sorted lists in place into the first one. / Intersecte deux listes triées dans la première. */
+    private static int intersect(int[] target, int targetSize, int[] other, int otherSize) {
+        int count = 0;
+        int j = 0;
+        for (int i = 0; i < targetSize && j < otherSize; i++) {
+            int value = target[i];
+            while (j < otherSize && other[j] < value) {
+                j++;
+            }
+            if (j < otherSize && other[j] == value) {
+                target[count++] = value;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,400 @@
+package beyahcompta.bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Bridge to the application classes. They live in the default package, which cannot be imported
+ * (and which JMH refuses for benchmark classes), so their entry points are resolved once by reflection
+ * into method handles and called through the typed helpers below. Each handle is adapted once to an
+ * exact signature where the application types are erased to {@code Object}, and called with
+ * {@code invokeExact} from a {@code static final} field: no boxing, no argument array, and the JIT
+ * inlines the call, so the measurements are those of the application and not of the bridge.
+ *
+ * <p>Pont vers les classes de l'application. Elles sont dans le paquetage par défaut, qui ne peut pas
+ * être importé (et que JMH refuse pour les classes de bancs d'essai) : leurs points d'entrée sont résolus
+ * une fois par réflexion en handles de méthodes et appelés au travers des méthodes typées ci-dessous.
+ * Chaque handle est adapté une fois à une signature exacte où les types de l'application sont effacés en
+ * {@code Object}, et appelé par {@code invokeExact} depuis un champ {@code static final} : ni boxing, ni
+ * tableau d'arguments, et le JIT intègre l'appel ; les mesures sont celles de l'application et non du pont.</p>
+ */
+final class App {
+
+    static final Class<?> TRANSACTION = load("Transaction");
+    static final Class<?> TRANSACTION_TYPE = load("BeyahCompta$TransactionType");
+    static final Class<?> TRANSACTION_CATEGORY = load("BeyahCompta$TransactionCategory");
+
+    private static final MethodHandle NEW_TRANSACTION = exact(constructor(TRANSACTION, long.class, LocalDate.class,
+            String.class, TRANSACTION_TYPE, TRANSACTION_CATEGORY, String.class, long.class),
+            Object.class, long.class, LocalDate.class, String.class, Object.class, Object.class, String.class, long.class);
+    private static final MethodHandle SNAPSHOT_WRITE = exact(method("TransactionSnapshot", "write", Path.class, List.class),
+            void.class, Path.class, List.class);
+    private static final MethodHandle SNAPSHOT_READ = exact(method("TransactionSnapshot", "read", Path.class),
+            List.class, Path.class);
+    private static final MethodHandle CSV_WRITE = exact(method("LedgerCsv", "write", Path.class, List.class, load("LedgerCsv$ProgressListener")),
+            void.class, Path.class, List.class, Object.class);
+    private static final MethodHandle CSV_READ = exact(method("LedgerCsvReader", "read", Path.class),
+            Object.class, Path.class);
+    private static final MethodHandle NEW_SEARCH_INDEX = exact(constructor(load("TrigramIndex")),
+            Object.class);
+    private static final MethodHandle SEARCH_INDEX_REBUILD = exact(method("TrigramIndex", "rebuild", List.class),
+            void.class, Object.class, List.class);
+    private static final MethodHandle NEW_QUERY = exact(constructor(load("TransactionQuery"), TRANSACTION_TYPE, String.class, String.class),
+            Object.class, Object.class, String.class, String.class);
+    private static final MethodHandle QUERY_RUN = exact(method("TransactionQuery", "run", List.class, load("TrigramIndex")),
+            int[].class, Object.class, List.class, Object.class);
+    private static final MethodHandle NEW_AGGREGATES = exact(constructor(load("LedgerAggregates")),
+            Object.class);
+    private static final MethodHandle AGGREGATES_REBUILD = exact(method("LedgerAggregates", "rebuild", List.class),
+            void.class, Object.class, List.class);
+    private static final MethodHandle AGGREGATES_CATEGORY_SPEND = exact(method("LedgerAggregates", "getCategorySpend", TRANSACTION_CATEGORY),
+            long.class, Object.class, Object.class);
+    private static final MethodHandle AGGREGATES_CATEGORY_STATS = exact(method("LedgerAggregates", "getCategoryStats", LocalDate.class),
+            Object.class, Object.class, LocalDate.class);
+    private static final MethodHandle STATS_DISPLAY_ORDER = exact(method("CategoryStats", "displayOrder"),
+            Object[].class);
+    private static final MethodHandle STATS_BUDGET = exact(method("CategoryStats", "getBudget", TRANSACTION_CATEGORY),
+            long.class, Object.class, Object.class);
+    private static final MethodHandle STATS_PERIOD_SPEND = exact(method("CategoryStats", "getPeriodSpend", TRANSACTION_CATEGORY),
+            long.class, Object.class, Object.class);
+    private static final MethodHandle FORMAT_CURRENCY = exact(method("LedgerFormat", "formatCurrency", long.class),
+            String.class, long.class);
+    private static final Object ACCOUNTS = staticField("AccountRegistry", "SHARED");
+    private static final MethodHandle ACCOUNTS_DISPLAY_ORDER = exact(method("AccountRegistry", "displayOrder").bindTo(ACCOUNTS),
+            int[].class);
+    private static final MethodHandle ACCOUNTS_NAME = exact(method("AccountRegistry", "name", int.class).bindTo(ACCOUNTS),
+            String.class, int.class);
+    private static final MethodHandle ACCOUNTS_BALANCE = exact(method("AccountRegistry", "balance", int.class).bindTo(ACCOUNTS),
+            long.class, int.class);
+    private static final MethodHandle NEW_STORE = exact(constructor(load("LedgerStore"), Path.class),
+            Object.class, Path.class);
+    private static final MethodHandle STORE_OPEN = exact(method("LedgerStore", "open"),
+            void.class, Object.class);
+    private static final MethodHandle STORE_SUMMARIES = exact(method("LedgerStore", "getSummaries"),
+            List.class, Object.class);
+    private static final MethodHandle STORE_READ = exact(method("LedgerStore", "read", YearMonth.class),
+            List.class, Object.class, YearMonth.class);
+    private static final MethodHandle STORE_MARK_DIRTY = exact(method("LedgerStore", "markDirty", YearMonth.class),
+            void.class, Object.class, YearMonth.class);
+    private static final MethodHandle STORE_MARK_LOADED = exact(method("LedgerStore", "markLoaded", YearMonth.class),
+            void.class, Object.class, YearMonth.class);
+    private static final MethodHandle STORE_TAKE_CHANGED_MONTHS = exact(method("LedgerStore", "takeChangedMonths"),
+            SortedSet.class, Object.class);
+    private static final MethodHandle STORE_GROUP_BY_MONTH = exact(method("LedgerStore", "groupByMonth", List.class, SortedSet.class),
+            Map.class, List.class, SortedSet.class);
+    private static final MethodHandle STORE_WRITE = exact(method("LedgerStore", "write", Map.class),
+            void.class, Object.class, Map.class);
+    private static final MethodHandle NEW_LEDGER = exact(constructor(load("Ledger"), load("LedgerStore")),
+            Object.class, Object.class);
+    private static final MethodHandle LEDGER_LOAD = exact(method("Ledger", "load", List.class),
+            void.class, Object.class, List.class);
+    private static final MethodHandle LEDGER_SNAPSHOT = exact(method("Ledger", "snapshot"),
+            List.class, Object.class);
+    private static final MethodHandle TRANSACTION_DATE = exact(method("Transaction", "getDate"),
+            LocalDate.class, Object.class);
+
+    private App() {
+    }
+
+    static Object newTransaction(long id, LocalDate date, String account, Object type, Object category,
+                                 String description, long amountCents) {
+        try {
+            return (Object) NEW_TRANSACTION.invokeExact(id, date, account, type, category, description, amountCents);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static void writeSnapshot(Path path, List<Object> transactions) {
+        try {
+            SNAPSHOT_WRITE.invokeExact(path, (List) transactions);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static List<Object> readSnapshot(Path path) {
+        try {
+            return (List) SNAPSHOT_READ.invokeExact(path);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static void writeCsv(Path path, List<Object> transactions) {
+        try {
+            CSV_WRITE.invokeExact(path, (List) transactions, (Object) null);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static Object readCsv(Path path) {
+        try {
+            return (Object) CSV_READ.invokeExact(path);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static Object newSearchIndex(List<Object> transactions) {
+        try {
+            Object index = (Object) NEW_SEARCH_INDEX.invokeExact();
+            SEARCH_INDEX_REBUILD.invokeExact(index, (List) transactions);
+            return index;
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static Object newQuery(Object typeOrNull, String categoryFilterOrNull, String searchText) {
+        try {
+            return (Object) NEW_QUERY.invokeExact(typeOrNull, categoryFilterOrNull, searchText);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static int[] runQuery(Object query, List<Object> transactions, Object searchIndex) {
+        try {
+            return (int[]) QUERY_RUN.invokeExact(query, (List) transactions, searchIndex);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static Object newAggregates(List<Object> transactions) {
+        try {
+            Object aggregates = (Object) NEW_AGGREGATES.invokeExact();
+            AGGREGATES_REBUILD.invokeExact(aggregates, (List) transactions);
+            return aggregates;
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static long categorySpend(Object aggregates, Object category) {
+        try {
+            return (long) AGGREGATES_CATEGORY_SPEND.invokeExact(aggregates, category);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static Object categoryStats(Object aggregates, LocalDate today) {
+        try {
+            return (Object) AGGREGATES_CATEGORY_STATS.invokeExact(aggregates, today);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static Object[] categoryDisplayOrder() {
+        try {
+            return (Object[]) STATS_DISPLAY_ORDER.invokeExact();
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static long budget(Object categoryStats, Object category) {
+        try {
+            return (long) STATS_BUDGET.invokeExact(categoryStats, category);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static long periodSpend(Object categoryStats, Object category) {
+        try {
+            return (long) STATS_PERIOD_SPEND.invokeExact(categoryStats, category);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static String formatCurrency(long cents) {
+        try {
+            return (String) FORMAT_CURRENCY.invokeExact(cents);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static int[] accountDisplayOrder() {
+        try {
+            return (int[]) ACCOUNTS_DISPLAY_ORDER.invokeExact();
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static String accountName(int accountId) {
+        try {
+            return (String) ACCOUNTS_NAME.invokeExact(accountId);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static long accountBalance(int accountId) {
+        try {
+            return (long) ACCOUNTS_BALANCE.invokeExact(accountId);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static void writeSegments(Path directory, List<Object> transactions) {
+        Object store = newStore(directory);
+        saveSegments(store, loadLedger(store, transactions), months(transactions));
+    }
+
+    static Object newStore(Path directory) {
+        try {
+            return (Object) NEW_STORE.invokeExact(directory);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /** Loads the rows into a ledger over the store, their months marked as loaded. / Charge les lignes dans un grand livre sur le stockage, leurs mois marqués comme chargés. */
+    static Object loadLedger(Object store, List<Object> transactions) {
+        try {
+            Object ledger = (Object) NEW_LEDGER.invokeExact(store);
+            LEDGER_LOAD.invokeExact(ledger, (List) transactions);
+            for (YearMonth month : months(transactions)) {
+                STORE_MARK_LOADED.invokeExact(store, month);
+            }
+            return ledger;
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /** Saves some months as {@code saveData} does: from a ledger snapshot, without copying the rows. / Sauvegarde des mois comme {@code saveData} : depuis un instantané du grand livre, sans copier les lignes. */
+    static void saveSegments(Object store, Object ledger, Iterable<YearMonth> months) {
+        try {
+            for (YearMonth month : months) {
+                STORE_MARK_DIRTY.invokeExact(store, month);
+            }
+            List<?> rows = (List) LEDGER_SNAPSHOT.invokeExact(ledger);
+            SortedSet<?> changed = (SortedSet) STORE_TAKE_CHANGED_MONTHS.invokeExact(store);
+            STORE_WRITE.invokeExact(store, (Map) STORE_GROUP_BY_MONTH.invokeExact((List) rows, (SortedSet) changed));
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static Object openSegments(Path directory) {
+        try {
+            Object store = newStore(directory);
+            STORE_OPEN.invokeExact(store);
+            return store;
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static List<?> segmentSummaries(Object store) {
+        try {
+            return (List) STORE_SUMMARIES.invokeExact(store);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static List<?> readSegment(Object store, YearMonth month) {
+        try {
+            return (List) STORE_READ.invokeExact(store, month);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static Object[] types() {
+        return TRANSACTION_TYPE.getEnumConstants();
+    }
+
+    static Object[] categories() {
+        return TRANSACTION_CATEGORY.getEnumConstants();
+    }
+
+    private static SortedSet<YearMonth> months(List<Object> transactions) {
+        SortedSet<YearMonth> months = new TreeSet<>();
+        try {
+            for (Object t : transactions) {
+                months.add(YearMonth.from((LocalDate) TRANSACTION_DATE.invokeExact(t)));
+            }
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+        return months;
+    }
+
+    private static RuntimeException rethrow(Throwable e) {
+        if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        }
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        return new IllegalStateException(e); // Checked exceptions of the application / Exceptions vérifiées de l'application
+    }
+
+    /** Adapts a handle to the given erased signature. / Adapte un handle à la signature effacée donnée. */
+    private static MethodHandle exact(MethodHandle handle, Class<?> returnType, Class<?>... parameterTypes) {
+        return handle.asType(MethodType.methodType(returnType, parameterTypes));
+    }
+
+    private static Class<?> load(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Application class not found: " + name, e);
+        }
+    }
+
+    private static MethodHandle constructor(Class<?> owner, Class<?>... parameterTypes) {
+        try {
+            Constructor<?> constructor = owner.getDeclaredConstructor(parameterTypes);
+            return MethodHandles.lookup().unreflectConstructor(accessible(constructor));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static MethodHandle method(String owner, String name, Class<?>... parameterTypes) {
+        try {
+            Method method = load(owner).getDeclaredMethod(name, parameterTypes);
+            return MethodHandles.lookup().unreflect(accessible(method));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Object staticField(String owner, String name) {
+        try {
+            return accessible(load(owner).getDeclaredField(name)).get(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static <T extends AccessibleObject> T accessible(T member) {
+        member.setAccessible(true); // Package-private application classes / Classes de l'application privées au paquetage
+        return member;
+    }
+}
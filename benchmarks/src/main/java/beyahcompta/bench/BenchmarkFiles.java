@@ -0,0 +1,34 @@
+package beyahcompta.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Scratch directories for the benchmarks that read or write files.
+ *
+ * <p>Répertoires temporaires pour les bancs d'essai qui lisent ou écrivent des fichiers.</p>
+ */
+final class BenchmarkFiles {
+
+    private BenchmarkFiles() {
+    }
+
+    static Path createDirectory() throws IOException {
+        return Files.createTempDirectory("beyahcompta-bench");
+    }
+
+    static void delete(Path directory) throws IOException {
+        if (directory == null) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            Path[] ordered = paths.sorted(Comparator.reverseOrder()).toArray(Path[]::new);
+            for (Path path : ordered) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package beyahcompta.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Filtering of the transaction table, as done by {@code updateTableDisplay}, and rebuilding of the search index.
+ *
+ * <p>Filtrage du tableau des transactions, comme dans {@code updateTableDisplay}, et reconstruction de l'index de recherche.</p>
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class FilterBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    private List<Object> ledger;
+    private Object searchIndex;
+    private Object allRows;
+    private Object debitsOnly;
+    private Object categoryOnly;
+    private Object searchWord;
+    private Object searchShort;
+    private Object combined;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ledger = SyntheticLedger.generate(size);
+        searchIndex = App.newSearchIndex(ledger);
+        Object debit = App.types()[0];
+        allRows = App.newQuery(null, null, "");
+        debitsOnly = App.newQuery(debit, null, "");
+        categoryOnly = App.newQuery(null, "Transport", "");
+        searchWord = App.newQuery(null, null, "carrefour");
+        searchShort = App.newQuery(null, null, "ca");
+        combined = App.newQuery(debit, "Loisirs", "cinéma 4");
+    }
+
+    @Benchmark
+    public int[] filterNone() {
+        return App.runQuery(allRows, ledger, searchIndex);
+    }
+
+    @Benchmark
+    public int[] filterByType() {
+        return App.runQuery(debitsOnly, ledger, searchIndex);
+    }
+
+    @Benchmark
+    public int[] filterByCategory() {
+        return App.runQuery(categoryOnly, ledger, searchIndex);
+    }
+
+    @Benchmark
+    public int[] searchText() {
+        return App.runQuery(searchWord, ledger, searchIndex);
+    }
+
+    @Benchmark
+    public int[] searchShortText() {
+        return App.runQuery(searchShort, ledger, searchIndex);
+    }
+
+    @Benchmark
+    public int[] filterCombined() {
+        return App.runQuery(combined, ledger, searchIndex);
+    }
+
+    @Benchmark
+    public Object rebuildSearchIndex() {
+        return App.newSearchIndex(ledger);
+    }
+}
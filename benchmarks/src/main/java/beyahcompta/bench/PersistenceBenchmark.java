@@ -0,0 +1,94 @@
+package beyahcompta.bench;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Loading and saving the transactions, as done by {@code loadData} and {@code saveData}: the single
+ * snapshot of the older format, and the monthly segments opened with only the recent months read and
+ * saved with only the last month rewritten.
+ *
+ * <p>Chargement et sauvegarde des transactions, comme dans {@code loadData} et {@code saveData} :
+ * l'instantané unique de l'ancien format, et les segments mensuels ouverts en ne lisant que les mois récents
+ * et sauvegardés en ne réécrivant que le dernier mois.</p>
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class PersistenceBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    private List<Object> ledger;
+    private Path directory;
+    private Path snapshotToLoad;
+    private Path snapshotToSave;
+    private Path segments;
+    private Object segmentStore;
+    private Object segmentLedger;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ledger = SyntheticLedger.generate(size);
+        directory = BenchmarkFiles.createDirectory();
+        snapshotToLoad = directory.resolve("transactions.bin");
+        snapshotToSave = directory.resolve("saved.bin");
+        App.writeSnapshot(snapshotToLoad, ledger);
+        segments = directory.resolve("segments");
+        App.writeSegments(segments, ledger);
+        segmentStore = App.openSegments(segments);
+        segmentLedger = App.loadLedger(segmentStore, ledger);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkFiles.delete(directory);
+    }
+
+    @Benchmark
+    public List<Object> loadData() {
+        return App.readSnapshot(snapshotToLoad);
+    }
+
+    @Benchmark
+    public void openSegments(Blackhole blackhole) {
+        Object store = App.openSegments(segments);
+        blackhole.consume(App.segmentSummaries(store));
+        YearMonth last = YearMonth.from(SyntheticLedger.LAST_DAY);
+        blackhole.consume(App.readSegment(store, last.minusMonths(1)));
+        blackhole.consume(App.readSegment(store, last));
+    }
+
+    @Benchmark
+    public void saveData() {
+        App.writeSnapshot(snapshotToSave, ledger);
+    }
+
+    @Benchmark
+    public void saveSegments() {
+        App.saveSegments(segmentStore, segmentLedger, Collections.singleton(YearMonth.from(SyntheticLedger.LAST_DAY)));
+    }
+}
@@ -0,0 +1,63 @@
+package beyahcompta.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Report aggregations: the full recomputation done at startup and the per-refresh reads of the
+ * report, account balance and budget summaries.
+ *
+ * <p>Agrégations des rapports : le recalcul complet effectué au démarrage et les lectures faites à
+ * chaque rafraîchissement des résumés des rapports, des soldes de compte et des budgets.</p>
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class ReportBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    private List<Object> ledger;
+    private Object aggregates;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ledger = SyntheticLedger.generate(size);
+        aggregates = App.newAggregates(ledger);
+    }
+
+    @Benchmark
+    public Object rebuildAggregates() {
+        return App.newAggregates(ledger);
+    }
+
+    @Benchmark
+    public void refreshSummaries(Blackhole blackhole) {
+        Object stats = App.categoryStats(aggregates, SyntheticLedger.LAST_DAY);
+        for (Object category : App.categoryDisplayOrder()) {
+            blackhole.consume(App.formatCurrency(App.categorySpend(aggregates, category)));
+            blackhole.consume(App.formatCurrency(App.periodSpend(stats, category)) + " / " + App.formatCurrency(App.budget(stats, category)));
+        }
+        for (int accountId : App.accountDisplayOrder()) {
+            blackhole.consume(App.accountName(accountId) + ": " + App.formatCurrency(App.accountBalance(accountId)));
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package beyahcompta.bench;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic generator of realistic ledgers: a handful of accounts, mostly debits spread over all
+ * categories, merchant-like descriptions and five years of dates.
+ *
+ * <p>Générateur déterministe de grands livres réalistes : quelques comptes, surtout des débits répartis
+ * sur toutes les catégories, des descriptions de type commerçant et cinq années de dates.</p>
+ */
+final class SyntheticLedger {
+
+    static final LocalDate LAST_DAY = LocalDate.of(2024, 12, 31);
+
+    private static final String[] ACCOUNTS = {"Caisse", "Banque", "Épargne", "Carte Visa", "Compte Joint"};
+    private static final String[] MERCHANTS = {"Carrefour Market", "Boulangerie Paul", "SNCF Voyageurs", "Total Énergies",
+            "Pharmacie du Centre", "Fnac", "Amazon", "Loyer appartement", "EDF facture", "Orange mobile",
+            "Cinéma Pathé", "Restaurant Le Zinc", "Décathlon", "Salaire mensuel", "Remboursement \"CPAM\""};
+
+    private SyntheticLedger() {
+    }
+
+    /**
+     * Generates a ledger of the given size; the same size always yields the same ledger.
+     *
+     * <p>Génère un grand livre de la taille donnée ; une même taille donne toujours le même grand livre.</p>
+     *
+     * @param size The number of transactions. / Le nombre de transactions.
+     * @return The transactions, with IDs 1..size. / Les transactions, d'ID 1..size.
+     */
+    static List<Object> generate(int size) {
+        Random random = new Random(size);
+        Object[] types = App.types();
+        Object[] categories = App.categories();
+        List<Object> transactions = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Object type = random.nextInt(10) == 0 ? types[1] : types[0]; // 10% credits / 10 % de crédits
+            String description = MERCHANTS[random.nextInt(MERCHANTS.length)] + " " + random.nextInt(1000);
+            long amountCents = 1 + random.nextInt(50_000);
+            transactions.add(App.newTransaction(i + 1, LAST_DAY.minusDays(random.nextInt(5 * 365)),
+                    ACCOUNTS[random.nextInt(ACCOUNTS.length)], type, categories[random.nextInt(categories.length)],
+                    description, amountCents));
+        }
+        return transactions;
+    }
+}